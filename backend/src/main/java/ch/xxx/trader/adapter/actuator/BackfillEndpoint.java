@@ -0,0 +1,40 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.actuator;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import ch.xxx.trader.domain.model.dto.BackfillProgress;
+import ch.xxx.trader.usecase.services.BackfillEngine;
+
+@Component
+@Endpoint(id = "backfill")
+public class BackfillEndpoint {
+	private final BackfillEngine backfillEngine;
+
+	public BackfillEndpoint(BackfillEngine backfillEngine) {
+		this.backfillEngine = backfillEngine;
+	}
+
+	@ReadOperation
+	public Map<String, BackfillProgress> progress() {
+		return this.backfillEngine.progress();
+	}
+}
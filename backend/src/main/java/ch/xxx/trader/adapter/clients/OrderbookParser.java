@@ -0,0 +1,205 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.clients;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+
+/**
+ * Reads the bids and asks of the exchange orderbooks token by token into
+ * primitive arrays. Levels can be arrays like [price, amount, ...](Bitstamp,
+ * Itbit) or objects with price and amount properties(Bitfinex). Levels after
+ * maxLevels are skipped without being converted. The tokens are pushed with
+ * accept(...), that works for blocking parsers and for non blocking parsers
+ * that are fed with the body chunks. The parser is done after the root object
+ * or after maxLevels bids and asks, the rest of the body can be dropped.
+ */
+final class OrderbookParser {
+	private static final String BIDS = "bids";
+	private static final String ASKS = "asks";
+	private final int maxLevels;
+	private final Side bids = new Side();
+	private final Side asks = new Side();
+	private Side side = null;
+	private String name = null;
+	private int depth = 0;
+	private int skipDepth = -1;
+	private boolean objectLevel = false;
+	private int levelIndex = 0;
+	private double price = Double.NaN;
+	private double amount = Double.NaN;
+	private boolean started = false;
+	private boolean ended = false;
+
+	OrderbookParser(int maxLevels) {
+		this.maxLevels = maxLevels;
+	}
+
+	static OrderbookDto parse(JsonParser parser, int maxLevels) {
+		OrderbookParser orderbookParser = new OrderbookParser(maxLevels);
+		JsonToken token;
+		while (!orderbookParser.isDone() && (token = parser.nextToken()) != null) {
+			orderbookParser.accept(token, parser);
+		}
+		return orderbookParser.result();
+	}
+
+	/**
+	 * Reads the available tokens of a non blocking parser, returns true if the
+	 * orderbook is complete.
+	 */
+	boolean acceptAvailable(JsonParser parser) {
+		JsonToken token;
+		while (!this.isDone() && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+			this.accept(token, parser);
+		}
+		return this.isDone();
+	}
+
+	boolean isDone() {
+		return this.ended || (this.bids.isDone(this.maxLevels) && this.asks.isDone(this.maxLevels));
+	}
+
+	OrderbookDto result() {
+		if (!this.started) {
+			throw new IllegalStateException("Orderbook json object expected.");
+		}
+		return new OrderbookDto(new Date(), this.bids.prices(), this.bids.amounts(), this.asks.prices(),
+				this.asks.amounts());
+	}
+
+	void accept(JsonToken token, JsonParser parser) {
+		if (this.skipDepth >= 0) {
+			this.skip(token);
+		} else if (this.depth == 0) {
+			if (token != JsonToken.START_OBJECT) {
+				throw new IllegalStateException("Orderbook json object expected.");
+			}
+			this.started = true;
+			this.depth = 1;
+		} else if (this.depth == 1) {
+			this.acceptRoot(token, parser);
+		} else if (this.depth == 2) {
+			this.acceptSide(token);
+		} else {
+			this.acceptLevel(token, parser);
+		}
+	}
+
+	private void acceptLevel(JsonToken token, JsonParser parser) {
+		if (token == JsonToken.PROPERTY_NAME) {
+			this.name = parser.currentName();
+		} else if (token.isStructStart()) {
+			this.skipDepth = this.depth;
+			this.depth++;
+		} else if (token.isStructEnd()) {
+			this.side.add(this.price, this.amount, this.maxLevels);
+			this.depth = 2;
+		} else if (this.objectLevel) {
+			if ("price".equals(this.name)) {
+				this.price = parser.getValueAsDouble();
+			} else if ("amount".equals(this.name)) {
+				this.amount = parser.getValueAsDouble();
+			}
+		} else if (this.levelIndex == 0) {
+			this.price = parser.getValueAsDouble();
+			this.levelIndex++;
+		} else if (this.levelIndex == 1) {
+			this.amount = parser.getValueAsDouble();
+			this.levelIndex++;
+		}
+	}
+
+	private void acceptRoot(JsonToken token, JsonParser parser) {
+		if (token == JsonToken.PROPERTY_NAME) {
+			this.name = parser.currentName();
+		} else if (token == JsonToken.END_OBJECT) {
+			this.ended = true;
+			this.depth = 0;
+		} else if (token == JsonToken.START_ARRAY && (BIDS.equals(this.name) || ASKS.equals(this.name))) {
+			this.side = BIDS.equals(this.name) ? this.bids : this.asks;
+			this.depth = 2;
+		} else if (token.isStructStart()) {
+			this.skipDepth = this.depth;
+			this.depth++;
+		}
+	}
+
+	private void acceptSide(JsonToken token) {
+		if (token == JsonToken.END_ARRAY) {
+			this.side.ended = true;
+			this.side = null;
+			this.name = null;
+			this.depth = 1;
+		} else if (token.isStructStart() && this.side.isDone(this.maxLevels)) {
+			this.skipDepth = this.depth;
+			this.depth++;
+		} else if (token.isStructStart()) {
+			this.objectLevel = token == JsonToken.START_OBJECT;
+			this.name = null;
+			this.levelIndex = 0;
+			this.price = Double.NaN;
+			this.amount = Double.NaN;
+			this.depth = 3;
+		} else {
+			throw new IllegalStateException(String.format("Unexpected orderbook level token: %s", token));
+		}
+	}
+
+	private void skip(JsonToken token) {
+		if (token.isStructStart()) {
+			this.depth++;
+		} else if (token.isStructEnd() && --this.depth == this.skipDepth) {
+			this.skipDepth = -1;
+		}
+	}
+
+	private static class Side {
+		private double[] prices = new double[64];
+		private double[] amounts = new double[64];
+		private int size = 0;
+		private boolean ended = false;
+
+		boolean isDone(int maxLevels) {
+			return this.ended || this.size >= maxLevels;
+		}
+
+		void add(double price, double amount, int maxLevels) {
+			if (Double.isNaN(price) || Double.isNaN(amount) || this.size >= maxLevels) {
+				return;
+			}
+			if (this.size == this.prices.length) {
+				this.prices = Arrays.copyOf(this.prices, this.size * 2);
+				this.amounts = Arrays.copyOf(this.amounts, this.size * 2);
+			}
+			this.prices[this.size] = price;
+			this.amounts[this.size] = amount;
+			this.size++;
+		}
+
+		double[] prices() {
+			return Arrays.copyOf(this.prices, this.size);
+		}
+
+		double[] amounts() {
+			return Arrays.copyOf(this.amounts, this.size);
+		}
+	}
+}
@@ -15,41 +15,85 @@
  */
 package ch.xxx.trader.adapter.clients;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.ClientResponse;
 
-import ch.xxx.trader.domain.common.WebUtils;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+import ch.xxx.trader.domain.services.MyExchangeClientRegistry;
 import ch.xxx.trader.domain.services.MyOrderBookClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.async.ByteArrayFeeder;
+import tools.jackson.databind.json.JsonMapper;
 
 @Service
 public class RestOrderBookClient implements MyOrderBookClient {
 	private static final String URLBF = "https://api.bitfinex.com";
 	private static final String URLBS = "https://www.bitstamp.net/api";
 	private static final String URLIB = "https://api.itbit.com";
+	private final MyExchangeClientRegistry exchangeClientRegistry;
+	private final JsonMapper jsonMapper;
+	@Value("${orderbook.max-levels:1000}")
+	private int maxLevels;
 
-	public Mono<String> getOrderbookBitfinex(String currpair) {
-		WebClient wc = this.buildWebClient(URLBF);
-		return wc.get().uri("/v1/book/" + currpair + "/").accept(MediaType.APPLICATION_JSON)
-				.exchangeToMono(res -> res.bodyToMono(String.class));
+	public RestOrderBookClient(MyExchangeClientRegistry exchangeClientRegistry, JsonMapper jsonMapper) {
+		this.exchangeClientRegistry = exchangeClientRegistry;
+		this.jsonMapper = jsonMapper;
 	}
 
-	public Mono<String> getOrderbookBitstamp(String currpair) {
-		WebClient wc = this.buildWebClient(URLBS);
-		return wc.get().uri("/v2/order_book/" + currpair + "/").accept(MediaType.APPLICATION_JSON)
-				.exchangeToMono(res -> res.bodyToMono(String.class));
+	public Mono<OrderbookDto> getOrderbookBitfinex(String currpair) {
+		return this.exchangeClientRegistry.getWebClient(Exchange.BITFINEX).get()
+				.uri(URLBF + "/v1/book/" + currpair + "/").accept(MediaType.APPLICATION_JSON)
+				.exchangeToMono(this::readOrderbook);
 	}
 
-	public Mono<String> getOrderbookItbit(String currpair) {
-		WebClient wc = WebUtils.buildWebClient(URLIB);
-		return wc.get().uri("/v1/markets/" + currpair + "/order_book").accept(MediaType.APPLICATION_JSON)
-				.exchangeToMono(res -> res.bodyToMono(String.class));
+	public Mono<OrderbookDto> getOrderbookBitstamp(String currpair) {
+		return this.exchangeClientRegistry.getWebClient(Exchange.BITSTAMP).get()
+				.uri(URLBS + "/v2/order_book/" + currpair + "/").accept(MediaType.APPLICATION_JSON)
+				.exchangeToMono(this::readOrderbook);
 	}
 
-	private WebClient buildWebClient(String url) {
-		ReactorClientHttpConnector connector = new ReactorClientHttpConnector();
-		return WebClient.builder().clientConnector(connector).baseUrl(url).build();
+	public Mono<OrderbookDto> getOrderbookItbit(String currpair) {
+		return this.exchangeClientRegistry.getWebClient(Exchange.ITBIT).get()
+				.uri(URLIB + "/v1/markets/" + currpair + "/order_book").accept(MediaType.APPLICATION_JSON)
+				.exchangeToMono(this::readOrderbook);
+	}
+
+	private Mono<OrderbookDto> readOrderbook(ClientResponse response) {
+		return response.statusCode().is2xxSuccessful() ? this.parseOrderbook(response.bodyToFlux(DataBuffer.class))
+				: response.createError();
+	}
+
+	/**
+	 * Feeds the body chunks to a non blocking parser, the body is not joined in
+	 * memory and is cancelled once maxLevels bids and asks are read.
+	 */
+	Mono<OrderbookDto> parseOrderbook(Flux<DataBuffer> body) {
+		return Mono.using(this.jsonMapper::createNonBlockingByteArrayParser, myParser -> {
+			final OrderbookParser orderbookParser = new OrderbookParser(this.maxLevels);
+			final ByteArrayFeeder feeder = (ByteArrayFeeder) myParser.nonBlockingInputFeeder();
+			return body.map(myBuffer -> {
+				try {
+					byte[] bytes = new byte[myBuffer.readableByteCount()];
+					myBuffer.read(bytes);
+					feeder.feedInput(bytes, 0, bytes.length);
+					return orderbookParser.acceptAvailable(myParser);
+				} finally {
+					DataBufferUtils.release(myBuffer);
+				}
+			}).takeUntil(myDone -> myDone).then(Mono.fromCallable(() -> {
+				if (!orderbookParser.isDone()) {
+					feeder.endOfInput();
+					orderbookParser.acceptAvailable(myParser);
+				}
+				return orderbookParser.result();
+			}));
+		}, JsonParser::close);
 	}
 }
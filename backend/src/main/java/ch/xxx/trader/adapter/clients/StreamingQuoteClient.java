@@ -0,0 +1,271 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.clients;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+
+import ch.xxx.trader.domain.common.IngestionRegistry;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.QuoteBf;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.domain.services.MyExchangeClientRegistry;
+import ch.xxx.trader.usecase.common.PrecisionLimiter;
+import ch.xxx.trader.usecase.mappers.EventMapper;
+import ch.xxx.trader.usecase.services.BitfinexService;
+import ch.xxx.trader.usecase.services.BitstampService;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+/**
+ * Streams the Bitfinex and Bitstamp tickers over WebSockets. Every update is
+ * published on the quote fluxes, the persistence samples them per pair with
+ * ingestion.streaming.persist-interval to keep the stored data density of the
+ * polling.
+ */
+@Service
+public class StreamingQuoteClient {
+	private static final Logger LOG = LoggerFactory.getLogger(StreamingQuoteClient.class);
+	private static final String BITFINEX_WS = "wss://api-pub.bitfinex.com/ws/2";
+	private static final String BITSTAMP_WS = "wss://ws.bitstamp.net";
+	private static final String URLBS = "https://www.bitstamp.net/api";
+	private static final Duration PING_INTERVAL = Duration.ofSeconds(15L);
+	private static final Duration IDLE_TIMEOUT = Duration.ofSeconds(60L);
+	private final BitstampService bitstampService;
+	private final BitfinexService bitfinexService;
+	private final EventMapper eventMapper;
+	private final MyExchangeClientRegistry exchangeClientRegistry;
+	private final Scheduler ingestionScheduler;
+	private final WebSocketClient wsClient = new ReactorNettyWebSocketClient();
+	private final Sinks.Many<QuoteBf> bitfinexSink = Sinks.many().multicast().directBestEffort();
+	private final Sinks.Many<QuoteBs> bitstampSink = Sinks.many().multicast().directBestEffort();
+	private final Map<String, QuoteBs> bitstampQuotes = new ConcurrentHashMap<>();
+	private final List<Disposable> disposables = new CopyOnWriteArrayList<>();
+	@Value("${ingestion.streaming.enabled:false}")
+	private boolean streamingEnabled;
+	@Value("${ingestion.streaming.persist-interval:PT1M}")
+	private Duration persistInterval = Duration.ofMinutes(1L);
+	@Value("${ingestion.streaming.baseline-refresh:PT5M}")
+	private Duration baselineRefresh = Duration.ofMinutes(5L);
+
+	public StreamingQuoteClient(BitstampService bitstampService, BitfinexService bitfinexService,
+			EventMapper eventMapper, MyExchangeClientRegistry exchangeClientRegistry, Scheduler ingestionScheduler) {
+		this.bitstampService = bitstampService;
+		this.bitfinexService = bitfinexService;
+		this.eventMapper = eventMapper;
+		this.exchangeClientRegistry = exchangeClientRegistry;
+		this.ingestionScheduler = ingestionScheduler;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!this.streamingEnabled) {
+			return;
+		}
+		LOG.info("Streaming quotes of {} with persist interval {}", IngestionRegistry.STREAMING_EXCHANGES,
+				this.persistInterval);
+		this.disposables.add(this.persist(this.bitfinexSink.asFlux(), QuoteBf::getPair,
+				this.bitfinexService::insertQuote, Exchange.BITFINEX));
+		this.disposables.add(this.persist(this.bitstampSink.asFlux(), QuoteBs::getPair,
+				this.bitstampService::insertQuote, Exchange.BITSTAMP));
+		this.disposables.add(Flux.interval(Duration.ZERO, this.baselineRefresh)
+				.concatMap(myTick -> this.refreshBitstampBaselines()).subscribe());
+		this.disposables.add(this.connect(Exchange.BITFINEX, BITFINEX_WS, this::handleBitfinex));
+		this.disposables.add(this.connect(Exchange.BITSTAMP, BITSTAMP_WS, this::handleBitstamp));
+	}
+
+	@PreDestroy
+	public void stop() {
+		this.disposables.forEach(Disposable::dispose);
+		this.disposables.clear();
+	}
+
+	public Flux<QuoteBf> bitfinexQuotes() {
+		return this.bitfinexSink.asFlux();
+	}
+
+	public Flux<QuoteBs> bitstampQuotes() {
+		return this.bitstampSink.asFlux();
+	}
+
+	private Disposable connect(Exchange exchange, String url,
+			Function<WebSocketSession, Mono<Void>> handler) {
+		return Mono.defer(() -> this.wsClient.execute(URI.create(url), handler::apply))
+				.doOnError(ex -> LOG.warn(String.format("%s websocket failed, reconnecting", exchange.getValue()), ex))
+				.retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1L)).maxBackoff(Duration.ofSeconds(30L)))
+				.subscribe();
+	}
+
+	private Mono<Void> session(WebSocketSession session, Flux<String> subscriptions, Function<Long, String> ping,
+			Predicate<String> onMessage) {
+		Flux<WebSocketMessage> outbound = Flux
+				.concat(subscriptions, Flux.interval(PING_INTERVAL, PING_INTERVAL).map(ping))
+				.map(session::textMessage);
+		Mono<Void> inbound = session.receive().timeout(IDLE_TIMEOUT).map(WebSocketMessage::getPayloadAsText)
+				.takeWhile(onMessage).then(Mono.error(new IllegalStateException("Websocket closed")));
+		return Mono.when(session.send(outbound), inbound);
+	}
+
+	private <T> Disposable persist(Flux<T> quotes, Function<T, String> pairOf, Function<Mono<T>, Mono<T>> insertQuote,
+			Exchange exchange) {
+		return quotes.groupBy(pairOf).flatMap(myGroup -> myGroup.sample(this.persistInterval))
+				.map(PrecisionLimiter::limit)
+				.flatMap(myQuote -> insertQuote.apply(Mono.just(myQuote)).timeout(Duration.ofSeconds(6L))
+						.onErrorResume(ex -> {
+							LOG.warn(String.format("%s streamed quote insert failed", exchange.getValue()), ex);
+							return Mono.empty();
+						}).subscribeOn(this.ingestionScheduler))
+				.subscribe();
+	}
+
+	private Mono<Void> handleBitfinex(WebSocketSession session) {
+		final Map<Long, String> channels = new ConcurrentHashMap<>();
+		Flux<String> subscriptions = Flux.fromIterable(IngestionRegistry.pairs(Exchange.BITFINEX))
+				.map(myPair -> String.format("{\"event\":\"subscribe\",\"channel\":\"ticker\",\"symbol\":\"t%s\"}",
+						myPair.toUpperCase()));
+		return this.session(session, subscriptions,
+				myCount -> String.format("{\"event\":\"ping\",\"cid\":%d}", myCount),
+				myMsg -> this.onBitfinexMessage(channels, myMsg));
+	}
+
+	private boolean onBitfinexMessage(Map<Long, String> channels, String msg) {
+		Object parsed = this.eventMapper.mapJsonToObject(msg, Object.class).orElse(null);
+		if (parsed instanceof Map<?, ?> myEvent) {
+			if ("subscribed".equals(myEvent.get("event")) && myEvent.get("chanId") instanceof Number myChanId
+					&& myEvent.get("symbol") instanceof String mySymbol) {
+				channels.put(myChanId.longValue(), mySymbol.substring(1).toLowerCase());
+			} else if ("info".equals(myEvent.get("event")) && myEvent.get("code") instanceof Number myCode) {
+				// 20051: server restart, the client has to reconnect
+				return myCode.intValue() != 20051;
+			}
+		} else if (parsed instanceof List<?> myUpdate && myUpdate.size() == 2
+				&& myUpdate.get(0) instanceof Number myChanId && myUpdate.get(1) instanceof List<?> myValues
+				&& myValues.size() >= 10 && channels.containsKey(myChanId.longValue())) {
+			BigDecimal bid = this.toBigDecimal(myValues.get(0));
+			BigDecimal ask = this.toBigDecimal(myValues.get(2));
+			QuoteBf quote = new QuoteBf(bid.add(ask).divide(BigDecimal.valueOf(2L)), bid, ask,
+					this.toBigDecimal(myValues.get(6)), this.toBigDecimal(myValues.get(9)),
+					this.toBigDecimal(myValues.get(8)), this.toBigDecimal(myValues.get(7)),
+					BigDecimal.valueOf(System.currentTimeMillis(), 3).toPlainString());
+			quote.setPair(channels.get(myChanId.longValue()));
+			this.bitfinexSink.tryEmitNext(quote);
+		}
+		return true;
+	}
+
+	private Mono<Void> handleBitstamp(WebSocketSession session) {
+		Flux<String> subscriptions = Flux.fromIterable(IngestionRegistry.pairs(Exchange.BITSTAMP))
+				.flatMapIterable(myPair -> List.of("live_trades_" + myPair, "order_book_" + myPair))
+				.map(myChannel -> String.format("{\"event\":\"bts:subscribe\",\"data\":{\"channel\":\"%s\"}}",
+						myChannel));
+		return this.session(session, subscriptions, myCount -> "{\"event\":\"bts:heartbeat\"}",
+				this::onBitstampMessage);
+	}
+
+	private boolean onBitstampMessage(String msg) {
+		Object parsed = this.eventMapper.mapJsonToObject(msg, Object.class).orElse(null);
+		if (!(parsed instanceof Map<?, ?> myEvent)) {
+			return true;
+		}
+		if ("bts:request_reconnect".equals(myEvent.get("event"))) {
+			return false;
+		}
+		if (!(myEvent.get("channel") instanceof String myChannel) || !(myEvent.get("data") instanceof Map<?, ?> myData)
+				|| myData.isEmpty()) {
+			return true;
+		}
+		QuoteBs quote = null;
+		if ("trade".equals(myEvent.get("event")) && myChannel.startsWith("live_trades_")) {
+			BigDecimal price = this.toBigDecimal(myData.get("price"));
+			Date timestamp = new Date(Long.parseLong(String.valueOf(myData.get("timestamp"))) * 1000L);
+			quote = this.bitstampQuotes.computeIfPresent(myChannel.substring("live_trades_".length()),
+					(myPair, myQuote) -> this.copyBs(myQuote, myQuote.getHigh().max(price), price,
+							myQuote.getLow().min(price), timestamp, myQuote.getBid(), myQuote.getAsk()));
+		} else if ("data".equals(myEvent.get("event")) && myChannel.startsWith("order_book_")
+				&& myData.get("bids") instanceof List<?> myBids && !myBids.isEmpty()
+				&& myData.get("asks") instanceof List<?> myAsks && !myAsks.isEmpty()) {
+			BigDecimal bid = this.toBigDecimal(((List<?>) myBids.get(0)).get(0));
+			BigDecimal ask = this.toBigDecimal(((List<?>) myAsks.get(0)).get(0));
+			quote = this.bitstampQuotes.computeIfPresent(myChannel.substring("order_book_".length()),
+					(myPair, myQuote) -> this.copyBs(myQuote, myQuote.getHigh(), myQuote.getLast(),
+							myQuote.getLow(), myQuote.getTimestamp(), bid, ask));
+		}
+		if (quote != null) {
+			this.bitstampSink.tryEmitNext(quote);
+		}
+		return true;
+	}
+
+	private Mono<Void> refreshBitstampBaselines() {
+		return Flux.fromIterable(IngestionRegistry.pairs(Exchange.BITSTAMP))
+				.flatMap(myPair -> this.exchangeClientRegistry.getWebClient(Exchange.BITSTAMP).get()
+						.uri(String.format("%s/v2/ticker/%s/", URLBS, myPair)).accept(MediaType.APPLICATION_JSON)
+						.exchangeToMono(response -> response.bodyToMono(QuoteBs.class)).timeout(Duration.ofSeconds(5L))
+						.doOnNext(myBaseline -> this.bitstampQuotes.merge(myPair, this.copyBs(myBaseline, myPair),
+								(myOld, myNew) -> this.copyBs(myNew, myNew.getHigh().max(myOld.getLast()),
+										myOld.getLast(), myNew.getLow().min(myOld.getLast()), myOld.getTimestamp(),
+										myOld.getBid(), myOld.getAsk())))
+						.onErrorResume(ex -> {
+							LOG.warn(String.format("bitstamp baseline request for %s failed", myPair), ex);
+							return Mono.empty();
+						}))
+				.then();
+	}
+
+	private QuoteBs copyBs(QuoteBs baseline, String pair) {
+		QuoteBs quote = this.copyBs(baseline, baseline.getHigh(), baseline.getLast(), baseline.getLow(),
+				baseline.getTimestamp(), baseline.getBid(), baseline.getAsk());
+		quote.setPair(pair);
+		return quote;
+	}
+
+	private QuoteBs copyBs(QuoteBs baseline, BigDecimal high, BigDecimal last, BigDecimal low, Date timestamp,
+			BigDecimal bid, BigDecimal ask) {
+		QuoteBs quote = new QuoteBs(high, last, timestamp, bid, baseline.getVwap(), baseline.getVolume(), low, ask,
+				baseline.getOpen());
+		quote.setPair(baseline.getPair());
+		return quote;
+	}
+
+	private BigDecimal toBigDecimal(Object value) {
+		return new BigDecimal(String.valueOf(value));
+	}
+}
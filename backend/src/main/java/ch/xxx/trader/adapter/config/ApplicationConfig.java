@@ -15,21 +15,9 @@
  */
 package ch.xxx.trader.adapter.config;
 
-import io.netty.channel.ChannelOption;
-import io.netty.handler.ssl.SslContextBuilder;
-import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.handler.timeout.WriteTimeoutHandler;
 import org.springframework.boot.autoconfigure.web.WebProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.netty.http.client.HttpClient;
-import reactor.netty.resources.ConnectionProvider;
-import reactor.netty.tcp.SslProvider.SslContextSpec;
-
-import javax.net.ssl.SSLException;
-import java.time.Duration;
 
 @Configuration
 public class ApplicationConfig {
@@ -38,28 +26,4 @@ public class ApplicationConfig {
     public WebProperties.Resources resources() {
         return new WebProperties.Resources();
     }
-    
-    @Bean
-    public WebClient.Builder createWebClient() {
-		ConnectionProvider provider = ConnectionProvider.builder("Client").maxConnections(20)
-				.maxIdleTime(Duration.ofSeconds(6)).maxLifeTime(Duration.ofSeconds(7))
-				.pendingAcquireTimeout(Duration.ofSeconds(9L)).evictInBackground(Duration.ofSeconds(10)).build();
-
-		var webClientBuilder = WebClient.builder().clientConnector(new ReactorClientHttpConnector(HttpClient
-				.create(provider).secure(spec -> sslTimeouts(spec)).option(ChannelOption.SO_KEEPALIVE, false)
-				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
-				.doOnConnected(
-						c -> c.addHandlerLast(new ReadTimeoutHandler(6)).addHandlerLast(new WriteTimeoutHandler(7)))
-				.responseTimeout(Duration.ofSeconds(7L))));
-		return webClientBuilder;
-	}
-
-	private void sslTimeouts(SslContextSpec spec) {
-		try {
-			spec.sslContext(SslContextBuilder.forClient().build()).handshakeTimeout(Duration.ofSeconds(8))
-					.closeNotifyFlushTimeout(Duration.ofSeconds(6)).closeNotifyReadTimeout(Duration.ofSeconds(6));
-		} catch (SSLException e) {
-			throw new RuntimeException(e);
-		}
-	}
 }
@@ -0,0 +1,86 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.config;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.services.MyExchangeClientRegistry;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * One long lived WebClient with its own connection pool per exchange. The
+ * pools export the reactor.netty.connection.provider metrics with the name
+ * tag exchange-[name]. HTTP/2 is negotiated with ALPN and falls back to
+ * HTTP/1.1.
+ */
+@Component
+public class ExchangeClientRegistry implements MyExchangeClientRegistry {
+	private static final Map<Exchange, ClientSettings> SETTINGS = Map.of(Exchange.BITSTAMP,
+			new ClientSettings(10, true), Exchange.BITFINEX, new ClientSettings(10, true), Exchange.ITBIT,
+			new ClientSettings(5, false), Exchange.COINBASE, new ClientSettings(5, true));
+	private final Map<Exchange, ConnectionProvider> connectionProviders = new EnumMap<>(Exchange.class);
+	private final Map<Exchange, WebClient> webClients = new EnumMap<>(Exchange.class);
+
+	private record ClientSettings(int maxConnections, boolean http2) {
+	}
+
+	public ExchangeClientRegistry(WebClient.Builder webClientBuilder) {
+		for (Exchange exchange : Exchange.values()) {
+			ClientSettings settings = SETTINGS.get(exchange);
+			ConnectionProvider provider = ConnectionProvider.builder("exchange-" + exchange.getValue())
+					.maxConnections(settings.maxConnections()).pendingAcquireMaxCount(settings.maxConnections() * 4)
+					.pendingAcquireTimeout(Duration.ofSeconds(9L)).maxIdleTime(Duration.ofSeconds(45L))
+					.maxLifeTime(Duration.ofMinutes(10L)).evictInBackground(Duration.ofSeconds(30L)).metrics(true)
+					.build();
+			HttpClient httpClient = HttpClient.create(provider)
+					.protocol(settings.http2() ? new HttpProtocol[] { HttpProtocol.H2, HttpProtocol.HTTP11 }
+							: new HttpProtocol[] { HttpProtocol.HTTP11 })
+					.secure(spec -> spec
+							.sslContext(settings.http2() ? Http2SslContextSpec.forClient()
+									: Http11SslContextSpec.forClient())
+							.handshakeTimeout(Duration.ofSeconds(8)).closeNotifyFlushTimeout(Duration.ofSeconds(6))
+							.closeNotifyReadTimeout(Duration.ofSeconds(6)))
+					.option(ChannelOption.SO_KEEPALIVE, true).option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
+					.responseTimeout(Duration.ofSeconds(7L));
+			this.connectionProviders.put(exchange, provider);
+			this.webClients.put(exchange,
+					webClientBuilder.clone().clientConnector(new ReactorClientHttpConnector(httpClient)).build());
+		}
+	}
+
+	@Override
+	public WebClient getWebClient(Exchange exchange) {
+		return this.webClients.get(exchange);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		this.connectionProviders.values().forEach(ConnectionProvider::dispose);
+	}
+}
@@ -40,7 +40,7 @@ public class ForwardServletFilter implements Filter {
 	private static final Logger LOG = LoggerFactory.getLogger(ForwardServletFilter.class);
 	public static final List<Locale> SUPPORTED_LOCALES = List.of(Locale.ENGLISH, Locale.GERMAN);
 	public static final List<String> REST_PATHS = List.of("/bitfinex", "/bitstamp", "/coinbase", "/itbit", "/myuser",
-			"/statistics", "/actuator", "/swagger-ui.html", "/swagger-ui", "/v3");
+			"/statistics", "/quotes", "/actuator", "/swagger-ui.html", "/swagger-ui", "/v3");
 	public static final List<String> LANGUAGE_PATHS = SUPPORTED_LOCALES.stream()
 			.map(myLocale -> String.format("/%s/", myLocale.getLanguage())).collect(Collectors.toList());
 
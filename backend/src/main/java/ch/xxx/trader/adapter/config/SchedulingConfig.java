@@ -29,6 +29,8 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import io.micrometer.core.aop.TimedAspect;
 import io.micrometer.core.instrument.MeterRegistry;
 import net.javacrumbs.shedlock.spring.annotation.EnableSchedulerLock;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @Configuration
 @EnableAspectJAutoProxy
@@ -43,6 +45,11 @@ public class SchedulingConfig {
 		return new TimedAspect(registry);
 	}
 
+	@Bean(name = "ingestionScheduler", destroyMethod = "dispose")
+	public Scheduler ingestionScheduler() {
+		return Schedulers.newBoundedElastic(25, 50, "ingestion", 10);
+	}
+
 	@Bean(name = "clientTaskExecutor")
 	public Executor threadPoolTaskExecutor() {
 		return this.createThreadPoolTaskExecutor(20);
@@ -15,14 +15,23 @@
  */
 package ch.xxx.trader.adapter.controller;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+import ch.xxx.trader.domain.model.entity.Candle;
 import ch.xxx.trader.domain.model.entity.QuoteBf;
 import ch.xxx.trader.usecase.services.BitfinexService;
+import ch.xxx.trader.usecase.services.LatestQuoteStore;
+import ch.xxx.trader.usecase.services.QuoteStreamService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -30,28 +39,44 @@ import reactor.core.publisher.Mono;
 @RequestMapping("/bitfinex")
 public class BitfinexController {
 	private final BitfinexService bitfinexService;
-	
-	public BitfinexController(BitfinexService bitfinexService) {
+	private final QuoteStreamService quoteStreamService;
+
+	public BitfinexController(BitfinexService bitfinexService, QuoteStreamService quoteStreamService) {
 		this.bitfinexService = bitfinexService;
+		this.quoteStreamService = quoteStreamService;
 	}
 
 	@GetMapping("/{currpair}/orderbook")
-	public Mono<String> getOrderbook(@PathVariable String currpair) {		
-		return this.bitfinexService.getOrderbook(currpair);
+	public Mono<OrderbookDto> getOrderbook(@PathVariable String currpair,
+			@RequestParam(defaultValue = "100") int depth, @RequestParam(defaultValue = "0") double tick) {
+		return this.bitfinexService.getOrderbook(currpair, depth, tick);
 	}
 
 	@GetMapping("/{pair}/current")
-	public Mono<QuoteBf> currentQuote(@PathVariable String pair) {
-		return this.bitfinexService.currentQuote(pair);
+	public Mono<ResponseEntity<QuoteBf>> currentQuote(@PathVariable String pair) {
+		return this.bitfinexService.currentQuote(pair).map(myQuote -> ResponseEntity.ok()
+				.header(HttpHeaders.AGE, Long.toString(LatestQuoteStore.ageSeconds(myQuote))).body(myQuote));
+	}
+
+	@GetMapping(path="/{pair}/stream", produces=MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<Object>> streamQuotes(@PathVariable String pair) {
+		return this.quoteStreamService.stream(Exchange.BITFINEX, this.bitfinexService.quoteUpdates(pair));
 	}
 
 	@GetMapping("/{pair}/{timeFrame}")
-	public Flux<QuoteBf> tfQuotes(@PathVariable String timeFrame, @PathVariable String pair) {
-		return this.bitfinexService.tfQuotes(timeFrame, pair);		
+	public Flux<QuoteBf> tfQuotes(@PathVariable String timeFrame, @PathVariable String pair,
+			@RequestParam(defaultValue = "0") int points) {
+		return this.bitfinexService.tfQuotes(timeFrame, pair, points);		
 	}
 	
 	@GetMapping(path="/{pair}/{timeFrame}/pdf", produces=MediaType.APPLICATION_PDF_VALUE)
 	public Mono<byte[]> pdfReport(@PathVariable String timeFrame, @PathVariable String pair) {
 		return this.bitfinexService.pdfReport(timeFrame, pair);		
-	}	
+	}
+
+	@GetMapping("/{pair}/{timeFrame}/candles")
+	public Flux<Candle> candles(@PathVariable String timeFrame, @PathVariable String pair,
+			@RequestParam(defaultValue = "") String resolution) {
+		return this.bitfinexService.candles(timeFrame, pair, resolution);
+	}
 }
@@ -15,13 +15,23 @@
  */
 package ch.xxx.trader.adapter.controller;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.Candle;
 import ch.xxx.trader.domain.model.entity.QuoteCb;
 import ch.xxx.trader.domain.model.entity.QuoteCbSmall;
 import ch.xxx.trader.usecase.services.CoinbaseService;
+import ch.xxx.trader.usecase.services.LatestQuoteStore;
+import ch.xxx.trader.usecase.services.QuoteStreamService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -29,43 +39,57 @@ import reactor.core.publisher.Mono;
 @RequestMapping("/coinbase")
 public class CoinbaseController {
 	private final CoinbaseService coinbaseService;
-	
-	public CoinbaseController(CoinbaseService coinbaseService) {
+	private final QuoteStreamService quoteStreamService;
+
+	public CoinbaseController(CoinbaseService coinbaseService, QuoteStreamService quoteStreamService) {
 		this.coinbaseService = coinbaseService;
+		this.quoteStreamService = quoteStreamService;
 	}
 
 	@GetMapping("/today")
-	public Flux<QuoteCbSmall> todayQuotesBc() {
-		return this.coinbaseService.todayQuotesBc();
+	public Flux<QuoteCbSmall> todayQuotesBc(@RequestParam(defaultValue = "0") int points) {
+		return this.coinbaseService.todayQuotesBc(points);
 	}
 	
 	@GetMapping("/7days")
-	public Flux<QuoteCbSmall> sevenDaysQuotesBc() {
-		return this.coinbaseService.sevenDaysQuotesBc();
+	public Flux<QuoteCbSmall> sevenDaysQuotesBc(@RequestParam(defaultValue = "0") int points) {
+		return this.coinbaseService.sevenDaysQuotesBc(points);
 	}
 	
 	@GetMapping("/30days")
-	public Flux<QuoteCbSmall> thirtyDaysQuotesBc() {
-		return this.coinbaseService.thirtyDaysQuotesBc();
+	public Flux<QuoteCbSmall> thirtyDaysQuotesBc(@RequestParam(defaultValue = "0") int points) {
+		return this.coinbaseService.thirtyDaysQuotesBc(points);
 	}
 	
 	@GetMapping("/90days")
-	public Flux<QuoteCbSmall> nintyDaysQuotesBc() {
-		return this.coinbaseService.nintyDaysQuotesBc();
+	public Flux<QuoteCbSmall> nintyDaysQuotesBc(@RequestParam(defaultValue = "0") int points) {
+		return this.coinbaseService.nintyDaysQuotesBc(points);
 	}
 
 	@GetMapping("/6month")
-	public Flux<QuoteCbSmall> sixMonthsQuotesBc() {
-		return this.coinbaseService.sixMonthsQuotesBc();
+	public Flux<QuoteCbSmall> sixMonthsQuotesBc(@RequestParam(defaultValue = "0") int points) {
+		return this.coinbaseService.sixMonthsQuotesBc(points);
 	}
 	
 	@GetMapping("/1year")
-	public Flux<QuoteCbSmall> oneYearQuotesBc() {
-		return this.coinbaseService.oneYearQuotesBc();
+	public Flux<QuoteCbSmall> oneYearQuotesBc(@RequestParam(defaultValue = "0") int points) {
+		return this.coinbaseService.oneYearQuotesBc(points);
 	}
 	
 	@GetMapping("/current")
-	public Mono<QuoteCb> currentQuoteBc() {
-		return this.coinbaseService.currentQuoteBc();
-	}	
+	public Mono<ResponseEntity<QuoteCb>> currentQuoteBc() {
+		return this.coinbaseService.currentQuoteBc().map(myQuote -> ResponseEntity.ok()
+				.header(HttpHeaders.AGE, Long.toString(LatestQuoteStore.ageSeconds(myQuote))).body(myQuote));
+	}
+
+	@GetMapping(path="/stream", produces=MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<Object>> streamQuotes() {
+		return this.quoteStreamService.stream(Exchange.COINBASE, this.coinbaseService.quoteUpdates());
+	}
+
+	@GetMapping("/{pair}/{timeFrame}/candles")
+	public Flux<Candle> candles(@PathVariable String timeFrame, @PathVariable String pair,
+			@RequestParam(defaultValue = "") String resolution) {
+		return this.coinbaseService.candles(timeFrame, pair, resolution);
+	}
 }
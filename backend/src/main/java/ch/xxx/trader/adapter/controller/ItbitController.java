@@ -17,14 +17,23 @@ package ch.xxx.trader.adapter.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+import ch.xxx.trader.domain.model.entity.Candle;
 import ch.xxx.trader.domain.model.entity.QuoteIb;
 import ch.xxx.trader.usecase.services.ItbitService;
+import ch.xxx.trader.usecase.services.LatestQuoteStore;
+import ch.xxx.trader.usecase.services.QuoteStreamService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -32,28 +41,44 @@ import reactor.core.publisher.Mono;
 @RequestMapping("/itbit")
 public class ItbitController {
 	private final ItbitService itbitService;
-	
-	public ItbitController(ItbitService itbitService) {
+	private final QuoteStreamService quoteStreamService;
+
+	public ItbitController(ItbitService itbitService, QuoteStreamService quoteStreamService) {
 		this.itbitService = itbitService;
+		this.quoteStreamService = quoteStreamService;
 	}
 	
 	@GetMapping("/{currpair}/orderbook")
-	public Mono<String> getOrderbook(@PathVariable String currpair, HttpServletRequest request) {
-		return this.itbitService.getOrderbook(currpair);
+	public Mono<OrderbookDto> getOrderbook(@PathVariable String currpair, HttpServletRequest request,
+			@RequestParam(defaultValue = "100") int depth, @RequestParam(defaultValue = "0") double tick) {
+		return this.itbitService.getOrderbook(currpair, depth, tick);
 	}
 
 	@GetMapping("/{pair}/current")
-	public Mono<QuoteIb> currentQuote(@PathVariable String pair) {
-		return this.itbitService.currentQuote(pair);
+	public Mono<ResponseEntity<QuoteIb>> currentQuote(@PathVariable String pair) {
+		return this.itbitService.currentQuote(pair).map(myQuote -> ResponseEntity.ok()
+				.header(HttpHeaders.AGE, Long.toString(LatestQuoteStore.ageSeconds(myQuote))).body(myQuote));
+	}
+
+	@GetMapping(path="/{pair}/stream", produces=MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<Object>> streamQuotes(@PathVariable String pair) {
+		return this.quoteStreamService.stream(Exchange.ITBIT, this.itbitService.quoteUpdates(pair));
 	}
 
 	@GetMapping("/{pair}/{timeFrame}")
-	public Flux<QuoteIb> tfQuotes(@PathVariable String timeFrame, @PathVariable String pair) {
-		return this.itbitService.tfQuotes(timeFrame, pair);
+	public Flux<QuoteIb> tfQuotes(@PathVariable String timeFrame, @PathVariable String pair,
+			@RequestParam(defaultValue = "0") int points) {
+		return this.itbitService.tfQuotes(timeFrame, pair, points);
 	}		
 	
 	@GetMapping(path="/{pair}/{timeFrame}/pdf", produces=MediaType.APPLICATION_PDF_VALUE)
 	public Mono<byte[]> pdfReport(@PathVariable String timeFrame, @PathVariable String pair) {
 		return this.itbitService.pdfReport(timeFrame, pair);
-	}	
+	}
+
+	@GetMapping("/{pair}/{timeFrame}/candles")
+	public Flux<Candle> candles(@PathVariable String timeFrame, @PathVariable String pair,
+			@RequestParam(defaultValue = "") String resolution) {
+		return this.itbitService.candles(timeFrame, pair, resolution);
+	}
 }
@@ -0,0 +1,72 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ch.xxx.trader.domain.common.IngestionRegistry;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.IngestionPair;
+import ch.xxx.trader.domain.model.entity.Quote;
+import ch.xxx.trader.usecase.services.BitfinexService;
+import ch.xxx.trader.usecase.services.BitstampService;
+import ch.xxx.trader.usecase.services.CoinbaseService;
+import ch.xxx.trader.usecase.services.ItbitService;
+import ch.xxx.trader.usecase.services.QuoteStreamService;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/quotes")
+public class QuoteStreamController {
+	private final BitstampService bitstampService;
+	private final BitfinexService bitfinexService;
+	private final ItbitService itbitService;
+	private final CoinbaseService coinbaseService;
+	private final QuoteStreamService quoteStreamService;
+
+	public QuoteStreamController(BitstampService bitstampService, BitfinexService bitfinexService,
+			ItbitService itbitService, CoinbaseService coinbaseService, QuoteStreamService quoteStreamService) {
+		this.bitstampService = bitstampService;
+		this.bitfinexService = bitfinexService;
+		this.itbitService = itbitService;
+		this.coinbaseService = coinbaseService;
+		this.quoteStreamService = quoteStreamService;
+	}
+
+	@GetMapping(path="/stream", produces=MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<Object>> streamQuotes() {
+		return this.quoteStreamService.stream("overview", Flux.fromIterable(IngestionRegistry.PAIRS)
+				.flatMap(this::events, IngestionRegistry.PAIRS.size()));
+	}
+
+	private Flux<ServerSentEvent<Object>> events(IngestionPair ingestionPair) {
+		Flux<? extends Quote> quotes;
+		if (Exchange.BITSTAMP.equals(ingestionPair.exchange())) {
+			quotes = this.bitstampService.quoteUpdates(ingestionPair.pair());
+		} else if (Exchange.BITFINEX.equals(ingestionPair.exchange())) {
+			quotes = this.bitfinexService.quoteUpdates(ingestionPair.pair());
+		} else if (Exchange.ITBIT.equals(ingestionPair.exchange())) {
+			quotes = this.itbitService.quoteUpdates(ingestionPair.pair().toLowerCase());
+		} else {
+			quotes = this.coinbaseService.quoteUpdates();
+		}
+		return this.quoteStreamService.events(ingestionPair.exchange(), quotes);
+	}
+}
@@ -30,6 +30,11 @@ import ch.xxx.trader.usecase.services.ItbitService;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import reactor.core.Disposable;
 
+/**
+ * Starts the rollup jobs. With rollup.shard.enabled=true the
+ * rollup.shard.lock-suffix(like -${HOSTNAME}) gives every replica its own
+ * lock, the replicas share the partitions of the jobs.
+ */
 @Component
 public class PrepareDataTask {
 	private static final Logger LOG = LoggerFactory.getLogger(PrepareDataTask.class);
@@ -52,41 +57,41 @@ public class PrepareDataTask {
 
 	@Async
 	@Scheduled(cron = "0 5 0,12 ? * ?")
-	@SchedulerLock(name = "bitstamp_avg_scheduledTask", lockAtLeastFor = "PT10H", lockAtMostFor = "PT11H")
+	@SchedulerLock(name = "bitstamp_avg_scheduledTask${rollup.shard.lock-suffix:}",
+			lockAtLeastFor = "PT10H", lockAtMostFor = "PT11H")
 	public void createBsAvg() {
 		this.bitstampDisposableOpt.ifPresent(myDisposable -> myDisposable.dispose());
-		this.bitstampDisposableOpt = Optional.of(this.bitstampService.createBsAvg()
-				.doFinally(value -> BitstampService.singleInstanceLock = false).subscribe(result -> {
-				}, error -> LOG.warn("createBsAvg() failed.", error)));
+		this.bitstampDisposableOpt = Optional.of(this.bitstampService.createBsAvg().subscribe(result -> {
+		}, error -> LOG.warn("createBsAvg() failed.", error)));
 	}
 
 	@Async
 	@Scheduled(cron = "0 45 0,12 ? * ?")
-	@SchedulerLock(name = "bitfinex_avg_scheduledTask", lockAtLeastFor = "PT10H", lockAtMostFor = "PT11H")
+	@SchedulerLock(name = "bitfinex_avg_scheduledTask${rollup.shard.lock-suffix:}",
+			lockAtLeastFor = "PT10H", lockAtMostFor = "PT11H")
 	public void createBfAvg() {
 		this.bitfinexDisposableOpt.ifPresent(myDisposable -> myDisposable.dispose());
-		this.bitfinexDisposableOpt = Optional.of(this.bitfinexService.createBfAvg()
-				.doFinally(value -> BitfinexService.singleInstanceLock = false).subscribe(result -> {
-				}, error -> LOG.warn("createBfAvg() failed.", error)));
+		this.bitfinexDisposableOpt = Optional.of(this.bitfinexService.createBfAvg().subscribe(result -> {
+		}, error -> LOG.warn("createBfAvg() failed.", error)));
 	}
 
 	@Async
 	@Scheduled(cron = "0 25 1,13 ? * ?")
-	@SchedulerLock(name = "itbit_avg_scheduledTask", lockAtLeastFor = "PT10H", lockAtMostFor = "PT11H")
+	@SchedulerLock(name = "itbit_avg_scheduledTask${rollup.shard.lock-suffix:}",
+			lockAtLeastFor = "PT10H", lockAtMostFor = "PT11H")
 	public void createIbAvg() {
 		this.itbitDisposableOpt.ifPresent(myDisposable -> myDisposable.dispose());
-		this.itbitDisposableOpt = Optional.of(this.itbitService.createIbAvg()
-				.doFinally(value -> ItbitService.singleInstanceLock = false).subscribe(result -> {
-				}, error -> LOG.warn("createIbAvg() failed.", error)));
+		this.itbitDisposableOpt = Optional.of(this.itbitService.createIbAvg().subscribe(result -> {
+		}, error -> LOG.warn("createIbAvg() failed.", error)));
 	}
 
 	@Async
 	@Scheduled(cron = "0 10 2,14 ? * ?")
-	@SchedulerLock(name = "coinbase_avg_scheduledTask", lockAtLeastFor = "PT10H", lockAtMostFor = "PT11H")
+	@SchedulerLock(name = "coinbase_avg_scheduledTask${rollup.shard.lock-suffix:}",
+			lockAtLeastFor = "PT10H", lockAtMostFor = "PT11H")
 	public void createCbAvg() {
 		this.coinbaseDisposableOpt.ifPresent(myDisposable -> myDisposable.dispose());
-		this.coinbaseDisposableOpt = Optional.of(this.coinbaseService.createCbAvg()
-				.doFinally(value -> CoinbaseService.singleInstanceLock = false).subscribe(result -> {
-				}, error -> LOG.warn("createCbAvg() failed.", error)));
+		this.coinbaseDisposableOpt = Optional.of(this.coinbaseService.createCbAvg().subscribe(result -> {
+		}, error -> LOG.warn("createCbAvg() failed.", error)));
 	}
 }
@@ -0,0 +1,202 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.cron;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.IngestionPair;
+import ch.xxx.trader.domain.model.dto.WrapperCb;
+import ch.xxx.trader.domain.model.entity.QuoteBf;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+import ch.xxx.trader.domain.model.entity.QuoteIb;
+import ch.xxx.trader.domain.model.entity.paxos.PaxosQuote;
+import ch.xxx.trader.domain.services.MyExchangeClientRegistry;
+import ch.xxx.trader.usecase.common.PrecisionLimiter;
+import ch.xxx.trader.usecase.services.BitfinexService;
+import ch.xxx.trader.usecase.services.BitstampService;
+import ch.xxx.trader.usecase.services.CoinbaseService;
+import ch.xxx.trader.usecase.services.ItbitService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Polls the pairs of the ingestion registry on one reactive pipeline. The polls
+ * are released at their offsets and run with bounded concurrency, so adding
+ * pairs adds neither scheduler threads nor scheduler locks.
+ */
+@Component
+class QuoteIngestionEngine {
+	private static final Logger LOG = LoggerFactory.getLogger(QuoteIngestionEngine.class);
+
+	private static final String URLBS = "https://www.bitstamp.net/api";
+	private static final String URLCB = "https://api.coinbase.com/v2";
+	private static final String URLPA = "https://api.paxos.com/v2";
+	private static final String URLBF = "https://api.bitfinex.com";
+
+	private final BitstampService bitstampService;
+	private final BitfinexService bitfinexService;
+	private final ItbitService itbitService;
+	private final CoinbaseService coinbaseService;
+	private final MyExchangeClientRegistry exchangeClientRegistry;
+	private final Scheduler ingestionScheduler;
+	@Value("${ingestion.max-concurrency:8}")
+	private int maxConcurrency = 8;
+
+	QuoteIngestionEngine(BitstampService bitstampService, BitfinexService bitfinexService, ItbitService itbitService,
+			CoinbaseService coinbaseService, MyExchangeClientRegistry exchangeClientRegistry,
+			Scheduler ingestionScheduler) {
+		this.bitstampService = bitstampService;
+		this.bitfinexService = bitfinexService;
+		this.itbitService = itbitService;
+		this.coinbaseService = coinbaseService;
+		this.exchangeClientRegistry = exchangeClientRegistry;
+		this.ingestionScheduler = ingestionScheduler;
+	}
+
+	Mono<Long> pollPairs(List<IngestionPair> pairs) {
+		final long start = System.nanoTime();
+		return Flux.fromIterable(pairs.stream().sorted(Comparator.comparing(IngestionPair::offset)).toList())
+				.concatMap(myPair -> Mono.defer(() -> Mono.delay(this.remainingDelay(start, myPair.offset())))
+						.thenReturn(myPair))
+				.flatMap(this::pollPair, this.maxConcurrency).count();
+	}
+
+	private Duration remainingDelay(long start, Duration offset) {
+		Duration remaining = offset.minus(Duration.ofNanos(System.nanoTime() - start));
+		return remaining.isNegative() ? Duration.ZERO : remaining;
+	}
+
+	private Mono<IngestionPair> pollPair(IngestionPair ingestionPair) {
+		final LocalTime start = LocalTime.now();
+		Mono<?> result = switch (ingestionPair.exchange()) {
+		case BITSTAMP -> this.store(ingestionPair, this.requestBitstamp(ingestionPair.pair()),
+				this.bitstampService::insertQuote);
+		case BITFINEX -> this.store(ingestionPair, this.requestBitfinex(ingestionPair.pair()),
+				this.bitfinexService::insertQuote);
+		case ITBIT -> this.store(ingestionPair, this.requestItbit(ingestionPair.pair()),
+				this.itbitService::insertQuote);
+		case COINBASE -> this.store(ingestionPair, this.requestCoinbase(), this.coinbaseService::insertQuote);
+		};
+		return result.map(myQuote -> {
+			this.logDuration(ingestionPair, start);
+			return ingestionPair;
+		});
+	}
+
+	private <T> Mono<T> store(IngestionPair ingestionPair, Mono<T> request,
+			Function<Mono<T>, Mono<T>> insertQuote) {
+		return request.map(PrecisionLimiter::limit).timeout(Duration.ofSeconds(5L)).onErrorResume(ex -> {
+			this.logRequestFailed(ingestionPair, ex);
+			return Mono.empty();
+		}).flatMap(myQuote -> insertQuote.apply(Mono.just(myQuote)).timeout(Duration.ofSeconds(6L))
+				.subscribeOn(this.ingestionScheduler).onErrorResume(ex -> {
+					LOG.warn(String.format("%s data store failed for: %s", ingestionPair.exchange().getValue(),
+							ingestionPair.pair()), ex);
+					return Mono.empty();
+				}));
+	}
+
+	private Mono<QuoteBs> requestBitstamp(String currPair) {
+		return this.exchangeClientRegistry.getWebClient(Exchange.BITSTAMP).get()
+				.uri(String.format("%s/v2/ticker/%s/", URLBS, currPair))
+				.accept(MediaType.APPLICATION_JSON).exchangeToMono(response -> response.bodyToMono(QuoteBs.class))
+				.map(res -> {
+					res.setPair(currPair);
+					return res;
+				});
+	}
+
+	private Mono<QuoteBf> requestBitfinex(String currPair) {
+		return this.exchangeClientRegistry.getWebClient(Exchange.BITFINEX).get()
+				.uri(String.format("%s/v1/pubticker/%s", URLBF, currPair))
+				.accept(MediaType.APPLICATION_JSON).exchangeToMono(response -> response.bodyToMono(QuoteBf.class))
+				.map(res -> {
+					res.setPair(currPair);
+					return this.checkBfTimestamp(res);
+				});
+	}
+
+	private Mono<QuoteIb> requestItbit(String currPair) {
+		return this.exchangeClientRegistry.getWebClient(Exchange.ITBIT).get()
+				.uri(String.format("%s/markets/%s/ticker", URLPA, currPair))
+				.accept(MediaType.APPLICATION_JSON).exchangeToMono(response -> response.bodyToMono(PaxosQuote.class))
+				.map(this::convert);
+	}
+
+	private Mono<QuoteCb> requestCoinbase() {
+		return this.exchangeClientRegistry.getWebClient(Exchange.COINBASE).get()
+				.uri(URLCB + "/exchange-rates?currency=BTC").accept(MediaType.APPLICATION_JSON)
+				.exchangeToMono(response -> response.bodyToMono(WrapperCb.class)).map(resp -> resp.getData())
+				.map(resp2 -> resp2.getRates());
+	}
+
+	QuoteIb convert(PaxosQuote paxosQuote) {
+		final String currPair = "XBTUSD";
+		QuoteIb quoteIb = new QuoteIb(currPair, new BigDecimal(paxosQuote.getBestBid().getPrice()),
+				new BigDecimal(paxosQuote.getBestBid().getAmount()), new BigDecimal(paxosQuote.getBestAsk().getPrice()),
+				new BigDecimal(paxosQuote.getBestAsk().getAmount()),
+				new BigDecimal(paxosQuote.getLastExecution().getPrice()),
+				new BigDecimal(paxosQuote.getLastExecution().getAmount()),
+				new BigDecimal(paxosQuote.getLastDay().getVolume()), new BigDecimal(paxosQuote.getToday().getVolume()),
+				new BigDecimal(paxosQuote.getLastDay().getHigh()), new BigDecimal(paxosQuote.getLastDay().getLow()),
+				new BigDecimal(paxosQuote.getToday().getOpen()), new BigDecimal(paxosQuote.getToday().getHigh()),
+				new BigDecimal(paxosQuote.getToday().getLow()),
+				new BigDecimal(paxosQuote.getToday().getVolumeWeightedAveragePrice()),
+				new BigDecimal(paxosQuote.getLastDay().getVolumeWeightedAveragePrice()), paxosQuote.getSnapshotAt());
+		return quoteIb;
+	}
+
+	private QuoteBf checkBfTimestamp(QuoteBf res) {
+		QuoteBf result = res;
+		try {
+			BigDecimal timestamp = new BigDecimal(res.getTimestamp());
+			LOG.debug(timestamp.toString());
+		} catch (Exception e) {
+			LOG.warn(String.format("Failed to parse the timestamp: %s", res.getTimestamp()), e);
+			result = new QuoteBf(res.getMid(), res.getBid(), res.getAsk(), res.getLast_price(), res.getLow(),
+					res.getHigh(), res.getVolume(), "0.0");
+			result.setPair(res.getPair());
+		}
+		return result;
+	}
+
+	private void logDuration(IngestionPair ingestionPair, LocalTime start) {
+		long durationInMs = Duration.between(start, LocalTime.now()).toMillis();
+		if (durationInMs > 1000) {
+			LOG.info("Source: {} Duration of {}: {}ms", ingestionPair.exchange().getValue(), ingestionPair.pair(),
+					durationInMs);
+		}
+	}
+
+	private void logRequestFailed(IngestionPair ingestionPair, Throwable ex) {
+		LOG.warn(String.format("%s data request for %s failed", ingestionPair.exchange().getValue(),
+				ingestionPair.pair()), ex);
+	}
+}
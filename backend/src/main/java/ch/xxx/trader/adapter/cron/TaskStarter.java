@@ -23,10 +23,15 @@ import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import ch.xxx.trader.domain.common.IngestionRegistry;
+import ch.xxx.trader.domain.model.dto.IngestionPair;
+import ch.xxx.trader.domain.model.entity.Quote;
 import ch.xxx.trader.usecase.services.BitfinexService;
 import ch.xxx.trader.usecase.services.BitstampService;
 import ch.xxx.trader.usecase.services.CoinbaseService;
 import ch.xxx.trader.usecase.services.ItbitService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 public class TaskStarter {
@@ -55,10 +60,26 @@ public class TaskStarter {
 			this.bitfinexService.createBfAvg().block();
 			this.itbitService.createIbAvg().block();
 			this.coinbaseService.createCbAvg().block();
-			BitstampService.singleInstanceLock = false;
-			BitfinexService.singleInstanceLock = false;
-			ItbitService.singleInstanceLock = false;
-			CoinbaseService.singleInstanceLock = false;
 		}
 	}
+
+	@Async
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUpCurrentQuotes() {
+		Long count = Flux.fromIterable(IngestionRegistry.PAIRS)
+				.flatMap(myPair -> this.currentQuote(myPair).onErrorResume(ex -> {
+					log.warn(String.format("Warm up of the current quote %s failed.", myPair), ex);
+					return Mono.empty();
+				}), 4).count().block();
+		log.info(String.format("Current quotes warmed up: %d", count));
+	}
+
+	private Mono<? extends Quote> currentQuote(IngestionPair ingestionPair) {
+		return switch (ingestionPair.exchange()) {
+		case BITSTAMP -> this.bitstampService.currentQuoteBtc(ingestionPair.pair());
+		case BITFINEX -> this.bitfinexService.currentQuote(ingestionPair.pair());
+		case ITBIT -> this.itbitService.currentQuote(ingestionPair.pair().toLowerCase());
+		case COINBASE -> this.coinbaseService.currentQuoteBc();
+		};
+	}
 }
@@ -16,14 +16,23 @@
 package ch.xxx.trader.adapter.repository;
 
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import jakarta.validation.Valid;
 
 import org.bson.Document;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
 import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.mongodb.client.result.DeleteResult;
@@ -66,6 +75,17 @@ public class ClientMongoRepository implements MyMongoRepository {
 		return this.operations.find(query, entityClass, collectionName);
 	}
 
+	@Override
+	public <T> Flux<T> findDistinct(Query query, String field, Class<?> entityClass, Class<T> resultClass) {
+		return this.operations.findDistinct(query, field, entityClass, resultClass);
+	}
+
+	@Override
+	public <S, T> Flux<T> find(Query query, Class<S> entityClass, Class<T> resultClass, String collectionName) {
+		// the projection of the fields is derived from the properties of the resultClass
+		return this.operations.query(entityClass).inCollection(collectionName).as(resultClass).matching(query).all();
+	}
+
 	@Override
 	public <T> Flux<T> insertAll(@Valid Mono<? extends Collection<? extends T>> batchToSave, String collectionName) {
 		return this.operations.insertAll(batchToSave, collectionName);
@@ -78,6 +98,25 @@ public class ClientMongoRepository implements MyMongoRepository {
 		return this.operations.indexOps(collectionName).ensureIndex(myIndex);
 	}
 
+	@Override
+	public Mono<String> ensureUniqueIndex(String collectionName, String... propertyNames) {
+		Index myIndex = new Index().unique();
+		Stream.of(propertyNames).forEach(myPropertyName -> myIndex.on(myPropertyName, Direction.ASC));
+		myIndex.named(collectionName + "-" + String.join("-", propertyNames) + "-unique");
+		return this.operations.indexOps(collectionName).ensureIndex(myIndex);
+	}
+
+	@Override
+	public Mono<Void> aggregateToCollection(Aggregation aggregation, String collectionName) {
+		// toCollection() runs the $merge/$out pipeline without reading the target collection back
+		return this.operations.getCollection(collectionName)
+				.flatMap(myCollection -> Mono.from(myCollection
+						.aggregate(aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT))
+						.allowDiskUse(aggregation.getOptions().isAllowDiskUse())
+						.maxTime(aggregation.getOptions().getMaxTime().toMillis(), TimeUnit.MILLISECONDS)
+						.toCollection()));
+	}
+
 	@Override
 	public Mono<Boolean> collectionExists(String collectionName) {
 		return this.operations.collectionExists(collectionName);
@@ -93,8 +132,42 @@ public class ClientMongoRepository implements MyMongoRepository {
 		return this.operations.insert(quote);
 	}
 
+	@Override
+	public <T> Mono<T> upsert(Query query, @Valid T replacement, String collectionName) {
+		return this.operations.findAndReplace(query, replacement,
+				FindAndReplaceOptions.options().upsert().returnNew(), collectionName);
+	}
+
+	@Override
+	public <T> Mono<Void> upsertAll(Collection<? extends T> replacements, Function<? super T, Query> keyQuery,
+			String collectionName) {
+		if (replacements.isEmpty()) {
+			return Mono.empty();
+		}
+		final ReactiveBulkOperations bulkOps = this.operations.bulkOps(BulkMode.UNORDERED, collectionName);
+		replacements.forEach(myReplacement -> bulkOps.replaceOne(keyQuery.apply(myReplacement), myReplacement,
+				FindAndReplaceOptions.options().upsert()));
+		return bulkOps.execute().then();
+	}
+
+	@Override
+	public Mono<Void> upsertUpdate(Query query, Update update, String collectionName) {
+		return this.operations.upsert(query, update, collectionName).then();
+	}
+
+	@Override
+	public <T> Mono<T> findAndModify(Query query, Update update, boolean upsert, Class<T> entityClass) {
+		return this.operations.findAndModify(query, update,
+				FindAndModifyOptions.options().upsert(upsert).returnNew(true), entityClass);
+	}
+
 	@Override
 	public <T> Mono<DeleteResult> remove(Mono<T> quote) {
 		return this.operations.remove(quote);
 	}
+
+	@Override
+	public String getCollectionName(Class<?> entityClass) {
+		return this.operations.getCollectionName(entityClass);
+	}
 }
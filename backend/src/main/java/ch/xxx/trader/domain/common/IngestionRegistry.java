@@ -0,0 +1,66 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.domain.common;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Set;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.IngestionPair;
+
+public class IngestionRegistry {
+	public static final Duration TICK = Duration.ofMinutes(1L);
+
+	public static final List<IngestionPair> PAIRS = List.of(
+			new IngestionPair(Exchange.BITSTAMP, "btceur", TICK, Duration.ofSeconds(0L)),
+			new IngestionPair(Exchange.BITSTAMP, "etheur", TICK, Duration.ofSeconds(3L)),
+			new IngestionPair(Exchange.BITSTAMP, "ltceur", TICK, Duration.ofSeconds(6L)),
+			new IngestionPair(Exchange.BITSTAMP, "xrpeur", TICK, Duration.ofSeconds(9L)),
+			new IngestionPair(Exchange.COINBASE, "ALLUSD", TICK, Duration.ofSeconds(12L)),
+			new IngestionPair(Exchange.ITBIT, "BTCUSD", TICK, Duration.ofSeconds(18L)),
+			new IngestionPair(Exchange.BITSTAMP, "btcusd", TICK, Duration.ofSeconds(21L)),
+			new IngestionPair(Exchange.BITSTAMP, "ethusd", TICK, Duration.ofSeconds(24L)),
+			new IngestionPair(Exchange.BITSTAMP, "ltcusd", TICK, Duration.ofSeconds(27L)),
+			new IngestionPair(Exchange.BITSTAMP, "xrpusd", TICK, Duration.ofSeconds(30L)),
+			new IngestionPair(Exchange.BITFINEX, "btcusd", TICK, Duration.ofSeconds(33L)),
+			new IngestionPair(Exchange.BITFINEX, "ethusd", TICK, Duration.ofSeconds(36L)),
+			new IngestionPair(Exchange.BITFINEX, "ltcusd", TICK, Duration.ofSeconds(39L)),
+			new IngestionPair(Exchange.BITFINEX, "xrpusd", TICK, Duration.ofSeconds(42L)));
+
+	public static final Set<Exchange> STREAMING_EXCHANGES = Set.of(Exchange.BITSTAMP, Exchange.BITFINEX);
+
+	public static List<IngestionPair> pollingPairs(boolean streamingEnabled) {
+		return PAIRS.stream()
+				.filter(myPair -> !streamingEnabled || !STREAMING_EXCHANGES.contains(myPair.exchange())).toList();
+	}
+
+	public static List<String> pairs(Exchange exchange) {
+		return PAIRS.stream().filter(myPair -> exchange.equals(myPair.exchange())).map(IngestionPair::pair).toList();
+	}
+
+	public static Duration offsetSpan(Exchange exchange) {
+		LongSummaryStatistics offsets = PAIRS.stream().filter(myPair -> exchange.equals(myPair.exchange()))
+				.mapToLong(myPair -> myPair.offset().toMillis()).summaryStatistics();
+		return Duration.ofMillis(offsets.getCount() == 0L ? 0L : offsets.getMax() - offsets.getMin());
+	}
+
+	public static List<IngestionPair> duePairs(List<IngestionPair> pairs, long tickIndex) {
+		return pairs.stream().filter(myPair -> tickIndex
+				% Math.max(1L, myPair.interval().toSeconds() / TICK.toSeconds()) == 0L).toList();
+	}
+}
@@ -15,11 +15,9 @@
  */
 package ch.xxx.trader.domain.common;
 
-import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Collections;
-import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Map;
 import java.util.Optional;
@@ -28,6 +26,9 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 
@@ -138,11 +139,15 @@ public class MongoUtils {
 		return buildQuery(pair, false, Optional.empty());
 	}
 
-	public static final boolean filterEvenMinutes(Date date) {
-		return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()).getMinute() % 2 == 0;
-	}
-
-	public static final boolean filter10Minutes(Date date) {
-		return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()).getMinute() % 10 == 0;
+	/**
+	 * Samples the quotes every minutes minutes in MongoDb, only the quotes with
+	 * minute % minutes == 0 in the time zone of the server are returned.
+	 */
+	public static final Query sampleMinutes(Query query, int minutes) {
+		query.addCriteria(Criteria.expr(ComparisonOperators.Eq
+				.valueOf(ArithmeticOperators.Mod.valueOf(DateOperators.Minute.minuteOf("createdAt")
+						.withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId()))).mod(minutes))
+				.equalToValue(0)));
+		return query;
 	}
 }
@@ -1,4 +1,4 @@
-/*
+/**
  *    Copyright 2016 Sven Loesekann
 
    Licensed under the Apache License, Version 2.0 (the "License");
@@ -13,7 +13,18 @@
    See the License for the specific language governing permissions and
    limitations under the License.
  */
-export interface OrderbookIb {
-  bids: string[][];
-  asks: string[][];
+package ch.xxx.trader.domain.model.dto;
+
+public enum CandleResolution {
+	M1("1m"), M5("5m"), H1("1h"), D1("1d");
+
+	private final String value;
+
+	private CandleResolution(String value) {
+		this.value = value;
+	}
+
+	public String getValue() {
+		return this.value;
+	}
 }
@@ -0,0 +1,27 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.domain.model.dto;
+
+import java.util.Date;
+
+/**
+ * Exchange independent orderbook. The levels are stored in primitive arrays
+ * with the best price first, the price and amount arrays of a side have the
+ * same length.
+ */
+public record OrderbookDto(Date timestamp, double[] bidPrices, double[] bidAmounts, double[] askPrices,
+		double[] askAmounts) {
+}
@@ -0,0 +1,86 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.domain.model.entity;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The backfill of a collection and pair is complete until completedUntil.
+ */
+@Document
+public class BackfillCheckpoint {
+	@Id
+	private String id;
+	@Indexed
+	private String collection;
+	private String pair;
+	private Date completedUntil;
+	private Date updatedAt = new Date();
+
+	public BackfillCheckpoint() {
+	}
+
+	public BackfillCheckpoint(String collection, String pair, Date completedUntil) {
+		this.id = collection + ":" + pair;
+		this.collection = collection;
+		this.pair = pair;
+		this.completedUntil = completedUntil;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getCollection() {
+		return collection;
+	}
+
+	public void setCollection(String collection) {
+		this.collection = collection;
+	}
+
+	public String getPair() {
+		return pair;
+	}
+
+	public void setPair(String pair) {
+		this.pair = pair;
+	}
+
+	public Date getCompletedUntil() {
+		return completedUntil;
+	}
+
+	public void setCompletedUntil(Date completedUntil) {
+		this.completedUntil = completedUntil;
+	}
+
+	public Date getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(Date updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+}
@@ -16,9 +16,12 @@
 package ch.xxx.trader.domain.model.entity;
 
 import java.util.Collection;
+import java.util.function.Function;
 
 import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.reactivestreams.client.MongoCollection;
@@ -36,10 +39,24 @@ public interface MyMongoRepository {
 	
 	<T> Flux<T> find(Query query, Class<T> entityClass, String collectionName);
 	
+	// reads only the fields of the resultClass from the documents of the entityClass
+	<S, T> Flux<T> find(Query query, Class<S> entityClass, Class<T> resultClass, String collectionName);
+	
+	<T> Flux<T> findDistinct(Query query, String field, Class<?> entityClass, Class<T> resultClass);
+	
 	<T> Flux<T> insertAll(Mono<? extends Collection<? extends T>> batchToSave, String collectionName);
 	
 	<T> Mono<T> insert(Mono<T> quote);
 	
+	<T> Mono<T> upsert(Query query, T replacement, String collectionName);
+	
+	<T> Mono<Void> upsertAll(Collection<? extends T> replacements, Function<? super T, Query> keyQuery,
+			String collectionName);
+	
+	Mono<Void> upsertUpdate(Query query, Update update, String collectionName);
+	
+	<T> Mono<T> findAndModify(Query query, Update update, boolean upsert, Class<T> entityClass);
+	
 	Mono<Boolean> collectionExists(String collectionName);
 	
 	Mono<MongoCollection<Document>> createCollection(String collectionName);
@@ -49,4 +66,10 @@ public interface MyMongoRepository {
 	<T> Mono<DeleteResult> remove(Mono<T> quote);
 	
 	Mono<String> ensureIndex(String collectionName, String propertyName);
+	
+	Mono<String> ensureUniqueIndex(String collectionName, String... propertyNames);
+	
+	Mono<Void> aggregateToCollection(Aggregation aggregation, String collectionName);
+	
+	String getCollectionName(Class<?> entityClass);
 }
@@ -0,0 +1,103 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.domain.model.entity;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Date;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Coinbase quote that stores only the non zero rates. The symbolIds are sorted
+ * ascending and reference the QuoteCbSymbol dictionary, the rates are stored
+ * as Decimal128 at the same positions.
+ */
+@Document
+public class QuoteCbCompact implements Quote {
+	@Id
+	private ObjectId _id;
+	@NotNull
+	@Indexed(name = "QuoteCbCompact-createdAt")
+	private Date createdAt = new Date();
+	@Field("s")
+	private int[] symbolIds = new int[0];
+	@Field("r")
+	private Decimal128[] rates = new Decimal128[0];
+
+	public QuoteCbCompact() {
+	}
+
+	public QuoteCbCompact(Date createdAt, int[] symbolIds, BigDecimal[] rates) {
+		this.createdAt = createdAt;
+		this.symbolIds = symbolIds;
+		this.rates = Arrays.stream(rates).map(myRate -> new Decimal128(myRate.round(MathContext.DECIMAL128)))
+				.toArray(Decimal128[]::new);
+	}
+
+	public BigDecimal getRate(int symbolId) {
+		int position = Arrays.binarySearch(this.symbolIds, symbolId);
+		return position < 0 ? BigDecimal.ZERO : this.rates[position].bigDecimalValue();
+	}
+
+	public BigDecimal getRateAt(int position) {
+		return this.rates[position].bigDecimalValue();
+	}
+
+	public int size() {
+		return this.symbolIds.length;
+	}
+
+	public ObjectId get_id() {
+		return _id;
+	}
+
+	public void set_id(ObjectId _id) {
+		this._id = _id;
+	}
+
+	public Date getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Date createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public int[] getSymbolIds() {
+		return symbolIds;
+	}
+
+	public void setSymbolIds(int[] symbolIds) {
+		this.symbolIds = symbolIds;
+	}
+
+	public Decimal128[] getRates() {
+		return rates;
+	}
+
+	public void setRates(Decimal128[] rates) {
+		this.rates = rates;
+	}
+}
@@ -1,4 +1,4 @@
-/*
+/**
  *    Copyright 2016 Sven Loesekann
 
    Licensed under the Apache License, Version 2.0 (the "License");
@@ -13,13 +13,12 @@
    See the License for the specific language governing permissions and
    limitations under the License.
  */
-export interface OrderbookBf {
-  bids: OrderBf[];
-  asks: OrderBf[];
-}
+package ch.xxx.trader.domain.services;
+
+import org.springframework.web.reactive.function.client.WebClient;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
 
-export interface OrderBf {
-  price: string;
-  amount: string;
-  timestamp: Date;
+public interface MyExchangeClientRegistry {
+	WebClient getWebClient(Exchange exchange);
 }
@@ -15,10 +15,11 @@
  */
 package ch.xxx.trader.domain.services;
 
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
 import reactor.core.publisher.Mono;
 
 public interface MyOrderBookClient {
-	Mono<String> getOrderbookBitfinex(String currpair);
-	Mono<String> getOrderbookBitstamp(String currpair);
-	Mono<String> getOrderbookItbit(String currpair);
+	Mono<OrderbookDto> getOrderbookBitfinex(String currpair);
+	Mono<OrderbookDto> getOrderbookBitstamp(String currpair);
+	Mono<OrderbookDto> getOrderbookItbit(String currpair);
 }
@@ -0,0 +1,133 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a time series sorted by
+ * createdAt. The time frame from the first quote until now is split into
+ * points - 2 time buckets, the first and the last quote are kept and of each
+ * bucket the quote that spans the largest triangle with the previous selection
+ * and the average of the next bucket is selected. Only the current and the next
+ * bucket are held in memory.
+ */
+public class Downsampler {
+
+	public static <T> Function<Flux<T>, Flux<T>> lttb(int points, Function<T, Date> time,
+			Function<T, BigDecimal> value) {
+		return flux -> points < 3 ? flux : Flux.defer(() -> {
+			final Lttb<T> lttb = new Lttb<T>(points - 2, time, value, System.currentTimeMillis());
+			return flux.concatMapIterable(lttb::add).concatWith(Flux.defer(() -> Flux.fromIterable(lttb.finish())));
+		});
+	}
+
+	private static class Lttb<T> {
+		private final int buckets;
+		private final Function<T, Date> time;
+		private final Function<T, BigDecimal> value;
+		private final long end;
+		private long begin;
+		private double width;
+		private T selected;
+		private List<T> current = new ArrayList<>();
+		private List<T> next = new ArrayList<>();
+		private long nextBucket = -1L;
+
+		Lttb(int buckets, Function<T, Date> time, Function<T, BigDecimal> value, long end) {
+			this.buckets = buckets;
+			this.time = time;
+			this.value = value;
+			this.end = end;
+		}
+
+		List<T> add(T quote) {
+			if (this.selected == null) {
+				this.selected = quote;
+				this.begin = this.time.apply(quote).getTime();
+				this.width = Math.max(1.0, (this.end - this.begin) / (double) this.buckets);
+				return List.of(quote);
+			}
+			long bucket = Math.min(this.buckets - 1,
+					Math.max(0L, (long) ((this.time.apply(quote).getTime() - this.begin) / this.width)));
+			if (this.next.isEmpty() || bucket == this.nextBucket) {
+				this.next.add(quote);
+				this.nextBucket = bucket;
+				return List.of();
+			}
+			List<T> result = this.current.isEmpty() ? List.of()
+					: List.of(this.select(this.current, this.average(this.next)));
+			this.current = this.next;
+			this.next = new ArrayList<>();
+			this.next.add(quote);
+			this.nextBucket = bucket;
+			return result;
+		}
+
+		List<T> finish() {
+			if (this.next.isEmpty()) {
+				return List.of();
+			}
+			T last = this.next.removeLast();
+			List<T> result = new ArrayList<>();
+			if (!this.current.isEmpty()) {
+				result.add(this.select(this.current, this.next.isEmpty() ? this.point(last) : this.average(this.next)));
+			}
+			if (!this.next.isEmpty()) {
+				result.add(this.select(this.next, this.point(last)));
+			}
+			result.add(last);
+			return result;
+		}
+
+		private T select(List<T> bucket, double[] average) {
+			double[] previous = this.point(this.selected);
+			double maxArea = -1.0;
+			for (T quote : bucket) {
+				double[] point = this.point(quote);
+				double area = Math.abs((previous[0] - average[0]) * (point[1] - previous[1])
+						- (previous[0] - point[0]) * (average[1] - previous[1]));
+				if (area > maxArea) {
+					maxArea = area;
+					this.selected = quote;
+				}
+			}
+			return this.selected;
+		}
+
+		private double[] average(List<T> bucket) {
+			double[] result = new double[2];
+			for (T quote : bucket) {
+				double[] point = this.point(quote);
+				result[0] += point[0] / bucket.size();
+				result[1] += point[1] / bucket.size();
+			}
+			return result;
+		}
+
+		private double[] point(T quote) {
+			BigDecimal myValue = this.value.apply(quote);
+			return new double[] { this.time.apply(quote).getTime() - this.begin,
+					myValue == null ? 0.0 : myValue.doubleValue() };
+		}
+	}
+}
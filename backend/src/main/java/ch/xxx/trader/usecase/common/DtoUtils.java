@@ -23,6 +23,7 @@ import java.util.function.Function;
 
 public class DtoUtils {
 	public static final String CREATEDAT = "createdAt";
+	public static final String PAIR = "pair";
 	
 	public static JsonMapper produceJsonMapper() {
         return new JsonMapper();
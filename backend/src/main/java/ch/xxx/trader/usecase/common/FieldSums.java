@@ -0,0 +1,145 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Sums the values of the fields of a bucket and divides them once by the count
+ * with QuoteAggregator.SCALE digits.
+ * <ul>
+ * <li>decimal(): BigDecimal sums, exact. Allocates a BigDecimal per value.</li>
+ * <li>fixedPoint(scale): long sums of the values rounded to scale digits. The
+ * average is exact for values with at most scale digits and deviates at most
+ * 0.5 * 10^-scale otherwise. A value or sum that does not fit the long range
+ * switches the field to a BigDecimal sum.</li>
+ * <li>kahan(): compensated double sums, about 15 significant digits for values
+ * of any scale.</li>
+ * </ul>
+ * The long and double sums allocate nothing per value.
+ */
+public abstract class FieldSums {
+	// up to 2^50 the scaled double is rounded to the exact long
+	private static final double MAX_EXACT_UNITS = 0x1p50;
+
+	public abstract void add(int field, BigDecimal value);
+
+	public abstract BigDecimal average(int field, long count);
+
+	public static IntFunction<FieldSums> decimal() {
+		return DecimalSums::new;
+	}
+
+	public static IntFunction<FieldSums> fixedPoint(int scale) {
+		return myFields -> new FixedPointSums(myFields, scale);
+	}
+
+	public static IntFunction<FieldSums> kahan() {
+		return KahanSums::new;
+	}
+
+	private static BigDecimal divide(BigDecimal sum, long count) {
+		return sum.divide(BigDecimal.valueOf(count), QuoteAggregator.SCALE, RoundingMode.HALF_UP);
+	}
+
+	private static final class DecimalSums extends FieldSums {
+		private final BigDecimal[] sums;
+
+		DecimalSums(int fields) {
+			this.sums = new BigDecimal[fields];
+			Arrays.fill(this.sums, BigDecimal.ZERO);
+		}
+
+		@Override
+		public void add(int field, BigDecimal value) {
+			this.sums[field] = this.sums[field].add(value);
+		}
+
+		@Override
+		public BigDecimal average(int field, long count) {
+			return divide(this.sums[field], count);
+		}
+	}
+
+	private static final class FixedPointSums extends FieldSums {
+		private final long[] units;
+		private final int scale;
+		private final double factor;
+		private BigDecimal[] overflows;
+
+		FixedPointSums(int fields, int scale) {
+			this.units = new long[fields];
+			this.scale = scale;
+			this.factor = Math.pow(10, scale);
+		}
+
+		@Override
+		public void add(int field, BigDecimal value) {
+			if (this.overflows == null || this.overflows[field] == null) {
+				final double scaled = value.doubleValue() * this.factor;
+				if (Math.abs(scaled) < MAX_EXACT_UNITS) {
+					final long valueUnits = Math.round(scaled);
+					final long sum = this.units[field] + valueUnits;
+					if (((this.units[field] ^ sum) & (valueUnits ^ sum)) >= 0) {
+						this.units[field] = sum;
+						return;
+					}
+				}
+				if (this.overflows == null) {
+					this.overflows = new BigDecimal[this.units.length];
+				}
+				this.overflows[field] = BigDecimal.valueOf(this.units[field], this.scale);
+			}
+			this.overflows[field] = this.overflows[field].add(value);
+		}
+
+		@Override
+		public BigDecimal average(int field, long count) {
+			return divide(this.overflows == null || this.overflows[field] == null
+					? BigDecimal.valueOf(this.units[field], this.scale)
+					: this.overflows[field], count);
+		}
+	}
+
+	private static final class KahanSums extends FieldSums {
+		private final double[] sums;
+		private final double[] compensations;
+
+		KahanSums(int fields) {
+			this.sums = new double[fields];
+			this.compensations = new double[fields];
+		}
+
+		@Override
+		public void add(int field, BigDecimal value) {
+			// Neumaier variant, also exact if the value is larger than the sum
+			final double doubleValue = value.doubleValue();
+			final double sum = this.sums[field] + doubleValue;
+			this.compensations[field] += Math.abs(this.sums[field]) >= Math.abs(doubleValue)
+					? (this.sums[field] - sum) + doubleValue
+					: (doubleValue - sum) + this.sums[field];
+			this.sums[field] = sum;
+		}
+
+		@Override
+		public BigDecimal average(int field, long count) {
+			return divide(BigDecimal.valueOf(this.sums[field] + this.compensations[field]), count);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.util.Arrays;
+
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+
+/**
+ * Reduces an orderbook to the requested depth. With a tick the levels are
+ * grouped into price buckets first, bids are rounded down and asks are rounded
+ * up to a multiple of the tick.
+ */
+public class OrderbookDepth {
+
+	public static OrderbookDto limit(OrderbookDto orderbook, int depth, double tick) {
+		int myDepth = Math.max(1, depth);
+		double[][] bids = limitSide(orderbook.bidPrices(), orderbook.bidAmounts(), myDepth, tick, false);
+		double[][] asks = limitSide(orderbook.askPrices(), orderbook.askAmounts(), myDepth, tick, true);
+		return new OrderbookDto(orderbook.timestamp(), bids[0], bids[1], asks[0], asks[1]);
+	}
+
+	private static double[][] limitSide(double[] prices, double[] amounts, int depth, double tick, boolean roundUp) {
+		if (tick <= 0.0) {
+			int size = Math.min(depth, prices.length);
+			return new double[][] { Arrays.copyOf(prices, size), Arrays.copyOf(amounts, size) };
+		}
+		double[] bucketPrices = new double[Math.min(depth, prices.length)];
+		double[] bucketAmounts = new double[bucketPrices.length];
+		int size = 0;
+		long lastBucket = Long.MIN_VALUE;
+		for (int i = 0; i < prices.length; i++) {
+			long bucket = (long) (roundUp ? Math.ceil(prices[i] / tick) : Math.floor(prices[i] / tick));
+			if (size > 0 && bucket == lastBucket) {
+				bucketAmounts[size - 1] += amounts[i];
+			} else if (size < bucketPrices.length) {
+				bucketPrices[size] = bucket * tick;
+				bucketAmounts[size] = amounts[i];
+				lastBucket = bucket;
+				size++;
+			} else {
+				break;
+			}
+		}
+		return new double[][] { Arrays.copyOf(bucketPrices, size), Arrays.copyOf(bucketAmounts, size) };
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+/**
+ * Rounds the BigDecimal fields of a quote to 30 digits. The field handles are
+ * created once per quote class and cached, QuoteCb uses the generated
+ * QuoteCbFields table.
+ */
+public class PrecisionLimiter {
+	private static final MathContext MATH_CONTEXT = new MathContext(30, RoundingMode.HALF_UP);
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final ClassValue<PrecisionLimiter> LIMITERS = new ClassValue<>() {
+		@Override
+		protected PrecisionLimiter computeValue(Class<?> type) {
+			return new PrecisionLimiter(type);
+		}
+	};
+	private final MethodHandle[] getters;
+	private final MethodHandle[] setters;
+
+	private PrecisionLimiter(Class<?> type) {
+		List<MethodHandle> myGetters = new ArrayList<>();
+		List<MethodHandle> mySetters = new ArrayList<>();
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		for (Field field : type.getDeclaredFields()) {
+			if (BigDecimal.class.equals(field.getType()) && !Modifier.isStatic(field.getModifiers())) {
+				field.setAccessible(true);
+				try {
+					myGetters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+					mySetters.add(lookup.unreflectSetter(field).asType(SETTER_TYPE));
+				} catch (IllegalAccessException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		this.getters = myGetters.toArray(MethodHandle[]::new);
+		this.setters = mySetters.toArray(MethodHandle[]::new);
+	}
+
+	public static <T> T limit(T quote) {
+		if (quote instanceof QuoteCb myQuote) {
+			limitQuoteCb(myQuote);
+		} else {
+			LIMITERS.get(quote.getClass()).apply(quote);
+		}
+		return quote;
+	}
+
+	private static void limitQuoteCb(QuoteCb quote) {
+		for (int i = 0; i < QuoteCbFields.NAMES.size(); i++) {
+			BigDecimal value = QuoteCbFields.get(quote, i);
+			if (value != null && value.precision() > MATH_CONTEXT.getPrecision()) {
+				QuoteCbFields.set(quote, i, value.round(MATH_CONTEXT));
+			}
+		}
+	}
+
+	private void apply(Object quote) {
+		try {
+			for (int i = 0; i < this.getters.length; i++) {
+				BigDecimal value = (BigDecimal) (Object) this.getters[i].invokeExact(quote);
+				if (value != null && value.precision() > MATH_CONTEXT.getPrecision()) {
+					this.setters[i].invokeExact(quote, (Object) value.round(MATH_CONTEXT));
+				}
+			}
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import ch.xxx.trader.domain.model.entity.Quote;
+
+/**
+ * Aggregates the quotes of a day in one pass into hour and day averages per
+ * pair. A quote is added to the buckets whose begin is before and whose end is
+ * after its createdAt, the averages of buckets with less than MIN_QUOTES quotes
+ * are not created. The values are summed with the FieldSums of the aggregator
+ * (decimal() by default) and divided once by the count with SCALE digits.
+ */
+public class QuoteAggregator<T extends Quote> {
+	public static final int MIN_QUOTES = 3;
+	public static final int SCALE = 10;
+	// the exchanges send prices and volumes with at most 8 digits
+	public static final int EXCHANGE_SCALE = 8;
+	private final int fieldCount;
+	private final FieldReader<T> fieldReader;
+	private final Function<T, String> pairOf;
+	private final QuoteFactory<T> quoteFactory;
+	private final IntFunction<FieldSums> fieldSums;
+
+	/**
+	 * Reads the value of a field by index, lets quotes with many fields be summed
+	 * in one loop without a function per field.
+	 */
+	@FunctionalInterface
+	public interface FieldReader<T> {
+		BigDecimal get(T quote, int index);
+	}
+
+	@FunctionalInterface
+	public interface QuoteFactory<T> {
+		T create(String pair, Date createdAt, BigDecimal[] values);
+	}
+
+	public record Result<T>(List<T> hours, List<T> days) {
+	}
+
+	public QuoteAggregator(List<Function<T, BigDecimal>> fields, Function<T, String> pairOf,
+			QuoteFactory<T> quoteFactory) {
+		this(fields, pairOf, quoteFactory, FieldSums.decimal());
+	}
+
+	public QuoteAggregator(List<Function<T, BigDecimal>> fields, Function<T, String> pairOf,
+			QuoteFactory<T> quoteFactory, IntFunction<FieldSums> fieldSums) {
+		this(fields.size(), indexed(List.copyOf(fields)), pairOf, quoteFactory, fieldSums);
+	}
+
+	public QuoteAggregator(int fieldCount, FieldReader<T> fieldReader, Function<T, String> pairOf,
+			QuoteFactory<T> quoteFactory, IntFunction<FieldSums> fieldSums) {
+		this.fieldCount = fieldCount;
+		this.fieldReader = fieldReader;
+		this.pairOf = pairOf;
+		this.quoteFactory = quoteFactory;
+		this.fieldSums = fieldSums;
+	}
+
+	public Result<T> aggregate(Collection<T> quotes, List<Calendar> hours, Calendar begin, Calendar end) {
+		final long[] hourBounds = hours.stream().mapToLong(Calendar::getTimeInMillis).toArray();
+		final long dayBegin = begin.getTimeInMillis();
+		final long dayEnd = end.getTimeInMillis();
+		final int dayRow = Math.max(0, hourBounds.length - 1);
+		final Map<String, Accumulator> accumulators = new LinkedHashMap<>();
+		for (T quote : quotes) {
+			final long createdAt = quote.getCreatedAt().getTime();
+			final Accumulator accumulator = accumulators.computeIfAbsent(this.pairOf.apply(quote),
+					myPair -> new Accumulator(dayRow + 1));
+			final int hour = hourIndex(hourBounds, createdAt);
+			if (hour >= 0) {
+				accumulator.add(hour, quote);
+			}
+			if (dayBegin < createdAt && createdAt < dayEnd) {
+				accumulator.add(dayRow, quote);
+			}
+		}
+		final List<T> hourQuotes = new ArrayList<>();
+		final List<T> dayQuotes = new ArrayList<>();
+		accumulators.forEach((myPair, myAccumulator) -> {
+			for (int i = 0; i < dayRow; i++) {
+				final Date hourBegin = new Date(hourBounds[i]);
+				myAccumulator.average(i).ifPresent(
+						myValues -> hourQuotes.add(this.quoteFactory.create(myPair, hourBegin, myValues)));
+			}
+			myAccumulator.average(dayRow).ifPresent(
+					myValues -> dayQuotes.add(this.quoteFactory.create(myPair, begin.getTime(), myValues)));
+		});
+		return new Result<>(hourQuotes, dayQuotes);
+	}
+
+	private static <T> FieldReader<T> indexed(List<Function<T, BigDecimal>> fields) {
+		return (myQuote, myIndex) -> fields.get(myIndex).apply(myQuote);
+	}
+
+	private static int hourIndex(long[] hourBounds, long createdAt) {
+		final int index = Arrays.binarySearch(hourBounds, createdAt);
+		final int hour = index >= 0 ? -1 : -index - 2;
+		return hour >= 0 && hour < hourBounds.length - 1 ? hour : -1;
+	}
+
+	public String pair(T quote) {
+		return this.pairOf.apply(quote);
+	}
+
+	public RunningAverage runningAverage() {
+		return new RunningAverage();
+	}
+
+	/**
+	 * Creates the average quote of the running average if it has at least
+	 * MIN_QUOTES quotes.
+	 */
+	public Optional<T> average(RunningAverage runningAverage, String pair, Date createdAt) {
+		return runningAverage.average().map(myValues -> this.quoteFactory.create(pair, createdAt, myValues));
+	}
+
+	/**
+	 * Sums and count of the quotes of one bucket.
+	 */
+	public class RunningAverage {
+		private FieldSums sums;
+		private long count;
+
+		public void add(T quote) {
+			final int myFieldCount = QuoteAggregator.this.fieldCount;
+			final FieldReader<T> myFieldReader = QuoteAggregator.this.fieldReader;
+			if (this.sums == null) {
+				this.sums = QuoteAggregator.this.fieldSums.apply(myFieldCount);
+			}
+			for (int i = 0; i < myFieldCount; i++) {
+				final BigDecimal value = myFieldReader.get(quote, i);
+				if (value != null) {
+					this.sums.add(i, value);
+				}
+			}
+			this.count++;
+		}
+
+		public long count() {
+			return this.count;
+		}
+
+		Optional<BigDecimal[]> average() {
+			if (this.count < MIN_QUOTES) {
+				return Optional.empty();
+			}
+			final BigDecimal[] averages = new BigDecimal[QuoteAggregator.this.fieldCount];
+			for (int i = 0; i < averages.length; i++) {
+				averages[i] = this.sums.average(i, this.count);
+			}
+			return Optional.of(averages);
+		}
+	}
+
+	private class Accumulator {
+		private final List<RunningAverage> rows;
+
+		Accumulator(int rows) {
+			this.rows = Stream.generate(RunningAverage::new).limit(rows).toList();
+		}
+
+		void add(int row, T quote) {
+			this.rows.get(row).add(quote);
+		}
+
+		Optional<BigDecimal[]> average(int row) {
+			return this.rows.get(row).average();
+		}
+	}
+}
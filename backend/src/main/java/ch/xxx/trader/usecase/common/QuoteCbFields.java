@@ -0,0 +1,834 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+/**
+ * Indexed access to the BigDecimal rate fields of QuoteCb. The index is the
+ * position of the field name in NAMES.
+ *
+ * Generated by QuoteCbFieldsGenerator, do not edit.
+ */
+public final class QuoteCbFields {
+	public static final List<String> NAMES = List.of(
+				"xcn", "metis", "boba", "mona", "media", "gusd", "ast", "dyp", "pond", "time", "dar", "c98", "bit",
+				"fis", "dext", "aleph", "fort", "ela", "drep", "muse", "index", "wampl", "math", "jup", "hopr", "aed",
+				"prq", "ata", "afn", "all", "amd", "ang", "aoa", "ars", "aud", "awg", "azn", "bam", "bbd", "bdt",
+				"bgn", "bhd", "bif", "bmd", "bnd", "bob", "brl", "bsd", "btc", "btn", "bwp", "byn", "byr", "bzd",
+				"cad", "cdf", "chf", "clf", "clp", "cny", "cop", "crc", "cuc", "cve", "czk", "djf", "dkk", "dop",
+				"dzd", "eek", "egp", "ern", "etb", "eth", "eur", "fjd", "fkp", "gbp", "gel", "ggp", "ghs", "gip",
+				"gmd", "gnf", "gtq", "gyd", "hkd", "hnl", "hrk", "htg", "huf", "idr", "ils", "imp", "inr", "iqd",
+				"isk", "jep", "jmd", "jod", "jpy", "kes", "kgs", "khr", "kmf", "krw", "kwd", "kyd", "kzt", "lak",
+				"lbp", "lkr", "lrd", "lsl", "ltc", "ltl", "lvl", "lyd", "mad", "mdl", "mga", "mkd", "mmk", "mnt",
+				"mop", "mro", "mtl", "mur", "mvr", "mwk", "mxn", "myr", "mzn", "nad", "ngn", "nio", "nok", "npr",
+				"nzd", "omr", "pab", "pen", "pgk", "php", "pkr", "pln", "pyg", "qar", "ron", "rsd", "rub", "rwf",
+				"sar", "sbd", "scr", "sek", "sgd", "shp", "sll", "sos", "srd", "ssp", "std", "svc", "szl", "thb",
+				"tjs", "tmt", "tnd", "top", "try1", "ttd", "twd", "tzs", "uah", "ugx", "usd", "uyu", "uzs", "vef",
+				"vnd", "vuv", "wst", "xaf", "xag", "xau", "xcd", "xdr", "xof", "xpd", "xpf", "xpt", "yer", "zar",
+				"zmk", "zmw", "zwl", "ves", "xba", "xts", "gbx", "cnh", "zwd", "bch", "bsv", "eth2", "etc", "zrx",
+				"usdc", "bat", "loom", "mana", "knc", "link", "mkr", "cvc", "omg", "gnt", "dai", "snt", "zec", "xrp",
+				"rep", "xlm", "eos", "xtz", "algo", "dash", "atom", "oxt", "comp", "enj", "repv2", "band", "nmr",
+				"cgld", "uma", "lrc", "yfi", "uni", "bal", "ren", "wbtc", "nu", "yfii", "fil", "aave", "bnt", "grt",
+				"snx", "storj", "sushi", "matic", "skl", "ada", "ankr", "crv", "icp", "nkn", "ogn", "inch1", "usdt",
+				"forth", "ctsi", "trb", "poly", "mir", "rlc", "dot", "sol", "doge", "mln", "gtc", "amp", "shib", "chz",
+				"keep", "lpt", "qnt", "bond", "rly", "clv", "farm", "mask", "fet", "pax", "ach", "asm", "pla", "rai",
+				"tribe", "orn", "iotx", "ust", "quick", "axs", "req", "wluna", "tru", "rad", "coti", "ddx", "suku",
+				"rgt", "xyo", "zen", "auction", "busd", "jasmy", "wcfg", "btrst", "agld", "avax", "fx", "trac", "lcx",
+				"arpa", "badger", "krl", "perp", "rari", "deso", "api3", "nct", "shping", "upi", "cro", "avt", "mdt",
+				"vgx", "alcx", "coval", "fox", "musd", "gala", "powr", "gyen", "alice", "inv", "lqty", "pro", "spell",
+				"ens", "dia", "blz", "ctx", "idex", "mco2", "pols", "super1", "unfi", "stx", "gods", "imx", "rbn",
+				"bico", "gfi", "glm", "mpl", "plu", "fida", "orca", "crpt", "qsp", "rndr", "syn", "aioz", "aergo",
+				"high", "rose", "ape", "mina", "gmt", "gst", "gal", "dnt", "flow", "sand", "op", "ksm");
+
+	private QuoteCbFields() {
+	}
+
+	public static BigDecimal get(QuoteCb quote, int index) {
+		return switch (index) {
+		case 0 -> quote.getXcn();
+		case 1 -> quote.getMetis();
+		case 2 -> quote.getBoba();
+		case 3 -> quote.getMona();
+		case 4 -> quote.getMedia();
+		case 5 -> quote.getGusd();
+		case 6 -> quote.getAst();
+		case 7 -> quote.getDyp();
+		case 8 -> quote.getPond();
+		case 9 -> quote.getTime();
+		case 10 -> quote.getDar();
+		case 11 -> quote.getC98();
+		case 12 -> quote.getBit();
+		case 13 -> quote.getFis();
+		case 14 -> quote.getDext();
+		case 15 -> quote.getAleph();
+		case 16 -> quote.getFort();
+		case 17 -> quote.getEla();
+		case 18 -> quote.getDrep();
+		case 19 -> quote.getMuse();
+		case 20 -> quote.getIndex();
+		case 21 -> quote.getWampl();
+		case 22 -> quote.getMath();
+		case 23 -> quote.getJup();
+		case 24 -> quote.getHopr();
+		case 25 -> quote.getAed();
+		case 26 -> quote.getPrq();
+		case 27 -> quote.getAta();
+		case 28 -> quote.getAfn();
+		case 29 -> quote.getAll();
+		case 30 -> quote.getAmd();
+		case 31 -> quote.getAng();
+		case 32 -> quote.getAoa();
+		case 33 -> quote.getArs();
+		case 34 -> quote.getAud();
+		case 35 -> quote.getAwg();
+		case 36 -> quote.getAzn();
+		case 37 -> quote.getBam();
+		case 38 -> quote.getBbd();
+		case 39 -> quote.getBdt();
+		case 40 -> quote.getBgn();
+		case 41 -> quote.getBhd();
+		case 42 -> quote.getBif();
+		case 43 -> quote.getBmd();
+		case 44 -> quote.getBnd();
+		case 45 -> quote.getBob();
+		case 46 -> quote.getBrl();
+		case 47 -> quote.getBsd();
+		case 48 -> quote.getBtc();
+		case 49 -> quote.getBtn();
+		case 50 -> quote.getBwp();
+		case 51 -> quote.getByn();
+		case 52 -> quote.getByr();
+		case 53 -> quote.getBzd();
+		case 54 -> quote.getCad();
+		case 55 -> quote.getCdf();
+		case 56 -> quote.getChf();
+		case 57 -> quote.getClf();
+		case 58 -> quote.getClp();
+		case 59 -> quote.getCny();
+		case 60 -> quote.getCop();
+		case 61 -> quote.getCrc();
+		case 62 -> quote.getCuc();
+		case 63 -> quote.getCve();
+		case 64 -> quote.getCzk();
+		case 65 -> quote.getDjf();
+		case 66 -> quote.getDkk();
+		case 67 -> quote.getDop();
+		case 68 -> quote.getDzd();
+		case 69 -> quote.getEek();
+		case 70 -> quote.getEgp();
+		case 71 -> quote.getErn();
+		case 72 -> quote.getEtb();
+		case 73 -> quote.getEth();
+		case 74 -> quote.getEur();
+		case 75 -> quote.getFjd();
+		case 76 -> quote.getFkp();
+		case 77 -> quote.getGbp();
+		case 78 -> quote.getGel();
+		case 79 -> quote.getGgp();
+		case 80 -> quote.getGhs();
+		case 81 -> quote.getGip();
+		case 82 -> quote.getGmd();
+		case 83 -> quote.getGnf();
+		case 84 -> quote.getGtq();
+		case 85 -> quote.getGyd();
+		case 86 -> quote.getHkd();
+		case 87 -> quote.getHnl();
+		case 88 -> quote.getHrk();
+		case 89 -> quote.getHtg();
+		case 90 -> quote.getHuf();
+		case 91 -> quote.getIdr();
+		case 92 -> quote.getIls();
+		case 93 -> quote.getImp();
+		case 94 -> quote.getInr();
+		case 95 -> quote.getIqd();
+		case 96 -> quote.getIsk();
+		case 97 -> quote.getJep();
+		case 98 -> quote.getJmd();
+		case 99 -> quote.getJod();
+		case 100 -> quote.getJpy();
+		case 101 -> quote.getKes();
+		case 102 -> quote.getKgs();
+		case 103 -> quote.getKhr();
+		case 104 -> quote.getKmf();
+		case 105 -> quote.getKrw();
+		case 106 -> quote.getKwd();
+		case 107 -> quote.getKyd();
+		case 108 -> quote.getKzt();
+		case 109 -> quote.getLak();
+		case 110 -> quote.getLbp();
+		case 111 -> quote.getLkr();
+		case 112 -> quote.getLrd();
+		case 113 -> quote.getLsl();
+		case 114 -> quote.getLtc();
+		case 115 -> quote.getLtl();
+		case 116 -> quote.getLvl();
+		case 117 -> quote.getLyd();
+		case 118 -> quote.getMad();
+		case 119 -> quote.getMdl();
+		case 120 -> quote.getMga();
+		case 121 -> quote.getMkd();
+		case 122 -> quote.getMmk();
+		case 123 -> quote.getMnt();
+		case 124 -> quote.getMop();
+		case 125 -> quote.getMro();
+		case 126 -> quote.getMtl();
+		case 127 -> quote.getMur();
+		case 128 -> quote.getMvr();
+		case 129 -> quote.getMwk();
+		case 130 -> quote.getMxn();
+		case 131 -> quote.getMyr();
+		case 132 -> quote.getMzn();
+		case 133 -> quote.getNad();
+		case 134 -> quote.getNgn();
+		case 135 -> quote.getNio();
+		case 136 -> quote.getNok();
+		case 137 -> quote.getNpr();
+		case 138 -> quote.getNzd();
+		case 139 -> quote.getOmr();
+		case 140 -> quote.getPab();
+		case 141 -> quote.getPen();
+		case 142 -> quote.getPgk();
+		case 143 -> quote.getPhp();
+		case 144 -> quote.getPkr();
+		case 145 -> quote.getPln();
+		case 146 -> quote.getPyg();
+		case 147 -> quote.getQar();
+		case 148 -> quote.getRon();
+		case 149 -> quote.getRsd();
+		case 150 -> quote.getRub();
+		case 151 -> quote.getRwf();
+		case 152 -> quote.getSar();
+		case 153 -> quote.getSbd();
+		case 154 -> quote.getScr();
+		case 155 -> quote.getSek();
+		case 156 -> quote.getSgd();
+		case 157 -> quote.getShp();
+		case 158 -> quote.getSll();
+		case 159 -> quote.getSos();
+		case 160 -> quote.getSrd();
+		case 161 -> quote.getSsp();
+		case 162 -> quote.getStd();
+		case 163 -> quote.getSvc();
+		case 164 -> quote.getSzl();
+		case 165 -> quote.getThb();
+		case 166 -> quote.getTjs();
+		case 167 -> quote.getTmt();
+		case 168 -> quote.getTnd();
+		case 169 -> quote.getTop();
+		case 170 -> quote.getTry1();
+		case 171 -> quote.getTtd();
+		case 172 -> quote.getTwd();
+		case 173 -> quote.getTzs();
+		case 174 -> quote.getUah();
+		case 175 -> quote.getUgx();
+		case 176 -> quote.getUsd();
+		case 177 -> quote.getUyu();
+		case 178 -> quote.getUzs();
+		case 179 -> quote.getVef();
+		case 180 -> quote.getVnd();
+		case 181 -> quote.getVuv();
+		case 182 -> quote.getWst();
+		case 183 -> quote.getXaf();
+		case 184 -> quote.getXag();
+		case 185 -> quote.getXau();
+		case 186 -> quote.getXcd();
+		case 187 -> quote.getXdr();
+		case 188 -> quote.getXof();
+		case 189 -> quote.getXpd();
+		case 190 -> quote.getXpf();
+		case 191 -> quote.getXpt();
+		case 192 -> quote.getYer();
+		case 193 -> quote.getZar();
+		case 194 -> quote.getZmk();
+		case 195 -> quote.getZmw();
+		case 196 -> quote.getZwl();
+		case 197 -> quote.getVes();
+		case 198 -> quote.getXba();
+		case 199 -> quote.getXts();
+		case 200 -> quote.getGbx();
+		case 201 -> quote.getCnh();
+		case 202 -> quote.getZwd();
+		case 203 -> quote.getBch();
+		case 204 -> quote.getBsv();
+		case 205 -> quote.getEth2();
+		case 206 -> quote.getEtc();
+		case 207 -> quote.getZrx();
+		case 208 -> quote.getUsdc();
+		case 209 -> quote.getBat();
+		case 210 -> quote.getLoom();
+		case 211 -> quote.getMana();
+		case 212 -> quote.getKnc();
+		case 213 -> quote.getLink();
+		case 214 -> quote.getMkr();
+		case 215 -> quote.getCvc();
+		case 216 -> quote.getOmg();
+		case 217 -> quote.getGnt();
+		case 218 -> quote.getDai();
+		case 219 -> quote.getSnt();
+		case 220 -> quote.getZec();
+		case 221 -> quote.getXrp();
+		case 222 -> quote.getRep();
+		case 223 -> quote.getXlm();
+		case 224 -> quote.getEos();
+		case 225 -> quote.getXtz();
+		case 226 -> quote.getAlgo();
+		case 227 -> quote.getDash();
+		case 228 -> quote.getAtom();
+		case 229 -> quote.getOxt();
+		case 230 -> quote.getComp();
+		case 231 -> quote.getEnj();
+		case 232 -> quote.getRepv2();
+		case 233 -> quote.getBand();
+		case 234 -> quote.getNmr();
+		case 235 -> quote.getCgld();
+		case 236 -> quote.getUma();
+		case 237 -> quote.getLrc();
+		case 238 -> quote.getYfi();
+		case 239 -> quote.getUni();
+		case 240 -> quote.getBal();
+		case 241 -> quote.getRen();
+		case 242 -> quote.getWbtc();
+		case 243 -> quote.getNu();
+		case 244 -> quote.getYfii();
+		case 245 -> quote.getFil();
+		case 246 -> quote.getAave();
+		case 247 -> quote.getBnt();
+		case 248 -> quote.getGrt();
+		case 249 -> quote.getSnx();
+		case 250 -> quote.getStorj();
+		case 251 -> quote.getSushi();
+		case 252 -> quote.getMatic();
+		case 253 -> quote.getSkl();
+		case 254 -> quote.getAda();
+		case 255 -> quote.getAnkr();
+		case 256 -> quote.getCrv();
+		case 257 -> quote.getIcp();
+		case 258 -> quote.getNkn();
+		case 259 -> quote.getOgn();
+		case 260 -> quote.get1inch();
+		case 261 -> quote.getUsdt();
+		case 262 -> quote.getForth();
+		case 263 -> quote.getCtsi();
+		case 264 -> quote.getTrb();
+		case 265 -> quote.getPoly();
+		case 266 -> quote.getMir();
+		case 267 -> quote.getRlc();
+		case 268 -> quote.getDot();
+		case 269 -> quote.getSol();
+		case 270 -> quote.getDoge();
+		case 271 -> quote.getMln();
+		case 272 -> quote.getGtc();
+		case 273 -> quote.getAmp();
+		case 274 -> quote.getShib();
+		case 275 -> quote.getChz();
+		case 276 -> quote.getKeep();
+		case 277 -> quote.getLpt();
+		case 278 -> quote.getQnt();
+		case 279 -> quote.getBond();
+		case 280 -> quote.getRly();
+		case 281 -> quote.getClv();
+		case 282 -> quote.getFarm();
+		case 283 -> quote.getMask();
+		case 284 -> quote.getFet();
+		case 285 -> quote.getPax();
+		case 286 -> quote.getAch();
+		case 287 -> quote.getAsm();
+		case 288 -> quote.getPla();
+		case 289 -> quote.getRai();
+		case 290 -> quote.getTribe();
+		case 291 -> quote.getOrn();
+		case 292 -> quote.getIotx();
+		case 293 -> quote.getUst();
+		case 294 -> quote.getQuick();
+		case 295 -> quote.getAxs();
+		case 296 -> quote.getReq();
+		case 297 -> quote.getWluna();
+		case 298 -> quote.getTru();
+		case 299 -> quote.getRad();
+		case 300 -> quote.getCoti();
+		case 301 -> quote.getDdx();
+		case 302 -> quote.getSuku();
+		case 303 -> quote.getRgt();
+		case 304 -> quote.getXyo();
+		case 305 -> quote.getZen();
+		case 306 -> quote.getAuction();
+		case 307 -> quote.getBusd();
+		case 308 -> quote.getJasmy();
+		case 309 -> quote.getWcfg();
+		case 310 -> quote.getBtrst();
+		case 311 -> quote.getAgld();
+		case 312 -> quote.getAvax();
+		case 313 -> quote.getFx();
+		case 314 -> quote.getTrac();
+		case 315 -> quote.getLcx();
+		case 316 -> quote.getArpa();
+		case 317 -> quote.getBadger();
+		case 318 -> quote.getKrl();
+		case 319 -> quote.getPerp();
+		case 320 -> quote.getRari();
+		case 321 -> quote.getDeso();
+		case 322 -> quote.getApi3();
+		case 323 -> quote.getNct();
+		case 324 -> quote.getShping();
+		case 325 -> quote.getUpi();
+		case 326 -> quote.getCro();
+		case 327 -> quote.getAvt();
+		case 328 -> quote.getMdt();
+		case 329 -> quote.getVgx();
+		case 330 -> quote.getAlcx();
+		case 331 -> quote.getCoval();
+		case 332 -> quote.getFox();
+		case 333 -> quote.getMusd();
+		case 334 -> quote.getGala();
+		case 335 -> quote.getPowr();
+		case 336 -> quote.getGyen();
+		case 337 -> quote.getAlice();
+		case 338 -> quote.getInv();
+		case 339 -> quote.getLqty();
+		case 340 -> quote.getPro();
+		case 341 -> quote.getSpell();
+		case 342 -> quote.getEns();
+		case 343 -> quote.getDia();
+		case 344 -> quote.getBlz();
+		case 345 -> quote.getCtx();
+		case 346 -> quote.getIdex();
+		case 347 -> quote.getMco2();
+		case 348 -> quote.getPols();
+		case 349 -> quote.getSuper();
+		case 350 -> quote.getUnfi();
+		case 351 -> quote.getStx();
+		case 352 -> quote.getGods();
+		case 353 -> quote.getImx();
+		case 354 -> quote.getRbn();
+		case 355 -> quote.getBico();
+		case 356 -> quote.getGfi();
+		case 357 -> quote.getGlm();
+		case 358 -> quote.getMpl();
+		case 359 -> quote.getPlu();
+		case 360 -> quote.getFida();
+		case 361 -> quote.getOrca();
+		case 362 -> quote.getCrpt();
+		case 363 -> quote.getQsp();
+		case 364 -> quote.getRndr();
+		case 365 -> quote.getSyn();
+		case 366 -> quote.getAioz();
+		case 367 -> quote.getAergo();
+		case 368 -> quote.getHigh();
+		case 369 -> quote.getRose();
+		case 370 -> quote.getApe();
+		case 371 -> quote.getMina();
+		case 372 -> quote.getGmt();
+		case 373 -> quote.getGst();
+		case 374 -> quote.getGal();
+		case 375 -> quote.getDnt();
+		case 376 -> quote.getFlow();
+		case 377 -> quote.getSand();
+		case 378 -> quote.getOp();
+		case 379 -> quote.getKsm();
+		default -> throw new IndexOutOfBoundsException(index);
+		};
+	}
+
+	public static void set(QuoteCb quote, int index, BigDecimal value) {
+		switch (index) {
+		case 0 -> quote.setXcn(value);
+		case 1 -> quote.setMetis(value);
+		case 2 -> quote.setBoba(value);
+		case 3 -> quote.setMona(value);
+		case 4 -> quote.setMedia(value);
+		case 5 -> quote.setGusd(value);
+		case 6 -> quote.setAst(value);
+		case 7 -> quote.setDyp(value);
+		case 8 -> quote.setPond(value);
+		case 9 -> quote.setTime(value);
+		case 10 -> quote.setDar(value);
+		case 11 -> quote.setC98(value);
+		case 12 -> quote.setBit(value);
+		case 13 -> quote.setFis(value);
+		case 14 -> quote.setDext(value);
+		case 15 -> quote.setAleph(value);
+		case 16 -> quote.setFort(value);
+		case 17 -> quote.setEla(value);
+		case 18 -> quote.setDrep(value);
+		case 19 -> quote.setMuse(value);
+		case 20 -> quote.setIndex(value);
+		case 21 -> quote.setWampl(value);
+		case 22 -> quote.setMath(value);
+		case 23 -> quote.setJup(value);
+		case 24 -> quote.setHopr(value);
+		case 25 -> quote.setAed(value);
+		case 26 -> quote.setPrq(value);
+		case 27 -> quote.setAta(value);
+		case 28 -> quote.setAfn(value);
+		case 29 -> quote.setAll(value);
+		case 30 -> quote.setAmd(value);
+		case 31 -> quote.setAng(value);
+		case 32 -> quote.setAoa(value);
+		case 33 -> quote.setArs(value);
+		case 34 -> quote.setAud(value);
+		case 35 -> quote.setAwg(value);
+		case 36 -> quote.setAzn(value);
+		case 37 -> quote.setBam(value);
+		case 38 -> quote.setBbd(value);
+		case 39 -> quote.setBdt(value);
+		case 40 -> quote.setBgn(value);
+		case 41 -> quote.setBhd(value);
+		case 42 -> quote.setBif(value);
+		case 43 -> quote.setBmd(value);
+		case 44 -> quote.setBnd(value);
+		case 45 -> quote.setBob(value);
+		case 46 -> quote.setBrl(value);
+		case 47 -> quote.setBsd(value);
+		case 48 -> quote.setBtc(value);
+		case 49 -> quote.setBtn(value);
+		case 50 -> quote.setBwp(value);
+		case 51 -> quote.setByn(value);
+		case 52 -> quote.setByr(value);
+		case 53 -> quote.setBzd(value);
+		case 54 -> quote.setCad(value);
+		case 55 -> quote.setCdf(value);
+		case 56 -> quote.setChf(value);
+		case 57 -> quote.setClf(value);
+		case 58 -> quote.setClp(value);
+		case 59 -> quote.setCny(value);
+		case 60 -> quote.setCop(value);
+		case 61 -> quote.setCrc(value);
+		case 62 -> quote.setCuc(value);
+		case 63 -> quote.setCve(value);
+		case 64 -> quote.setCzk(value);
+		case 65 -> quote.setDjf(value);
+		case 66 -> quote.setDkk(value);
+		case 67 -> quote.setDop(value);
+		case 68 -> quote.setDzd(value);
+		case 69 -> quote.setEek(value);
+		case 70 -> quote.setEgp(value);
+		case 71 -> quote.setErn(value);
+		case 72 -> quote.setEtb(value);
+		case 73 -> quote.setEth(value);
+		case 74 -> quote.setEur(value);
+		case 75 -> quote.setFjd(value);
+		case 76 -> quote.setFkp(value);
+		case 77 -> quote.setGbp(value);
+		case 78 -> quote.setGel(value);
+		case 79 -> quote.setGgp(value);
+		case 80 -> quote.setGhs(value);
+		case 81 -> quote.setGip(value);
+		case 82 -> quote.setGmd(value);
+		case 83 -> quote.setGnf(value);
+		case 84 -> quote.setGtq(value);
+		case 85 -> quote.setGyd(value);
+		case 86 -> quote.setHkd(value);
+		case 87 -> quote.setHnl(value);
+		case 88 -> quote.setHrk(value);
+		case 89 -> quote.setHtg(value);
+		case 90 -> quote.setHuf(value);
+		case 91 -> quote.setIdr(value);
+		case 92 -> quote.setIls(value);
+		case 93 -> quote.setImp(value);
+		case 94 -> quote.setInr(value);
+		case 95 -> quote.setIqd(value);
+		case 96 -> quote.setIsk(value);
+		case 97 -> quote.setJep(value);
+		case 98 -> quote.setJmd(value);
+		case 99 -> quote.setJod(value);
+		case 100 -> quote.setJpy(value);
+		case 101 -> quote.setKes(value);
+		case 102 -> quote.setKgs(value);
+		case 103 -> quote.setKhr(value);
+		case 104 -> quote.setKmf(value);
+		case 105 -> quote.setKrw(value);
+		case 106 -> quote.setKwd(value);
+		case 107 -> quote.setKyd(value);
+		case 108 -> quote.setKzt(value);
+		case 109 -> quote.setLak(value);
+		case 110 -> quote.setLbp(value);
+		case 111 -> quote.setLkr(value);
+		case 112 -> quote.setLrd(value);
+		case 113 -> quote.setLsl(value);
+		case 114 -> quote.setLtc(value);
+		case 115 -> quote.setLtl(value);
+		case 116 -> quote.setLvl(value);
+		case 117 -> quote.setLyd(value);
+		case 118 -> quote.setMad(value);
+		case 119 -> quote.setMdl(value);
+		case 120 -> quote.setMga(value);
+		case 121 -> quote.setMkd(value);
+		case 122 -> quote.setMmk(value);
+		case 123 -> quote.setMnt(value);
+		case 124 -> quote.setMop(value);
+		case 125 -> quote.setMro(value);
+		case 126 -> quote.setMtl(value);
+		case 127 -> quote.setMur(value);
+		case 128 -> quote.setMvr(value);
+		case 129 -> quote.setMwk(value);
+		case 130 -> quote.setMxn(value);
+		case 131 -> quote.setMyr(value);
+		case 132 -> quote.setMzn(value);
+		case 133 -> quote.setNad(value);
+		case 134 -> quote.setNgn(value);
+		case 135 -> quote.setNio(value);
+		case 136 -> quote.setNok(value);
+		case 137 -> quote.setNpr(value);
+		case 138 -> quote.setNzd(value);
+		case 139 -> quote.setOmr(value);
+		case 140 -> quote.setPab(value);
+		case 141 -> quote.setPen(value);
+		case 142 -> quote.setPgk(value);
+		case 143 -> quote.setPhp(value);
+		case 144 -> quote.setPkr(value);
+		case 145 -> quote.setPln(value);
+		case 146 -> quote.setPyg(value);
+		case 147 -> quote.setQar(value);
+		case 148 -> quote.setRon(value);
+		case 149 -> quote.setRsd(value);
+		case 150 -> quote.setRub(value);
+		case 151 -> quote.setRwf(value);
+		case 152 -> quote.setSar(value);
+		case 153 -> quote.setSbd(value);
+		case 154 -> quote.setScr(value);
+		case 155 -> quote.setSek(value);
+		case 156 -> quote.setSgd(value);
+		case 157 -> quote.setShp(value);
+		case 158 -> quote.setSll(value);
+		case 159 -> quote.setSos(value);
+		case 160 -> quote.setSrd(value);
+		case 161 -> quote.setSsp(value);
+		case 162 -> quote.setStd(value);
+		case 163 -> quote.setSvc(value);
+		case 164 -> quote.setSzl(value);
+		case 165 -> quote.setThb(value);
+		case 166 -> quote.setTjs(value);
+		case 167 -> quote.setTmt(value);
+		case 168 -> quote.setTnd(value);
+		case 169 -> quote.setTop(value);
+		case 170 -> quote.setTry1(value);
+		case 171 -> quote.setTtd(value);
+		case 172 -> quote.setTwd(value);
+		case 173 -> quote.setTzs(value);
+		case 174 -> quote.setUah(value);
+		case 175 -> quote.setUgx(value);
+		case 176 -> quote.setUsd(value);
+		case 177 -> quote.setUyu(value);
+		case 178 -> quote.setUzs(value);
+		case 179 -> quote.setVef(value);
+		case 180 -> quote.setVnd(value);
+		case 181 -> quote.setVuv(value);
+		case 182 -> quote.setWst(value);
+		case 183 -> quote.setXaf(value);
+		case 184 -> quote.setXag(value);
+		case 185 -> quote.setXau(value);
+		case 186 -> quote.setXcd(value);
+		case 187 -> quote.setXdr(value);
+		case 188 -> quote.setXof(value);
+		case 189 -> quote.setXpd(value);
+		case 190 -> quote.setXpf(value);
+		case 191 -> quote.setXpt(value);
+		case 192 -> quote.setYer(value);
+		case 193 -> quote.setZar(value);
+		case 194 -> quote.setZmk(value);
+		case 195 -> quote.setZmw(value);
+		case 196 -> quote.setZwl(value);
+		case 197 -> quote.setVes(value);
+		case 198 -> quote.setXba(value);
+		case 199 -> quote.setXts(value);
+		case 200 -> quote.setGbx(value);
+		case 201 -> quote.setCnh(value);
+		case 202 -> quote.setZwd(value);
+		case 203 -> quote.setBch(value);
+		case 204 -> quote.setBsv(value);
+		case 205 -> quote.setEth2(value);
+		case 206 -> quote.setEtc(value);
+		case 207 -> quote.setZrx(value);
+		case 208 -> quote.setUsdc(value);
+		case 209 -> quote.setBat(value);
+		case 210 -> quote.setLoom(value);
+		case 211 -> quote.setMana(value);
+		case 212 -> quote.setKnc(value);
+		case 213 -> quote.setLink(value);
+		case 214 -> quote.setMkr(value);
+		case 215 -> quote.setCvc(value);
+		case 216 -> quote.setOmg(value);
+		case 217 -> quote.setGnt(value);
+		case 218 -> quote.setDai(value);
+		case 219 -> quote.setSnt(value);
+		case 220 -> quote.setZec(value);
+		case 221 -> quote.setXrp(value);
+		case 222 -> quote.setRep(value);
+		case 223 -> quote.setXlm(value);
+		case 224 -> quote.setEos(value);
+		case 225 -> quote.setXtz(value);
+		case 226 -> quote.setAlgo(value);
+		case 227 -> quote.setDash(value);
+		case 228 -> quote.setAtom(value);
+		case 229 -> quote.setOxt(value);
+		case 230 -> quote.setComp(value);
+		case 231 -> quote.setEnj(value);
+		case 232 -> quote.setRepv2(value);
+		case 233 -> quote.setBand(value);
+		case 234 -> quote.setNmr(value);
+		case 235 -> quote.setCgld(value);
+		case 236 -> quote.setUma(value);
+		case 237 -> quote.setLrc(value);
+		case 238 -> quote.setYfi(value);
+		case 239 -> quote.setUni(value);
+		case 240 -> quote.setBal(value);
+		case 241 -> quote.setRen(value);
+		case 242 -> quote.setWbtc(value);
+		case 243 -> quote.setNu(value);
+		case 244 -> quote.setYfii(value);
+		case 245 -> quote.setFil(value);
+		case 246 -> quote.setAave(value);
+		case 247 -> quote.setBnt(value);
+		case 248 -> quote.setGrt(value);
+		case 249 -> quote.setSnx(value);
+		case 250 -> quote.setStorj(value);
+		case 251 -> quote.setSushi(value);
+		case 252 -> quote.setMatic(value);
+		case 253 -> quote.setSkl(value);
+		case 254 -> quote.setAda(value);
+		case 255 -> quote.setAnkr(value);
+		case 256 -> quote.setCrv(value);
+		case 257 -> quote.setIcp(value);
+		case 258 -> quote.setNkn(value);
+		case 259 -> quote.setOgn(value);
+		case 260 -> quote.set1Inch(value);
+		case 261 -> quote.setUsdt(value);
+		case 262 -> quote.setForth(value);
+		case 263 -> quote.setCtsi(value);
+		case 264 -> quote.setTrb(value);
+		case 265 -> quote.setPoly(value);
+		case 266 -> quote.setMir(value);
+		case 267 -> quote.setRlc(value);
+		case 268 -> quote.setDot(value);
+		case 269 -> quote.setSol(value);
+		case 270 -> quote.setDoge(value);
+		case 271 -> quote.setMln(value);
+		case 272 -> quote.setGtc(value);
+		case 273 -> quote.setAmp(value);
+		case 274 -> quote.setShib(value);
+		case 275 -> quote.setChz(value);
+		case 276 -> quote.setKeep(value);
+		case 277 -> quote.setLpt(value);
+		case 278 -> quote.setQnt(value);
+		case 279 -> quote.setBond(value);
+		case 280 -> quote.setRly(value);
+		case 281 -> quote.setClv(value);
+		case 282 -> quote.setFarm(value);
+		case 283 -> quote.setMask(value);
+		case 284 -> quote.setFet(value);
+		case 285 -> quote.setPax(value);
+		case 286 -> quote.setAch(value);
+		case 287 -> quote.setAsm(value);
+		case 288 -> quote.setPla(value);
+		case 289 -> quote.setRai(value);
+		case 290 -> quote.setTribe(value);
+		case 291 -> quote.setOrn(value);
+		case 292 -> quote.setIotx(value);
+		case 293 -> quote.setUst(value);
+		case 294 -> quote.setQuick(value);
+		case 295 -> quote.setAxs(value);
+		case 296 -> quote.setReq(value);
+		case 297 -> quote.setWluna(value);
+		case 298 -> quote.setTru(value);
+		case 299 -> quote.setRad(value);
+		case 300 -> quote.setCoti(value);
+		case 301 -> quote.setDdx(value);
+		case 302 -> quote.setSuku(value);
+		case 303 -> quote.setRgt(value);
+		case 304 -> quote.setXyo(value);
+		case 305 -> quote.setZen(value);
+		case 306 -> quote.setAuction(value);
+		case 307 -> quote.setBusd(value);
+		case 308 -> quote.setJasmy(value);
+		case 309 -> quote.setWcfg(value);
+		case 310 -> quote.setBtrst(value);
+		case 311 -> quote.setAgld(value);
+		case 312 -> quote.setAvax(value);
+		case 313 -> quote.setFx(value);
+		case 314 -> quote.setTrac(value);
+		case 315 -> quote.setLcx(value);
+		case 316 -> quote.setArpa(value);
+		case 317 -> quote.setBadger(value);
+		case 318 -> quote.setKrl(value);
+		case 319 -> quote.setPerp(value);
+		case 320 -> quote.setRari(value);
+		case 321 -> quote.setDeso(value);
+		case 322 -> quote.setApi3(value);
+		case 323 -> quote.setNct(value);
+		case 324 -> quote.setShping(value);
+		case 325 -> quote.setUpi(value);
+		case 326 -> quote.setCro(value);
+		case 327 -> quote.setAvt(value);
+		case 328 -> quote.setMdt(value);
+		case 329 -> quote.setVgx(value);
+		case 330 -> quote.setAlcx(value);
+		case 331 -> quote.setCoval(value);
+		case 332 -> quote.setFox(value);
+		case 333 -> quote.setMusd(value);
+		case 334 -> quote.setGala(value);
+		case 335 -> quote.setPowr(value);
+		case 336 -> quote.setGyen(value);
+		case 337 -> quote.setAlice(value);
+		case 338 -> quote.setInv(value);
+		case 339 -> quote.setLqty(value);
+		case 340 -> quote.setPro(value);
+		case 341 -> quote.setSpell(value);
+		case 342 -> quote.setEns(value);
+		case 343 -> quote.setDia(value);
+		case 344 -> quote.setBlz(value);
+		case 345 -> quote.setCtx(value);
+		case 346 -> quote.setIdex(value);
+		case 347 -> quote.setMco2(value);
+		case 348 -> quote.setPols(value);
+		case 349 -> quote.setSuper(value);
+		case 350 -> quote.setUnfi(value);
+		case 351 -> quote.setStx(value);
+		case 352 -> quote.setGods(value);
+		case 353 -> quote.setImx(value);
+		case 354 -> quote.setRbn(value);
+		case 355 -> quote.setBico(value);
+		case 356 -> quote.setGfi(value);
+		case 357 -> quote.setGlm(value);
+		case 358 -> quote.setMpl(value);
+		case 359 -> quote.setPlu(value);
+		case 360 -> quote.setFida(value);
+		case 361 -> quote.setOrca(value);
+		case 362 -> quote.setCrpt(value);
+		case 363 -> quote.setQsp(value);
+		case 364 -> quote.setRndr(value);
+		case 365 -> quote.setSyn(value);
+		case 366 -> quote.setAioz(value);
+		case 367 -> quote.setAergo(value);
+		case 368 -> quote.setHigh(value);
+		case 369 -> quote.setRose(value);
+		case 370 -> quote.setApe(value);
+		case 371 -> quote.setMina(value);
+		case 372 -> quote.setGmt(value);
+		case 373 -> quote.setGst(value);
+		case 374 -> quote.setGal(value);
+		case 375 -> quote.setDnt(value);
+		case 376 -> quote.setFlow(value);
+		case 377 -> quote.setSand(value);
+		case 378 -> quote.setOp(value);
+		case 379 -> quote.setKsm(value);
+		default -> throw new IndexOutOfBoundsException(index);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.model.dto.BackfillProgress;
+import ch.xxx.trader.domain.model.entity.BackfillCheckpoint;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.Quote;
+import ch.xxx.trader.usecase.common.DtoUtils;
+import ch.xxx.trader.usecase.services.ServiceUtils.MyTimeFrame;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Splits the missing time range of a rollup collection into day partitions
+ * per pair and processes them in parallel on the shared RollupExecutor that
+ * limits the partitions of all exchanges together. The partitions complete in
+ * order, after each partition the checkpoint of the collection and pair is
+ * saved. A failed partition stops the backfill, the next run continues after
+ * the checkpoint. With rollup.shard.enabled=true the partitions are shards
+ * that the replicas claim with a lease of the RollupJobService, the shards
+ * held by other replicas are awaited at the end and claimed if their lease
+ * expires. The checkpoints are advanced once all partitions are done.
+ */
+@Service
+public class BackfillEngine {
+	private static final Logger LOG = LoggerFactory.getLogger(BackfillEngine.class);
+	private final MyMongoRepository myMongoRepository;
+	private final RollupExecutor rollupExecutor;
+	private final RollupJobService rollupJobService;
+	private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+
+	public record Partition(String pair, MyTimeFrame timeFrame) {
+	}
+
+	private static class Progress {
+		private final String collection;
+		private final int partitions;
+		private final long startedAt = System.currentTimeMillis();
+		private volatile int completed;
+		private volatile long updatedAt = System.currentTimeMillis();
+		private volatile String state = "RUNNING";
+		private volatile String error;
+
+		Progress(String collection, int partitions) {
+			this.collection = collection;
+			this.partitions = partitions;
+		}
+
+		synchronized void completed() {
+			this.completed++;
+			this.updatedAt = System.currentTimeMillis();
+		}
+
+		BackfillProgress toDto() {
+			final double minutes = Math.max(1L, this.updatedAt - this.startedAt) / 60000.0;
+			final double perMinute = this.completed / minutes;
+			final Date estimatedEnd = "RUNNING".equals(this.state) && perMinute > 0.0
+					? new Date(this.updatedAt + (long) ((this.partitions - this.completed) / perMinute * 60000.0))
+					: null;
+			return new BackfillProgress(this.collection, this.state, this.partitions, this.completed,
+					new Date(this.startedAt), new Date(this.updatedAt), perMinute, estimatedEnd, this.error);
+		}
+	}
+
+	public BackfillEngine(MyMongoRepository myMongoRepository, RollupExecutor rollupExecutor,
+			RollupJobService rollupJobService) {
+		this.myMongoRepository = myMongoRepository;
+		this.rollupExecutor = rollupExecutor;
+		this.rollupJobService = rollupJobService;
+	}
+
+	/**
+	 * Backfills the pairs that have quotes between the begin of the time frame
+	 * and now, the pairs are read from the quotes and not from the ingestion
+	 * registry.
+	 */
+	public Mono<Long> backfill(String collection, Class<? extends Quote> quoteClass, MyTimeFrame timeFrame,
+			Calendar now, Function<Partition, Mono<?>> processor) {
+		final Query query = new Query(
+				Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(now.getTime()));
+		return this.myMongoRepository.findDistinct(query, DtoUtils.PAIR, quoteClass, String.class).collectList()
+				.flatMap(myPairs -> this.backfill(collection, myPairs, timeFrame, now, processor));
+	}
+
+	public Mono<Long> backfill(String collection, List<String> pairs, MyTimeFrame timeFrame, Calendar now,
+			Function<Partition, Mono<?>> processor) {
+		return this.myMongoRepository
+				.find(new Query(Criteria.where("collection").is(collection)), BackfillCheckpoint.class)
+				.collectMap(BackfillCheckpoint::getPair, BackfillCheckpoint::getCompletedUntil)
+				.flatMapMany(myCheckpoints -> {
+					final List<Partition> partitions = createPartitions(pairs, myCheckpoints, timeFrame, now);
+					this.progress.put(collection, new Progress(collection, partitions.size()));
+					LOG.info("Backfill {}: {} partitions", collection, partitions.size());
+					return Flux.fromIterable(partitions);
+				})
+				.transform(myPartitions -> this.rollupJobService.isSharded()
+						? this.processShards(collection, myPartitions, processor)
+						: this.processInOrder(collection, myPartitions, processor))
+				.count()
+				.doOnSuccess(myCount -> this.finish(collection, "DONE", null))
+				.doOnError(ex -> this.finish(collection, "FAILED", ex.getMessage()))
+				.doOnCancel(() -> this.finish(collection, "CANCELLED", null));
+	}
+
+	private Flux<Partition> processInOrder(String collection, Flux<Partition> partitions,
+			Function<Partition, Mono<?>> processor) {
+		return partitions
+				.flatMapSequential(myPartition -> this.rollupExecutor
+						.execute(collection, processor.apply(myPartition).then(Mono.just(myPartition))),
+						this.rollupExecutor.maxLimit())
+				.concatMap(myPartition -> this.myMongoRepository
+						.save(new BackfillCheckpoint(collection, myPartition.pair(),
+								myPartition.timeFrame().end().getTime()))
+						.thenReturn(myPartition))
+				.doOnNext(myPartition -> this.progress.get(collection).completed());
+	}
+
+	private Flux<Partition> processShards(String collection, Flux<Partition> partitions,
+			Function<Partition, Mono<?>> processor) {
+		return Flux.defer(() -> {
+			final List<Partition> held = new CopyOnWriteArrayList<>();
+			return partitions
+					.flatMap(myPartition -> this.claimShard(collection, myPartition, processor)
+							.flatMap(myDone -> myDone ? Mono.just(myPartition)
+									: Mono.<Partition>fromRunnable(() -> held.add(myPartition))),
+							this.rollupExecutor.maxLimit())
+					.concatWith(Flux.defer(() -> Flux.fromIterable(held)).flatMap(
+							myPartition -> this.awaitShard(collection, myPartition, processor),
+							this.rollupExecutor.maxLimit()))
+					.doOnNext(myPartition -> this.progress.get(collection).completed()).collectList()
+					.flatMapMany(myPartitions -> this.advanceCheckpoints(collection, myPartitions)
+							.thenMany(Flux.fromIterable(myPartitions)));
+		});
+	}
+
+	private Mono<Boolean> claimShard(String collection, Partition partition, Function<Partition, Mono<?>> processor) {
+		final String shard = String.format("%s:%s:%tF", collection, partition.pair(), partition.timeFrame().begin());
+		// the shard is claimed with a free permit, a replica claims only what it can process
+		return this.rollupExecutor
+				.execute(collection,
+						this.rollupJobService.runShard(shard, processor.apply(partition).thenReturn(Boolean.TRUE)))
+				.switchIfEmpty(this.rollupJobService.isDone(shard));
+	}
+
+	private Mono<Partition> awaitShard(String collection, Partition partition,
+			Function<Partition, Mono<?>> processor) {
+		return this.claimShard(collection, partition, processor).filter(Boolean::booleanValue)
+				.repeatWhenEmpty(myRepeats -> myRepeats
+						.concatMap(myRepeat -> Mono.delay(this.rollupJobService.shardLease().dividedBy(3L))))
+				.thenReturn(partition);
+	}
+
+	private Mono<Void> advanceCheckpoints(String collection, List<Partition> partitions) {
+		final Map<String, Date> ends = partitions.stream().collect(Collectors.toMap(Partition::pair,
+				myPartition -> myPartition.timeFrame().end().getTime(),
+				(myEnd1, myEnd2) -> myEnd1.after(myEnd2) ? myEnd1 : myEnd2));
+		return Flux.fromIterable(ends.entrySet())
+				.concatMap(myEntry -> this.advanceCheckpoint(collection, myEntry.getKey(), myEntry.getValue()))
+				.then();
+	}
+
+	/**
+	 * Moves the checkpoint of the collection and pair to completedUntil unless
+	 * it is already further(another replica, streaming rollups).
+	 */
+	public Mono<Void> advanceCheckpoint(String collection, String pair, Date completedUntil) {
+		final BackfillCheckpoint checkpoint = new BackfillCheckpoint(collection, pair, completedUntil);
+		return this.myMongoRepository.upsertUpdate(new Query(Criteria.where("_id").is(checkpoint.getId())),
+				new Update().set("collection", collection).set("pair", pair)
+						.max("completedUntil", completedUntil).set("updatedAt", new Date()),
+				this.myMongoRepository.getCollectionName(BackfillCheckpoint.class));
+	}
+
+	public Map<String, BackfillProgress> progress() {
+		final Map<String, BackfillProgress> result = new TreeMap<>();
+		this.progress.forEach((myCollection, myProgress) -> result.put(myCollection, myProgress.toDto()));
+		return result;
+	}
+
+	private void finish(String collection, String state, String error) {
+		final Progress myProgress = this.progress.get(collection);
+		if (myProgress != null && "RUNNING".equals(myProgress.state)) {
+			myProgress.state = state;
+			myProgress.error = error;
+			LOG.info("Backfill {}: {} {}/{} partitions", collection, state, myProgress.completed,
+					myProgress.partitions);
+		}
+	}
+
+	static List<Partition> createPartitions(List<String> pairs, Map<String, Date> checkpoints, MyTimeFrame timeFrame,
+			Calendar now) {
+		final List<Partition> partitions = new ArrayList<>();
+		final Calendar begin = (Calendar) timeFrame.begin().clone();
+		final Calendar end = (Calendar) timeFrame.end().clone();
+		while (end.before(now)) {
+			for (String pair : pairs) {
+				final Date checkpoint = checkpoints.get(pair);
+				if (checkpoint == null || end.getTime().after(checkpoint)) {
+					partitions.add(new Partition(pair,
+							new MyTimeFrame((Calendar) begin.clone(), (Calendar) end.clone())));
+				}
+			}
+			begin.add(Calendar.DAY_OF_YEAR, 1);
+			end.add(Calendar.DAY_OF_YEAR, 1);
+		}
+		return partitions;
+	}
+}
@@ -16,7 +16,6 @@
 package ch.xxx.trader.usecase.services;
 
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -24,72 +23,119 @@ import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import ch.xxx.trader.domain.common.MongoUtils;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+import ch.xxx.trader.domain.model.entity.Candle;
 import ch.xxx.trader.domain.model.entity.MyMongoRepository;
 import ch.xxx.trader.domain.model.entity.QuoteBf;
 import ch.xxx.trader.domain.services.MyOrderBookClient;
+import ch.xxx.trader.usecase.common.Downsampler;
 import ch.xxx.trader.usecase.common.DtoUtils;
+import ch.xxx.trader.usecase.common.FieldSums;
+import ch.xxx.trader.usecase.common.OrderbookDepth;
+import ch.xxx.trader.usecase.common.QuoteAggregator;
 import ch.xxx.trader.usecase.mappers.ReportMapper;
 import ch.xxx.trader.usecase.services.ServiceUtils.MyTimeFrame;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 @Service
 public class BitfinexService {
 	private static final Logger LOG = LoggerFactory.getLogger(BitfinexService.class);
 	public static final String BF_HOUR_COL = "quoteBfHour";
 	public static final String BF_DAY_COL = "quoteBfDay";
-	public static volatile boolean singleInstanceLock = false;
+	public static final String BF_AVG_JOB = "bitfinex_avg";
 	private final MyOrderBookClient orderBookClient;
 	private final ReportMapper reportMapper;
 	private final MyMongoRepository myMongoRepository;
+	private final QuoteWriteBuffer quoteWriteBuffer;
+	private final OrderbookCache orderbookCache;
+	private final LatestQuoteStore latestQuoteStore;
+	private final QuoteStreamService quoteStreamService;
+	private final MongoRollupService mongoRollupService;
+	private final BackfillEngine backfillEngine;
+	private final RollupJobService rollupJobService;
+	private final CandleService candleService;
+	private final TimeframeCache timeframeCache;
+	private final StreamingRollup<QuoteBf> streamingRollup;
 	private final ServiceUtils serviceUtils;
-	private final Scheduler mongoScheduler = Schedulers.newBoundedElastic(5, 10, "mongoImport", 10);
-	@Value("${single.instance.deployment:false}")
-	private boolean singleInstanceDeployment;
+	private final QuoteAggregator<QuoteBf> quoteAggregator = new QuoteAggregator<QuoteBf>(
+			List.of(QuoteBf::getMid, QuoteBf::getBid, QuoteBf::getAsk, QuoteBf::getLast_price, QuoteBf::getLow,
+					QuoteBf::getHigh, QuoteBf::getVolume),
+			QuoteBf::getPair, BitfinexService::createQuoteBf,
+			FieldSums.fixedPoint(QuoteAggregator.EXCHANGE_SCALE));
+	private final Scheduler mongoScheduler;
 
 	public BitfinexService(ServiceUtils serviceUtils, MyOrderBookClient orderBookClient, ReportMapper reportMapper,
-			MyMongoRepository myMongoRepository) {
+			MyMongoRepository myMongoRepository, QuoteWriteBuffer quoteWriteBuffer,
+			OrderbookCache orderbookCache, LatestQuoteStore latestQuoteStore,
+			QuoteStreamService quoteStreamService, MongoRollupService mongoRollupService,
+			StreamingRollupService streamingRollupService, BackfillEngine backfillEngine,
+			RollupJobService rollupJobService, CandleService candleService, RollupExecutor rollupExecutor,
+			TimeframeCache timeframeCache) {
+		this.timeframeCache = timeframeCache;
+		this.mongoScheduler = rollupExecutor.scheduler();
+		this.candleService = candleService;
+		this.rollupJobService = rollupJobService;
+		this.backfillEngine = backfillEngine;
+		this.mongoRollupService = mongoRollupService;
+		this.streamingRollup = streamingRollupService.create(QuoteBf.class, this.quoteAggregator, true, BF_HOUR_COL,
+				BF_DAY_COL);
+		this.quoteWriteBuffer = quoteWriteBuffer;
+		this.orderbookCache = orderbookCache;
+		this.latestQuoteStore = latestQuoteStore;
+		this.quoteStreamService = quoteStreamService;
 		this.orderBookClient = orderBookClient;
 		this.reportMapper = reportMapper;
 		this.myMongoRepository = myMongoRepository;
 		this.serviceUtils = serviceUtils;
 	}
 
-	public Mono<String> getOrderbook(String currpair) {
-		return this.orderBookClient.getOrderbookBitfinex(currpair);
+	public Mono<OrderbookDto> getOrderbook(String currpair, int depth, double tick) {
+		return this.orderbookCache.get(Exchange.BITFINEX, currpair,
+				() -> this.orderBookClient.getOrderbookBitfinex(currpair))
+				.map(myOrderbook -> OrderbookDepth.limit(myOrderbook, depth, tick));
 	}
 
 	public Mono<QuoteBf> insertQuote(Mono<QuoteBf> quote) {
-		return this.myMongoRepository.insert(quote);
+		return this.quoteWriteBuffer.insert(quote, QuoteBf.class, Exchange.BITFINEX)
+				.doOnNext(myQuote -> this.latestQuoteStore.update(Exchange.BITFINEX, myQuote.getPair(), myQuote))
+				.flatMap(myQuote -> this.streamingRollup.add(myQuote).thenReturn(myQuote))
+				.flatMap(myQuote -> this.candleService.add(Exchange.BITFINEX, myQuote.getPair(), myQuote.getCreatedAt(),
+						myQuote.getLast_price(), myQuote.getVolume()).thenReturn(myQuote));
 	}
 
 	public Mono<QuoteBf> currentQuote(String pair) {
 		Query query = MongoUtils.buildCurrentQuery(Optional.of(pair));
-		return this.myMongoRepository.findOne(query, QuoteBf.class);
+		return this.latestQuoteStore.current(Exchange.BITFINEX, pair,
+				() -> this.myMongoRepository.findOne(query, QuoteBf.class));
 	}
 
-	public Flux<QuoteBf> tfQuotes(String timeFrame, String pair) {
-		return this.serviceUtils.tfQuotes(timeFrame, pair, QuoteBf.class, BF_HOUR_COL, BF_DAY_COL);
+	public Flux<QuoteBf> quoteUpdates(String pair) {
+		return this.quoteStreamService.quotes(Exchange.BITFINEX, pair, this.currentQuote(pair));
+	}
+
+	public Flux<QuoteBf> tfQuotes(String timeFrame, String pair, int points) {
+		return this.timeframeCache
+				.get(Exchange.BITFINEX, pair, timeFrame,
+						() -> this.serviceUtils.tfQuotes(timeFrame, pair, QuoteBf.class, BF_HOUR_COL, BF_DAY_COL))
+				.transform(Downsampler.lttb(points, QuoteBf::getCreatedAt, QuoteBf::getLast_price));
+	}
+
+	public Flux<Candle> candles(String timeFrame, String pair, String resolution) {
+		return this.candleService.candles(Exchange.BITFINEX, pair, timeFrame, resolution);
 	}
 
 	public Mono<byte[]> pdfReport(String timeFrame, String pair) {
@@ -98,167 +144,81 @@ public class BitfinexService {
 	}
 
 	public Mono<String> createBfAvg() {
-		Mono<String> result = Mono.empty();
-		if ((this.singleInstanceDeployment && !BitfinexService.singleInstanceLock) || !this.singleInstanceDeployment) {
-			BitfinexService.singleInstanceLock = true;
-			result = this.myMongoRepository.ensureIndex(BF_HOUR_COL, DtoUtils.CREATEDAT)
-					.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
-					.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BF_HOUR_COL + ") failed.", ex))
-//					.doOnError(ex -> LOG.info("ensureIndex(" + BF_HOUR_COL + ") failed.", ex))
-					.then(this.myMongoRepository.ensureIndex(BF_DAY_COL, DtoUtils.CREATEDAT)
-							.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
-							.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BF_DAY_COL + ") failed.", ex))
-//							.doOnError(ex -> LOG.info("ensureIndex(" + BF_DAY_COL + ") failed.", ex)))
-							.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BF_DAY_COL + ") failed.", ex)))
-					.map(value -> this.createHourDayAvg()).timeout(Duration.ofHours(2L))
-//					.doOnError(ex -> LOG.info("createBfAvg() failed.", ex))
-					.onErrorContinue((ex, val) -> LOG.info("createBfAvg() failed.", ex))
-					.subscribeOn(this.mongoScheduler);
-		}
-		return result;
+		return this.rollupJobService.runExclusive(BF_AVG_JOB,
+				this.myMongoRepository.ensureIndex(BF_HOUR_COL, DtoUtils.CREATEDAT)
+						.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
+						.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BF_HOUR_COL + ") failed.", ex))
+//						.doOnError(ex -> LOG.info("ensureIndex(" + BF_HOUR_COL + ") failed.", ex))
+						.then(this.myMongoRepository.ensureIndex(BF_DAY_COL, DtoUtils.CREATEDAT)
+								.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
+								.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BF_DAY_COL + ") failed.", ex))
+//								.doOnError(ex -> LOG.info("ensureIndex(" + BF_DAY_COL + ") failed.", ex)))
+								.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BF_DAY_COL + ") failed.", ex)))
+						.flatMap(value -> this.createHourDayAvg()).timeout(Duration.ofHours(2L))
+//						.doOnError(ex -> LOG.info("createBfAvg() failed.", ex))
+						.onErrorContinue((ex, val) -> LOG.info("createBfAvg() failed.", ex))
+						.subscribeOn(this.mongoScheduler))
+				.doFinally(mySignal -> this.timeframeCache.invalidate(Exchange.BITFINEX));
 	}
 
-	private String createHourDayAvg() {
+	private Mono<String> createHourDayAvg() {
 		LOG.info("createHourDayAvg()");
-		CompletableFuture<String> future3 = CompletableFuture.supplyAsync(() -> {
-			this.createBfHourlyAvg();
-			return "createBfHourlyAvg() Done.";
-		}, CompletableFuture.delayedExecutor(10, TimeUnit.SECONDS));
-		CompletableFuture<String> future4 = CompletableFuture.supplyAsync(() -> {
-			this.createBfDailyAvg();
-			return "createBfDailyAvg() Done.";
-		}, CompletableFuture.delayedExecutor(10, TimeUnit.SECONDS));
-		String combined = Stream.of(future3, future4).map(CompletableFuture::join).collect(Collectors.joining(" "));
-		LOG.info(combined);
-		return "done";
+		return Mono.when(this.createBfHourlyAvg(), this.createBfDailyAvg())
+				.doOnSuccess(myVoid -> LOG.info("createBfHourlyAvg() Done. createBfDailyAvg() Done."))
+				.thenReturn("done");
 	}
 
-	private void createBfHourlyAvg() {
+	private Mono<Void> createBfHourlyAvg() {
 		LocalDateTime startAll = LocalDateTime.now();
-		MyTimeFrame timeFrame = this.serviceUtils.createTimeFrame(BF_HOUR_COL, QuoteBf.class, true);
-		SimpleDateFormat sdf = new SimpleDateFormat("dd.MM.yyyy");
 		Calendar now = Calendar.getInstance();
 		now.setTime(Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant()));
-		while (timeFrame.end().before(now)) {
-			Date start = new Date();
-			Query query = new Query();
-			query.addCriteria(
-					Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
-			// Bitfinex
-			Mono<Collection<QuoteBf>> collectBf = this.myMongoRepository.find(query, QuoteBf.class)
-					.timeout(Duration.ofSeconds(5L)).doOnError(ex -> LOG.warn("Bitfinex prepare hour data failed", ex))
-					.onErrorResume(ex -> Mono.empty()).subscribeOn(mongoScheduler)
-					.collectMultimap(quote -> quote.getPair(), quote -> quote)
-					.map(multimap -> multimap.keySet().stream()
-							.map(key -> makeBfQuoteHour(key, multimap, timeFrame.begin(), timeFrame.end()))
-							.collect(Collectors.toList()))
-					.flatMap(myList -> Mono
-							.just(myList.stream().flatMap(Collection::stream).collect(Collectors.toList())));
-			collectBf.filter(Predicate.not(Collection::isEmpty))
-					.flatMap(myColl -> this.myMongoRepository.insertAll(Mono.just(myColl), BF_HOUR_COL)
-							.timeout(Duration.ofSeconds(5L))
-							.doOnError(ex -> LOG.warn("Bitfinex prepare hour data failed", ex))
-							.onErrorResume(ex -> Mono.empty()).subscribeOn(mongoScheduler).collectList())
-					.block();
-
-			timeFrame.begin().add(Calendar.DAY_OF_YEAR, 1);
-			timeFrame.end().add(Calendar.DAY_OF_YEAR, 1);
-			LOG.info("Prepared Bitfinex Hour Data for: " + sdf.format(timeFrame.begin().getTime()) + " Time: "
-					+ (new Date().getTime() - start.getTime()) + "ms");
-		}
-		LOG.info(this.serviceUtils.createAvgLogStatement(startAll, "Prepared Bitfinex Hourly Data Time:"));
+		return this.serviceUtils.createTimeFrame(BF_HOUR_COL, QuoteBf.class, true)
+				.flatMap(myTimeFrame -> this.mongoRollupService.isEnabled()
+						? this.mongoRollupService.rollup(QuoteBf.class, BF_HOUR_COL, true, false,
+								myTimeFrame.begin().getTime(), now.getTime())
+						: this.backfillEngine.backfill(BF_HOUR_COL, QuoteBf.class, myTimeFrame, now,
+								myPartition -> this.createBfPartitionAvg(myPartition, BF_HOUR_COL, false)).then())
+				.doOnError(ex -> LOG.warn("Bitfinex prepare hour data failed", ex)).onErrorResume(ex -> Mono.empty())
+				.then().doOnSuccess(myVoid -> LOG.info(
+						this.serviceUtils.createAvgLogStatement(startAll, "Prepared Bitfinex Hourly Data Time:")));
 	}
 
-	private void createBfDailyAvg() {
+	private Mono<Void> createBfDailyAvg() {
 		LocalDateTime startAll = LocalDateTime.now();
-		MyTimeFrame timeFrame = this.serviceUtils.createTimeFrame(BF_DAY_COL, QuoteBf.class, false);
-		SimpleDateFormat sdf = new SimpleDateFormat("dd.MM.yyyy");
 		Calendar now = Calendar.getInstance();
 		now.setTime(Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant()));
-		while (timeFrame.end().before(now)) {
-			Date start = new Date();
-			Query query = new Query();
-			query.addCriteria(
-					Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
-			// Bitfinex
-			Mono<Collection<QuoteBf>> collectBf = this.myMongoRepository.find(query, QuoteBf.class)
-					.timeout(Duration.ofSeconds(5L)).doOnError(ex -> LOG.warn("Bitfinex prepare day data failed", ex))
-					.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler)
-					.collectMultimap(quote -> quote.getPair(), quote -> quote)
-					.map(multimap -> multimap.keySet().stream()
-							.map(key -> makeBfQuoteDay(key, multimap, timeFrame.begin(), timeFrame.end()))
-							.collect(Collectors.toList()))
-					.flatMap(myList -> Mono
-							.just(myList.stream().flatMap(Collection::stream).collect(Collectors.toList())));
-			collectBf.filter(Predicate.not(Collection::isEmpty))
-					.flatMap(myColl -> this.myMongoRepository.insertAll(Mono.just(myColl), BF_DAY_COL)
-							.subscribeOn(mongoScheduler).timeout(Duration.ofSeconds(5L))
-							.doOnError(ex -> LOG.warn("Bitfinex prepare day data failed", ex))
-							.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler).collectList())
-					.subscribeOn(this.mongoScheduler).block();
-
-			timeFrame.begin().add(Calendar.DAY_OF_YEAR, 1);
-			timeFrame.end().add(Calendar.DAY_OF_YEAR, 1);
-			LOG.info("Prepared Bitfinex Day Data for: " + sdf.format(timeFrame.begin().getTime()) + " Time: "
-					+ (new Date().getTime() - start.getTime()) + "ms");
-		}
-		LOG.info(this.serviceUtils.createAvgLogStatement(startAll, "Prepared Bitfinex Daily Data Time:"));
-	}
-
-	private Collection<QuoteBf> makeBfQuoteHour(String key, Map<String, Collection<QuoteBf>> multimap, Calendar begin,
-			Calendar end) {
-		List<Calendar> hours = this.serviceUtils.createDayHours(begin);
-		List<QuoteBf> hourQuotes = new LinkedList<QuoteBf>();
-		for (int i = 0; i < 24; i++) {
-			QuoteBf quoteBf = new QuoteBf(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
-					BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, "");
-			quoteBf.setCreatedAt(hours.get(i).getTime());
-			final int x = i;
-			long count = multimap.get(key).stream().filter(quote -> {
-				return quote.getCreatedAt().after(hours.get(x).getTime())
-						&& quote.getCreatedAt().before(hours.get(x + 1).getTime());
-			}).count();
-			if (count > 2) {
-				QuoteBf hourQuote = multimap.get(key).stream().filter(quote -> {
-					return quote.getCreatedAt().after(hours.get(x).getTime())
-							&& quote.getCreatedAt().before(hours.get(x + 1).getTime());
-				}).reduce(quoteBf, (q1, q2) -> avgBfQuote(q1, q2, count));
-				hourQuote.setPair(key);
-				hourQuotes.add(hourQuote);
-			}
-		}
-		return hourQuotes;
+		return this.serviceUtils.createTimeFrame(BF_DAY_COL, QuoteBf.class, false)
+				.flatMap(myTimeFrame -> this.mongoRollupService.isEnabled()
+						? this.mongoRollupService.rollup(QuoteBf.class, BF_DAY_COL, true, true,
+								myTimeFrame.begin().getTime(), now.getTime())
+						: this.backfillEngine.backfill(BF_DAY_COL, QuoteBf.class, myTimeFrame, now,
+								myPartition -> this.createBfPartitionAvg(myPartition, BF_DAY_COL, true)).then())
+				.doOnError(ex -> LOG.warn("Bitfinex prepare day data failed", ex)).onErrorResume(ex -> Mono.empty())
+				.then().doOnSuccess(myVoid -> LOG.info(
+						this.serviceUtils.createAvgLogStatement(startAll, "Prepared Bitfinex Daily Data Time:")));
 	}
 
-	private Collection<QuoteBf> makeBfQuoteDay(String key, Map<String, Collection<QuoteBf>> multimap, Calendar begin,
-			Calendar end) {
-		List<QuoteBf> hourQuotes = new LinkedList<QuoteBf>();
-
-		QuoteBf quoteBf = new QuoteBf(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
-				BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, "");
-		quoteBf.setCreatedAt(begin.getTime());
-		long count = multimap.get(key).stream().filter(quote -> {
-			return quote.getCreatedAt().after(begin.getTime()) && quote.getCreatedAt().before(end.getTime());
-		}).count();
-		if (count > 2) {
-			QuoteBf hourQuote = multimap.get(key).stream().filter(quote -> {
-				return quote.getCreatedAt().after(begin.getTime()) && quote.getCreatedAt().before(end.getTime());
-			}).reduce(quoteBf, (q1, q2) -> avgBfQuote(q1, q2, count));
-			hourQuote.setPair(key);
-			hourQuotes.add(hourQuote);
-		}
-		return hourQuotes;
+	private Mono<Void> createBfPartitionAvg(BackfillEngine.Partition partition, String collection, boolean isDay) {
+		final MyTimeFrame timeFrame = partition.timeFrame();
+		final Query query = new Query();
+		query.addCriteria(
+				Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
+		query.addCriteria(Criteria.where(DtoUtils.PAIR).is(partition.pair()));
+		return this.myMongoRepository.find(query, QuoteBf.class).timeout(Duration.ofSeconds(5L)).collectList()
+				.map(myQuotes -> this.quoteAggregator.aggregate(myQuotes,
+						this.serviceUtils.createDayHours(timeFrame.begin()), timeFrame.begin(), timeFrame.end()))
+				.map(myResult -> isDay ? myResult.days() : myResult.hours())
+				.filter(Predicate.not(Collection::isEmpty))
+				.flatMap(myColl -> this.serviceUtils
+						.upsertRollups(myColl, collection, myQuote -> Optional.of(myQuote.getPair()))
+						.timeout(Duration.ofSeconds(5L)))
+				.subscribeOn(this.mongoScheduler);
 	}
 
-	private QuoteBf avgBfQuote(QuoteBf q1, QuoteBf q2, long count) {
-		QuoteBf myQuote = new QuoteBf(this.serviceUtils.avgHourValue(q1.getMid(), q2.getMid(), count),
-				this.serviceUtils.avgHourValue(q1.getBid(), q2.getBid(), count),
-				this.serviceUtils.avgHourValue(q1.getAsk(), q2.getAsk(), count),
-				this.serviceUtils.avgHourValue(q1.getLast_price(), q2.getLast_price(), count),
-				this.serviceUtils.avgHourValue(q1.getLow(), q2.getLow(), count),
-				this.serviceUtils.avgHourValue(q1.getHigh(), q2.getHigh(), count),
-				this.serviceUtils.avgHourValue(q1.getVolume(), q2.getVolume(), count), q1.getTimestamp());
-		myQuote.setCreatedAt(q1.getCreatedAt());
-		return myQuote;
+	private static QuoteBf createQuoteBf(String pair, Date createdAt, BigDecimal[] values) {
+		QuoteBf quoteBf = new QuoteBf(values[0], values[1], values[2], values[3], values[4], values[5], values[6], "");
+		quoteBf.setPair(pair);
+		quoteBf.setCreatedAt(createdAt);
+		return quoteBf;
 	}
 }
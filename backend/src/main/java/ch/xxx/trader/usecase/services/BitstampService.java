@@ -16,7 +16,6 @@
 package ch.xxx.trader.usecase.services;
 
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -24,51 +23,80 @@ import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import ch.xxx.trader.domain.common.MongoUtils;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+import ch.xxx.trader.domain.model.entity.Candle;
 import ch.xxx.trader.domain.model.entity.MyMongoRepository;
 import ch.xxx.trader.domain.model.entity.QuoteBs;
 import ch.xxx.trader.domain.services.MyOrderBookClient;
+import ch.xxx.trader.usecase.common.Downsampler;
 import ch.xxx.trader.usecase.common.DtoUtils;
+import ch.xxx.trader.usecase.common.FieldSums;
+import ch.xxx.trader.usecase.common.OrderbookDepth;
+import ch.xxx.trader.usecase.common.QuoteAggregator;
 import ch.xxx.trader.usecase.mappers.ReportMapper;
 import ch.xxx.trader.usecase.services.ServiceUtils.MyTimeFrame;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 @Service
 public class BitstampService {
 	private static final Logger LOG = LoggerFactory.getLogger(BitstampService.class);
 	public static final String BS_HOUR_COL = "quoteBsHour";
 	public static final String BS_DAY_COL = "quoteBsDay";
-	public static volatile boolean singleInstanceLock = false;
+	public static final String BS_AVG_JOB = "bitstamp_avg";
 	private final MyOrderBookClient orderBookClient;
 	private final ReportMapper reportMapper;
 	private final MyMongoRepository myMongoRepository;
+	private final QuoteWriteBuffer quoteWriteBuffer;
+	private final OrderbookCache orderbookCache;
+	private final LatestQuoteStore latestQuoteStore;
+	private final QuoteStreamService quoteStreamService;
+	private final MongoRollupService mongoRollupService;
+	private final BackfillEngine backfillEngine;
+	private final RollupJobService rollupJobService;
+	private final CandleService candleService;
+	private final TimeframeCache timeframeCache;
+	private final StreamingRollup<QuoteBs> streamingRollup;
 	private final ServiceUtils serviceUtils;
-	private final Scheduler mongoScheduler = Schedulers.newBoundedElastic(5, 10, "mongoImport", 10);
-	@Value("${single.instance.deployment:false}")
-	private boolean singleInstanceDeployment;
+	private final QuoteAggregator<QuoteBs> quoteAggregator = new QuoteAggregator<QuoteBs>(
+			List.of(QuoteBs::getHigh, QuoteBs::getLast, QuoteBs::getBid, QuoteBs::getVwap, QuoteBs::getVolume,
+					QuoteBs::getLow, QuoteBs::getAsk, QuoteBs::getOpen),
+			QuoteBs::getPair, BitstampService::createQuoteBs,
+			FieldSums.fixedPoint(QuoteAggregator.EXCHANGE_SCALE));
+	private final Scheduler mongoScheduler;
 
 	public BitstampService(MyOrderBookClient orderBookClient, MyMongoRepository myMongoRepository,
-			ServiceUtils serviceUtils, ReportMapper reportMapper) {
+			ServiceUtils serviceUtils, ReportMapper reportMapper, QuoteWriteBuffer quoteWriteBuffer,
+			OrderbookCache orderbookCache, LatestQuoteStore latestQuoteStore,
+			QuoteStreamService quoteStreamService, MongoRollupService mongoRollupService,
+			StreamingRollupService streamingRollupService, BackfillEngine backfillEngine,
+			RollupJobService rollupJobService, CandleService candleService, RollupExecutor rollupExecutor,
+			TimeframeCache timeframeCache) {
+		this.timeframeCache = timeframeCache;
+		this.mongoScheduler = rollupExecutor.scheduler();
+		this.candleService = candleService;
+		this.rollupJobService = rollupJobService;
+		this.backfillEngine = backfillEngine;
+		this.mongoRollupService = mongoRollupService;
+		this.streamingRollup = streamingRollupService.create(QuoteBs.class, this.quoteAggregator, true, BS_HOUR_COL,
+				BS_DAY_COL);
+		this.quoteWriteBuffer = quoteWriteBuffer;
+		this.orderbookCache = orderbookCache;
+		this.latestQuoteStore = latestQuoteStore;
+		this.quoteStreamService = quoteStreamService;
 		this.orderBookClient = orderBookClient;
 		this.reportMapper = reportMapper;
 		this.myMongoRepository = myMongoRepository;
@@ -76,20 +104,38 @@ public class BitstampService {
 	}
 
 	public Mono<QuoteBs> insertQuote(Mono<QuoteBs> quote) {
-		return this.myMongoRepository.insert(quote);
+		return this.quoteWriteBuffer.insert(quote, QuoteBs.class, Exchange.BITSTAMP)
+				.doOnNext(myQuote -> this.latestQuoteStore.update(Exchange.BITSTAMP, myQuote.getPair(), myQuote))
+				.flatMap(myQuote -> this.streamingRollup.add(myQuote).thenReturn(myQuote))
+				.flatMap(myQuote -> this.candleService.add(Exchange.BITSTAMP, myQuote.getPair(), myQuote.getCreatedAt(),
+						myQuote.getLast(), myQuote.getVolume()).thenReturn(myQuote));
 	}
 
-	public Mono<String> getOrderbook(String currpair) {
-		return this.orderBookClient.getOrderbookBitstamp(currpair);
+	public Mono<OrderbookDto> getOrderbook(String currpair, int depth, double tick) {
+		return this.orderbookCache.get(Exchange.BITSTAMP, currpair,
+				() -> this.orderBookClient.getOrderbookBitstamp(currpair))
+				.map(myOrderbook -> OrderbookDepth.limit(myOrderbook, depth, tick));
 	}
 
 	public Mono<QuoteBs> currentQuoteBtc(String pair) {
 		Query query = MongoUtils.buildCurrentQuery(Optional.of(pair));
-		return this.myMongoRepository.findOne(query, QuoteBs.class);
+		return this.latestQuoteStore.current(Exchange.BITSTAMP, pair,
+				() -> this.myMongoRepository.findOne(query, QuoteBs.class));
 	}
 
-	public Flux<QuoteBs> tfQuotesBtc(String timeFrame, String pair) {
-		return this.serviceUtils.tfQuotes(timeFrame, pair, QuoteBs.class, BS_HOUR_COL, BS_DAY_COL);		
+	public Flux<QuoteBs> quoteUpdates(String pair) {
+		return this.quoteStreamService.quotes(Exchange.BITSTAMP, pair, this.currentQuoteBtc(pair));
+	}
+
+	public Flux<QuoteBs> tfQuotesBtc(String timeFrame, String pair, int points) {
+		return this.timeframeCache
+				.get(Exchange.BITSTAMP, pair, timeFrame,
+						() -> this.serviceUtils.tfQuotes(timeFrame, pair, QuoteBs.class, BS_HOUR_COL, BS_DAY_COL))
+				.transform(Downsampler.lttb(points, QuoteBs::getCreatedAt, QuoteBs::getLast));
+	}
+
+	public Flux<Candle> candles(String timeFrame, String pair, String resolution) {
+		return this.candleService.candles(Exchange.BITSTAMP, pair, timeFrame, resolution);
 	}
 
 	public Mono<byte[]> pdfReport(String timeFrame, String pair) {
@@ -97,167 +143,81 @@ public class BitstampService {
 	}
 
 	public Mono<String> createBsAvg() {
-		Mono<String> result = Mono.empty();
-		if ((this.singleInstanceDeployment && !BitstampService.singleInstanceLock) || !this.singleInstanceDeployment) {
-			BitstampService.singleInstanceLock = true;
-			result = this.myMongoRepository.ensureIndex(BS_HOUR_COL, DtoUtils.CREATEDAT)
-					.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
-//					.doOnError(ex -> LOG.info("ensureIndex(" + BS_HOUR_COL + ") failed.", ex))
-					.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BS_HOUR_COL + ") failed.", ex))
-					.then(this.myMongoRepository.ensureIndex(BS_DAY_COL, DtoUtils.CREATEDAT)
-							.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
-//							.doOnError(ex -> LOG.info("ensureIndex(" + BS_DAY_COL + ") failed.", ex))
-							.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BS_DAY_COL + ") failed.", ex)))
-					.map(value -> this.createHourDayAvg()).timeout(Duration.ofHours(3L))
-					.onErrorContinue((ex, val) -> LOG.info("createBsAvg() failed.", ex))
-//					.doOnError(ex -> LOG.info("createBsAvg() failed.", ex))
-					.subscribeOn(this.mongoScheduler);
-		}
-		return result;
+		return this.rollupJobService.runExclusive(BS_AVG_JOB,
+				this.myMongoRepository.ensureIndex(BS_HOUR_COL, DtoUtils.CREATEDAT)
+						.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
+//						.doOnError(ex -> LOG.info("ensureIndex(" + BS_HOUR_COL + ") failed.", ex))
+						.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BS_HOUR_COL + ") failed.", ex))
+						.then(this.myMongoRepository.ensureIndex(BS_DAY_COL, DtoUtils.CREATEDAT)
+								.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
+//								.doOnError(ex -> LOG.info("ensureIndex(" + BS_DAY_COL + ") failed.", ex))
+								.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + BS_DAY_COL + ") failed.", ex)))
+						.flatMap(value -> this.createHourDayAvg()).timeout(Duration.ofHours(3L))
+						.onErrorContinue((ex, val) -> LOG.info("createBsAvg() failed.", ex))
+//						.doOnError(ex -> LOG.info("createBsAvg() failed.", ex))
+						.subscribeOn(this.mongoScheduler))
+				.doFinally(mySignal -> this.timeframeCache.invalidate(Exchange.BITSTAMP));
 	}
 
-	private String createHourDayAvg() {
+	private Mono<String> createHourDayAvg() {
 		LOG.info("createHourDayAvg()");
-		CompletableFuture<String> future1 = CompletableFuture.supplyAsync(() -> {
-			this.createBsHourlyAvg();
-			return "createBsHourlyAvg() Done.";
-		}, CompletableFuture.delayedExecutor(10, TimeUnit.SECONDS));
-		CompletableFuture<String> future2 = CompletableFuture.supplyAsync(() -> {
-			this.createBsDailyAvg();
-			return "createBsDailyAvg() Done.";
-		}, CompletableFuture.delayedExecutor(10, TimeUnit.SECONDS));
-		String combined = Stream.of(future1, future2).map(CompletableFuture::join).collect(Collectors.joining(" "));
-		LOG.info(combined);
-		return "done";
+		return Mono.when(this.createBsHourlyAvg(), this.createBsDailyAvg())
+				.doOnSuccess(myVoid -> LOG.info("createBsHourlyAvg() Done. createBsDailyAvg() Done."))
+				.thenReturn("done");
 	}
 
-	private void createBsHourlyAvg() {
+	private Mono<Void> createBsHourlyAvg() {
 		LocalDateTime startAll = LocalDateTime.now();
-		MyTimeFrame timeFrame = this.serviceUtils.createTimeFrame(BS_HOUR_COL, QuoteBs.class, true);
-		SimpleDateFormat sdf = new SimpleDateFormat("dd.MM.yyyy");
 		Calendar now = Calendar.getInstance();
 		now.setTime(Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant()));
-		while (timeFrame.end().before(now)) {
-			Date start = new Date();
-			Query query = new Query();
-			query.addCriteria(
-					Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
-			// Bitstamp
-			Mono<Collection<QuoteBs>> collectBs = this.myMongoRepository.find(query, QuoteBs.class)
-					.timeout(Duration.ofSeconds(5L)).doOnError(ex -> LOG.warn("Bitstamp prepare hour data failed", ex))
-					.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler)
-					.collectMultimap(quote -> quote.getPair(), quote -> quote)
-					.map(multimap -> multimap.keySet().stream()
-							.map(key -> makeBsQuoteHour(key, multimap, timeFrame.begin(), timeFrame.end()))
-							.collect(Collectors.toList()))
-					.flatMap(myList -> Mono
-							.just(myList.stream().flatMap(Collection::stream).collect(Collectors.toList())));
-			collectBs.filter(Predicate.not(Collection::isEmpty))
-					.flatMap(myColl -> this.myMongoRepository.insertAll(Mono.just(myColl), BS_HOUR_COL)
-							.timeout(Duration.ofSeconds(5L))
-							.doOnError(ex -> LOG.warn("Bitstamp prepare hour data failed", ex))
-							.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler).collectList())
-					.subscribeOn(this.mongoScheduler).block();
-
-			timeFrame.begin().add(Calendar.DAY_OF_YEAR, 1);
-			timeFrame.end().add(Calendar.DAY_OF_YEAR, 1);
-			LOG.info("Prepared Bitstamp Hour Data for: " + sdf.format(timeFrame.begin().getTime()) + " Time: "
-					+ (new Date().getTime() - start.getTime()) + "ms");
-		}
-		LOG.info(this.serviceUtils.createAvgLogStatement(startAll, "Prepared Bitstamp Hourly Data Time:"));
+		return this.serviceUtils.createTimeFrame(BS_HOUR_COL, QuoteBs.class, true)
+				.flatMap(myTimeFrame -> this.mongoRollupService.isEnabled()
+						? this.mongoRollupService.rollup(QuoteBs.class, BS_HOUR_COL, true, false,
+								myTimeFrame.begin().getTime(), now.getTime())
+						: this.backfillEngine.backfill(BS_HOUR_COL, QuoteBs.class, myTimeFrame, now,
+								myPartition -> this.createBsPartitionAvg(myPartition, BS_HOUR_COL, false)).then())
+				.doOnError(ex -> LOG.warn("Bitstamp prepare hour data failed", ex)).onErrorResume(ex -> Mono.empty())
+				.then().doOnSuccess(myVoid -> LOG.info(
+						this.serviceUtils.createAvgLogStatement(startAll, "Prepared Bitstamp Hourly Data Time:")));
 	}
 
-	private void createBsDailyAvg() {
+	private Mono<Void> createBsDailyAvg() {
 		LocalDateTime startAll = LocalDateTime.now();
-		MyTimeFrame timeFrame = this.serviceUtils.createTimeFrame(BS_DAY_COL, QuoteBs.class, false);
-		SimpleDateFormat sdf = new SimpleDateFormat("dd.MM.yyyy");
 		Calendar now = Calendar.getInstance();
 		now.setTime(Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant()));
-		while (timeFrame.end().before(now)) {
-			Date start = new Date();
-			Query query = new Query();
-			query.addCriteria(
-					Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
-			// Bitstamp
-			Mono<Collection<QuoteBs>> collectBs = this.myMongoRepository.find(query, QuoteBs.class)
-					.timeout(Duration.ofSeconds(5L)).doOnError(ex -> LOG.warn("Bitstamp prepare day data failed", ex))
-					.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler)
-					.collectMultimap(quote -> quote.getPair(), quote -> quote)
-					.map(multimap -> multimap.keySet().stream()
-							.map(key -> makeBsQuoteDay(key, multimap, timeFrame.begin(), timeFrame.end()))
-							.collect(Collectors.toList()))
-					.flatMap(myList -> Mono
-							.just(myList.stream().flatMap(Collection::stream).collect(Collectors.toList())));
-			collectBs.filter(Predicate.not(Collection::isEmpty))
-					.flatMap(myColl -> this.myMongoRepository.insertAll(Mono.just(myColl), BS_DAY_COL)
-							.timeout(Duration.ofSeconds(5L))
-							.doOnError(ex -> LOG.warn("Bitstamp prepare hour data failed", ex))
-							.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler).collectList())
-					.subscribeOn(this.mongoScheduler).block();
-
-			timeFrame.begin().add(Calendar.DAY_OF_YEAR, 1);
-			timeFrame.end().add(Calendar.DAY_OF_YEAR, 1);
-			LOG.info("Prepared Bitstamp Day Data for: " + sdf.format(timeFrame.begin().getTime()) + " Time: "
-					+ (new Date().getTime() - start.getTime()) + "ms");
-		}
-		LOG.info(this.serviceUtils.createAvgLogStatement(startAll, "Prepared Bitstamp Daily Data Time:"));
-	}
-
-	private Collection<QuoteBs> makeBsQuoteDay(String key, Map<String, Collection<QuoteBs>> multimap, Calendar begin,
-			Calendar end) {
-		List<QuoteBs> hourQuotes = new LinkedList<QuoteBs>();
-
-		QuoteBs quoteBs = new QuoteBs(BigDecimal.ZERO, BigDecimal.ZERO, begin.getTime(), BigDecimal.ZERO,
-				BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
-		quoteBs.setCreatedAt(begin.getTime());
-		long count = multimap.get(key).stream().filter(quote -> {
-			return quote.getCreatedAt().after(begin.getTime()) && quote.getCreatedAt().before(end.getTime());
-		}).count();
-		if (count > 2) {
-			QuoteBs hourQuote = multimap.get(key).stream().filter(quote -> {
-				return quote.getCreatedAt().after(begin.getTime()) && quote.getCreatedAt().before(end.getTime());
-			}).reduce(quoteBs, (q1, q2) -> avgBsQuote(q1, q2, count));
-			hourQuote.setPair(key);
-			hourQuotes.add(hourQuote);
-		}
-		return hourQuotes;
+		return this.serviceUtils.createTimeFrame(BS_DAY_COL, QuoteBs.class, false)
+				.flatMap(myTimeFrame -> this.mongoRollupService.isEnabled()
+						? this.mongoRollupService.rollup(QuoteBs.class, BS_DAY_COL, true, true,
+								myTimeFrame.begin().getTime(), now.getTime())
+						: this.backfillEngine.backfill(BS_DAY_COL, QuoteBs.class, myTimeFrame, now,
+								myPartition -> this.createBsPartitionAvg(myPartition, BS_DAY_COL, true)).then())
+				.doOnError(ex -> LOG.warn("Bitstamp prepare day data failed", ex)).onErrorResume(ex -> Mono.empty())
+				.then().doOnSuccess(myVoid -> LOG.info(
+						this.serviceUtils.createAvgLogStatement(startAll, "Prepared Bitstamp Daily Data Time:")));
 	}
 
-	private Collection<QuoteBs> makeBsQuoteHour(String key, Map<String, Collection<QuoteBs>> multimap, Calendar begin,
-			Calendar end) {
-		List<Calendar> hours = this.serviceUtils.createDayHours(begin);
-		List<QuoteBs> hourQuotes = new LinkedList<QuoteBs>();
-		for (int i = 0; i < 24; i++) {
-			QuoteBs quoteBs = new QuoteBs(BigDecimal.ZERO, BigDecimal.ZERO, hours.get(i).getTime(), BigDecimal.ZERO,
-					BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
-			quoteBs.setCreatedAt(hours.get(i).getTime());
-			final int x = i;
-			long count = multimap.get(key).stream().filter(quote -> {
-				return quote.getCreatedAt().after(hours.get(x).getTime())
-						&& quote.getCreatedAt().before(hours.get(x + 1).getTime());
-			}).count();
-			if (count > 2) {
-				QuoteBs hourQuote = multimap.get(key).stream().filter(quote -> {
-					return quote.getCreatedAt().after(hours.get(x).getTime())
-							&& quote.getCreatedAt().before(hours.get(x + 1).getTime());
-				}).reduce(quoteBs, (q1, q2) -> avgBsQuote(q1, q2, count));
-				hourQuote.setPair(key);
-				hourQuotes.add(hourQuote);
-			}
-		}
-		return hourQuotes;
+	private Mono<Void> createBsPartitionAvg(BackfillEngine.Partition partition, String collection, boolean isDay) {
+		final MyTimeFrame timeFrame = partition.timeFrame();
+		final Query query = new Query();
+		query.addCriteria(
+				Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
+		query.addCriteria(Criteria.where(DtoUtils.PAIR).is(partition.pair()));
+		return this.myMongoRepository.find(query, QuoteBs.class).timeout(Duration.ofSeconds(5L)).collectList()
+				.map(myQuotes -> this.quoteAggregator.aggregate(myQuotes,
+						this.serviceUtils.createDayHours(timeFrame.begin()), timeFrame.begin(), timeFrame.end()))
+				.map(myResult -> isDay ? myResult.days() : myResult.hours())
+				.filter(Predicate.not(Collection::isEmpty))
+				.flatMap(myColl -> this.serviceUtils
+						.upsertRollups(myColl, collection, myQuote -> Optional.of(myQuote.getPair()))
+						.timeout(Duration.ofSeconds(5L)))
+				.subscribeOn(this.mongoScheduler);
 	}
 
-	private QuoteBs avgBsQuote(QuoteBs q1, QuoteBs q2, long count) {
-		QuoteBs myQuote = new QuoteBs(this.serviceUtils.avgHourValue(q1.getHigh(), q2.getHigh(), count),
-				this.serviceUtils.avgHourValue(q1.getLast(), q2.getLast(), count), q1.getTimestamp(),
-				this.serviceUtils.avgHourValue(q1.getBid(), q2.getBid(), count),
-				this.serviceUtils.avgHourValue(q1.getVwap(), q2.getVwap(), count),
-				this.serviceUtils.avgHourValue(q1.getVolume(), q2.getVolume(), count),
-				this.serviceUtils.avgHourValue(q1.getLow(), q2.getLow(), count),
-				this.serviceUtils.avgHourValue(q1.getAsk(), q2.getAsk(), count),
-				this.serviceUtils.avgHourValue(q1.getOpen(), q2.getOpen(), count));
-		myQuote.setCreatedAt(q1.getCreatedAt());
-		return myQuote;
+	private static QuoteBs createQuoteBs(String pair, Date createdAt, BigDecimal[] values) {
+		QuoteBs quoteBs = new QuoteBs(values[0], values[1], createdAt, values[2], values[3], values[4], values[5],
+				values[6], values[7]);
+		quoteBs.setPair(pair);
+		quoteBs.setCreatedAt(createdAt);
+		return quoteBs;
 	}
 }
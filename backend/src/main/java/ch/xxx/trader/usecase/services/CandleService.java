@@ -0,0 +1,140 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.common.MongoUtils;
+import ch.xxx.trader.domain.common.MongoUtils.TimeFrame;
+import ch.xxx.trader.domain.model.dto.CandleResolution;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.Candle;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.usecase.common.DtoUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Updates the 1m/5m/1h/1d OHLCV candles of a pair with every inserted quote.
+ * The candles are upserted with $setOnInsert(open), $max(high), $min(low),
+ * $set(close, volume) and $inc(count) on pair and candle begin, the candles of
+ * an exchange and resolution are stored in the collection
+ * candle[Exchange][Resolution], e.g. candleBitstamp1h.
+ */
+@Service
+public class CandleService {
+	private static final Logger LOG = LoggerFactory.getLogger(CandleService.class);
+	private final MyMongoRepository myMongoRepository;
+	private final Map<String, Mono<String>> uniqueIndexes = new ConcurrentHashMap<>();
+	@Value("${candles.enabled:false}")
+	private boolean enabled;
+
+	public CandleService(MyMongoRepository myMongoRepository) {
+		this.myMongoRepository = myMongoRepository;
+	}
+
+	public Mono<Void> add(Exchange exchange, String pair, Date createdAt, BigDecimal price, BigDecimal volume) {
+		if (!this.enabled || price == null || price.signum() == 0) {
+			return Mono.empty();
+		}
+		return Flux.fromArray(CandleResolution.values()).flatMap(myResolution -> {
+			final String collectionName = collectionName(exchange, myResolution);
+			return this.uniqueIndex(collectionName).then(this.myMongoRepository.upsertUpdate(
+					candleQuery(pair, candleBegin(myResolution, createdAt)), candleUpdate(price, volume),
+					collectionName));
+		}).doOnError(ex -> LOG.warn(String.format("Candle update of %s %s failed.", exchange.getValue(), pair), ex))
+				.onErrorResume(ex -> Mono.empty()).then();
+	}
+
+	public Flux<Candle> candles(Exchange exchange, String pair, String timeFrame, String resolution) {
+		final TimeFrame myTimeFrame = MongoUtils.KEY_TO_TIMEFRAME.get(timeFrame);
+		if (myTimeFrame == null || myTimeFrame == TimeFrame.CURRENT) {
+			return Flux.empty();
+		}
+		final CandleResolution myResolution = Stream.of(CandleResolution.values())
+				.filter(myValue -> myValue.getValue().equals(resolution)).findFirst()
+				.orElse(defaultResolution(myTimeFrame));
+		return this.myMongoRepository.find(MongoUtils.buildTimeFrameQuery(Optional.of(pair), myTimeFrame),
+				Candle.class, collectionName(exchange, myResolution));
+	}
+
+	static CandleResolution defaultResolution(TimeFrame timeFrame) {
+		return switch (timeFrame) {
+		case CURRENT, TODAY -> CandleResolution.M5;
+		case SEVENDAYS -> CandleResolution.H1;
+		default -> CandleResolution.D1;
+		};
+	}
+
+	static String collectionName(Exchange exchange, CandleResolution resolution) {
+		return "candle" + exchange.getValue().substring(0, 1).toUpperCase() + exchange.getValue().substring(1)
+				+ resolution.getValue();
+	}
+
+	static Date candleBegin(CandleResolution resolution, Date createdAt) {
+		final ZonedDateTime time = createdAt.toInstant().atZone(ZoneId.systemDefault());
+		final ZonedDateTime begin = switch (resolution) {
+		case M1 -> time.truncatedTo(ChronoUnit.MINUTES);
+		case M5 -> time.truncatedTo(ChronoUnit.MINUTES).withMinute(time.getMinute() / 5 * 5);
+		case H1 -> time.truncatedTo(ChronoUnit.HOURS);
+		case D1 -> time.truncatedTo(ChronoUnit.DAYS);
+		};
+		return Date.from(begin.toInstant());
+	}
+
+	static Query candleQuery(String pair, Date begin) {
+		return new Query(Criteria.where(DtoUtils.PAIR).is(pair).and(DtoUtils.CREATEDAT).is(begin));
+	}
+
+	static Update candleUpdate(BigDecimal price, BigDecimal volume) {
+		// Decimal128 values, $max and $min would compare BigDecimal strings lexicographically
+		final Decimal128 myPrice = toDecimal128(price);
+		final Update update = new Update().setOnInsert("open", myPrice).max("high", myPrice).min("low", myPrice)
+				.set("close", myPrice).inc("count", 1);
+		return volume == null ? update : update.set("volume", toDecimal128(volume));
+	}
+
+	private static Decimal128 toDecimal128(BigDecimal value) {
+		return new Decimal128(value.round(MathContext.DECIMAL128));
+	}
+
+	private Mono<String> uniqueIndex(String collectionName) {
+		return this.uniqueIndexes.computeIfAbsent(collectionName,
+				myCollectionName -> this.myMongoRepository
+						.ensureUniqueIndex(myCollectionName, DtoUtils.PAIR, DtoUtils.CREATEDAT).onErrorResume(ex -> {
+							LOG.warn(String.format("ensureUniqueIndex(%s) failed.", myCollectionName), ex);
+							return Mono.empty();
+						}).cache());
+	}
+}
@@ -0,0 +1,239 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.common.MongoUtils;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+import ch.xxx.trader.domain.model.entity.QuoteCbCompact;
+import ch.xxx.trader.domain.model.entity.QuoteCbSmall;
+import ch.xxx.trader.domain.model.entity.QuoteCbSymbol;
+import ch.xxx.trader.usecase.common.DtoUtils;
+import ch.xxx.trader.usecase.common.FieldSums;
+import ch.xxx.trader.usecase.common.QuoteCbFields;
+import ch.xxx.trader.usecase.services.ServiceUtils.MyTimeFrame;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stores the Coinbase quotes as QuoteCbCompact documents. The symbol ids are
+ * assigned once per QuoteCb field and persisted in the QuoteCbSymbol
+ * collection, new fields get the next free id.
+ */
+@Service
+public class CoinbaseCompactStore {
+	private static final Logger LOG = LoggerFactory.getLogger(CoinbaseCompactStore.class);
+	public static final String CB_COMPACT_COL = "quoteCbCompact";
+	public static final String CB_COMPACT_HOUR_COL = "quoteCbCompactHour";
+	public static final String CB_COMPACT_DAY_COL = "quoteCbCompactDay";
+	private static final int MIGRATION_BATCH_SIZE = 500;
+	private final MyMongoRepository myMongoRepository;
+	private final QuoteWriteBuffer quoteWriteBuffer;
+	private final ServiceUtils serviceUtils;
+	private final Mono<SymbolDictionary> dictionary;
+
+	record SymbolDictionary(int[] fieldSymbolIds, int[] symbolFieldIndexes, Map<String, Integer> symbolIds) {
+		int symbolId(String symbol) {
+			return this.symbolIds.getOrDefault(symbol, -1);
+		}
+
+		int fieldIndex(int symbolId) {
+			return symbolId < this.symbolFieldIndexes.length ? this.symbolFieldIndexes[symbolId] : -1;
+		}
+	}
+
+	public CoinbaseCompactStore(MyMongoRepository myMongoRepository, QuoteWriteBuffer quoteWriteBuffer,
+			ServiceUtils serviceUtils) {
+		this.myMongoRepository = myMongoRepository;
+		this.quoteWriteBuffer = quoteWriteBuffer;
+		this.serviceUtils = serviceUtils;
+		// caches the loaded dictionary forever, unlike cache() an error is not cached and the next
+		// subscriber loads the dictionary again
+		this.dictionary = this.loadDictionary().cacheInvalidateIf(myDictionary -> false);
+	}
+
+	public Mono<QuoteCb> insertQuote(QuoteCb quote) {
+		return this.dictionary.map(myDictionary -> toCompact(quote, myDictionary))
+				.flatMap(myCompact -> this.quoteWriteBuffer.insert(Mono.just(myCompact), QuoteCbCompact.class))
+				.thenReturn(quote);
+	}
+
+	public Flux<QuoteCbSmall> findSmallQuotes(Query query, String collectionName) {
+		return this.dictionary.flatMapMany(myDictionary -> {
+			final int usd = myDictionary.symbolId("usd");
+			final int eur = myDictionary.symbolId("eur");
+			final int eth = myDictionary.symbolId("eth");
+			final int ltc = myDictionary.symbolId("ltc");
+			return this.myMongoRepository.find(query, QuoteCbCompact.class, collectionName)
+					.map(myQuote -> new QuoteCbSmall(myQuote.getCreatedAt(), myQuote.getRate(usd),
+							myQuote.getRate(eur), myQuote.getRate(eth), myQuote.getRate(ltc)));
+		});
+	}
+
+	public Mono<QuoteCb> currentQuote() {
+		Query query = MongoUtils.buildCurrentQuery(Optional.empty());
+		return this.dictionary.flatMap(myDictionary -> this.myMongoRepository
+				.findOne(query, QuoteCbCompact.class, CB_COMPACT_COL).map(myQuote -> toQuoteCb(myQuote, myDictionary)));
+	}
+
+	public void processTimeFrame(MyTimeFrame timeFrame, boolean isDay, Duration timeout) {
+		Date start = new Date();
+		final SimpleDateFormat sdf = new SimpleDateFormat("dd.MM.yyyy");
+		final var logFailed = String.format("Coinbase prepare compact %s data failed", isDay ? "day" : "hour");
+		Query query = new Query();
+		query.addCriteria(
+				Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
+		List<QuoteCbCompact> quotes = this.myMongoRepository.find(query, QuoteCbCompact.class, CB_COMPACT_COL)
+				.timeout(timeout).onErrorResume(ex -> {
+					LOG.warn(logFailed, ex);
+					return Mono.empty();
+				}).collectList().block();
+		List<Calendar> periods = isDay ? List.of(timeFrame.begin(), timeFrame.end())
+				: this.serviceUtils.createDayHours(timeFrame.begin());
+		List<QuoteCbCompact> result = new LinkedList<>();
+		for (int i = 0; i + 1 < periods.size(); i++) {
+			this.avgPeriod(quotes, periods.get(i).getTime(), periods.get(i + 1).getTime())
+					.ifPresent(result::add);
+		}
+		if (!result.isEmpty()) {
+			this.serviceUtils
+					.upsertRollups(result, isDay ? CB_COMPACT_DAY_COL : CB_COMPACT_HOUR_COL, myQuote -> Optional.empty())
+					.timeout(timeout).onErrorResume(ex -> {
+						LOG.warn(logFailed, ex);
+						return Mono.empty();
+					}).block();
+		}
+		LOG.info(String.format("Prepared Coinbase compact %s Data for: ", isDay ? "Day" : "Hour")
+				+ sdf.format(timeFrame.begin().getTime()) + " Time: " + (new Date().getTime() - start.getTime())
+				+ "ms");
+	}
+
+	public Mono<Long> migrate(String sourceCollectionName, String targetCollectionName) {
+		// migrates backwards from the oldest compact quote, new quotes may already be written by the dual write
+		Query firstQuery = new Query().with(Sort.by(DtoUtils.CREATEDAT).ascending());
+		return this.dictionary.flatMap(myDictionary -> this.myMongoRepository
+				.findOne(firstQuery, QuoteCbCompact.class, targetCollectionName).map(QuoteCbCompact::getCreatedAt)
+				.switchIfEmpty(Mono.fromSupplier(Date::new)).flatMap(myFirstDate -> {
+					Query query = new Query().addCriteria(Criteria.where(DtoUtils.CREATEDAT).lt(myFirstDate))
+							.with(Sort.by(DtoUtils.CREATEDAT).descending());
+					return this.myMongoRepository.find(query, QuoteCb.class, sourceCollectionName)
+							.map(myQuote -> toCompact(myQuote, myDictionary)).buffer(MIGRATION_BATCH_SIZE)
+							.concatMap(myBatch -> this.myMongoRepository
+									.insertAll(Mono.just(myBatch), targetCollectionName).count())
+							.reduce(0L, Long::sum);
+				}))
+				.doOnNext(myCount -> LOG.info("Migrated {} quotes from {} to {}", myCount, sourceCollectionName,
+						targetCollectionName));
+	}
+
+	Optional<QuoteCbCompact> avgPeriod(List<QuoteCbCompact> quotes, Date begin, Date end) {
+		List<QuoteCbCompact> periodQuotes = quotes.stream().filter(
+				myQuote -> myQuote.getCreatedAt().after(begin) && myQuote.getCreatedAt().before(end)).toList();
+		if (periodQuotes.size() <= 2) {
+			return Optional.empty();
+		}
+		final long count = periodQuotes.size();
+		final int symbols = periodQuotes.stream()
+				.mapToInt(myQuote -> Arrays.stream(myQuote.getSymbolIds()).max().orElse(-1)).max().orElse(-1) + 1;
+		final FieldSums sums = FieldSums.kahan().apply(symbols);
+		periodQuotes.forEach(myQuote -> IntStream.range(0, myQuote.size())
+				.forEach(myPosition -> sums.add(myQuote.getSymbolIds()[myPosition], myQuote.getRateAt(myPosition))));
+		final BigDecimal[] averages = IntStream.range(0, symbols)
+				.mapToObj(mySymbolId -> sums.average(mySymbolId, count)).toArray(BigDecimal[]::new);
+		int[] symbolIds = IntStream.range(0, symbols).filter(mySymbolId -> averages[mySymbolId].signum() != 0)
+				.toArray();
+		BigDecimal[] rates = Arrays.stream(symbolIds).mapToObj(mySymbolId -> averages[mySymbolId])
+				.toArray(BigDecimal[]::new);
+		return Optional.of(new QuoteCbCompact(begin, symbolIds, rates));
+	}
+
+	static QuoteCbCompact toCompact(QuoteCb quote, SymbolDictionary dictionary) {
+		int[] fieldIndexes = IntStream.range(0, QuoteCbFields.NAMES.size()).filter(myIndex -> {
+			BigDecimal value = QuoteCbFields.get(quote, myIndex);
+			return value != null && value.signum() != 0;
+		}).boxed().sorted((myIndex1, myIndex2) -> Integer.compare(dictionary.fieldSymbolIds()[myIndex1],
+				dictionary.fieldSymbolIds()[myIndex2])).mapToInt(Integer::intValue).toArray();
+		int[] symbolIds = Arrays.stream(fieldIndexes).map(myIndex -> dictionary.fieldSymbolIds()[myIndex]).toArray();
+		BigDecimal[] rates = Arrays.stream(fieldIndexes).mapToObj(myIndex -> QuoteCbFields.get(quote, myIndex))
+				.toArray(BigDecimal[]::new);
+		return new QuoteCbCompact(quote.getCreatedAt(), symbolIds, rates);
+	}
+
+	static QuoteCb toQuoteCb(QuoteCbCompact compact, SymbolDictionary dictionary) {
+		QuoteCb quote = new QuoteCb();
+		quote.setCreatedAt(compact.getCreatedAt());
+		for (int i = 0; i < compact.size(); i++) {
+			int fieldIndex = dictionary.fieldIndex(compact.getSymbolIds()[i]);
+			if (fieldIndex >= 0) {
+				QuoteCbFields.set(quote, fieldIndex, compact.getRateAt(i));
+			}
+		}
+		return quote;
+	}
+
+	static SymbolDictionary createDictionary(Map<String, Integer> symbolIds) {
+		int[] fieldSymbolIds = QuoteCbFields.NAMES.stream().mapToInt(symbolIds::get).toArray();
+		int[] symbolFieldIndexes = new int[symbolIds.values().stream().mapToInt(Integer::intValue).max().orElse(-1)
+				+ 1];
+		Arrays.fill(symbolFieldIndexes, -1);
+		IntStream.range(0, fieldSymbolIds.length)
+				.forEach(myIndex -> symbolFieldIndexes[fieldSymbolIds[myIndex]] = myIndex);
+		return new SymbolDictionary(fieldSymbolIds, symbolFieldIndexes, Map.copyOf(symbolIds));
+	}
+
+	private Mono<SymbolDictionary> loadDictionary() {
+		return Mono.defer(() -> this.myMongoRepository.find(new Query(), QuoteCbSymbol.class).collectList())
+				.flatMap(mySymbols -> {
+					final Map<String, Integer> symbolIds = new HashMap<>();
+					mySymbols.forEach(mySymbol -> symbolIds.put(mySymbol.getSymbol(), mySymbol.getId()));
+					int nextId = mySymbols.stream().mapToInt(QuoteCbSymbol::getId).max().orElse(-1) + 1;
+					final List<QuoteCbSymbol> newSymbols = new ArrayList<>();
+					for (String name : QuoteCbFields.NAMES) {
+						if (!symbolIds.containsKey(name)) {
+							newSymbols.add(new QuoteCbSymbol(nextId, name));
+							symbolIds.put(name, nextId++);
+						}
+					}
+					return (newSymbols.isEmpty() ? Mono.just(0L)
+							: this.myMongoRepository.insertAll(Mono.just(newSymbols),
+									this.myMongoRepository.getCollectionName(QuoteCbSymbol.class)).count())
+							.map(myCount -> createDictionary(symbolIds));
+				})
+				// a concurrent instance may have stored the same ids, the retry reads them
+				.retry(1L);
+	}
+}
@@ -16,7 +16,6 @@
 package ch.xxx.trader.usecase.services;
 
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -25,52 +24,84 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import ch.xxx.trader.domain.common.MongoUtils;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+import ch.xxx.trader.domain.model.entity.Candle;
 import ch.xxx.trader.domain.model.entity.MyMongoRepository;
 import ch.xxx.trader.domain.model.entity.QuoteIb;
 import ch.xxx.trader.domain.services.MyOrderBookClient;
+import ch.xxx.trader.usecase.common.Downsampler;
 import ch.xxx.trader.usecase.common.DtoUtils;
+import ch.xxx.trader.usecase.common.FieldSums;
+import ch.xxx.trader.usecase.common.OrderbookDepth;
+import ch.xxx.trader.usecase.common.QuoteAggregator;
 import ch.xxx.trader.usecase.mappers.ReportMapper;
 import ch.xxx.trader.usecase.services.ServiceUtils.MyTimeFrame;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 @Service
 public class ItbitService {
 	private static final Logger LOG = LoggerFactory.getLogger(ItbitService.class);
 	public static final String IB_HOUR_COL = "quoteIbHour";
 	public static final String IB_DAY_COL = "quoteIbDay";
-	public static volatile boolean singleInstanceLock = false;
+	public static final String IB_AVG_JOB = "itbit_avg";
 	private final Map<String, String> currpairs = new HashMap<String, String>();
 	private final MyOrderBookClient orderBookClient;
 	private final ReportMapper reportMapper;
 	private final MyMongoRepository myMongoRepository;
+	private final QuoteWriteBuffer quoteWriteBuffer;
+	private final OrderbookCache orderbookCache;
+	private final LatestQuoteStore latestQuoteStore;
+	private final QuoteStreamService quoteStreamService;
+	private final MongoRollupService mongoRollupService;
+	private final BackfillEngine backfillEngine;
+	private final RollupJobService rollupJobService;
+	private final CandleService candleService;
+	private final TimeframeCache timeframeCache;
+	private final StreamingRollup<QuoteIb> streamingRollup;
 	private final ServiceUtils serviceUtils;
-	private final Scheduler mongoScheduler = Schedulers.newBoundedElastic(5, 10, "mongoImport", 10);
-	@Value("${single.instance.deployment:false}")
-	private boolean singleInstanceDeployment;
+	private final QuoteAggregator<QuoteIb> quoteAggregator = new QuoteAggregator<QuoteIb>(
+			List.of(QuoteIb::getBid, QuoteIb::getBidAmt, QuoteIb::getAsk, QuoteIb::getAskAmt, QuoteIb::getLastPrice,
+					QuoteIb::getStAmt, QuoteIb::getVolume24h, QuoteIb::getVolumeToday, QuoteIb::getHigh24h,
+					QuoteIb::getLow24h, QuoteIb::getOpenToday, QuoteIb::getHighToday, QuoteIb::getLowToday,
+					QuoteIb::getVwapToday, QuoteIb::getVwap24h),
+			QuoteIb::getPair, ItbitService::createQuoteIb,
+			FieldSums.fixedPoint(QuoteAggregator.EXCHANGE_SCALE));
+	private final Scheduler mongoScheduler;
 
 	public ItbitService(MyOrderBookClient orderBookClient, ReportMapper reportMapper,
-			MyMongoRepository myMongoRepository, ServiceUtils serviceUtils) {
+			MyMongoRepository myMongoRepository, ServiceUtils serviceUtils, QuoteWriteBuffer quoteWriteBuffer,
+			OrderbookCache orderbookCache, LatestQuoteStore latestQuoteStore,
+			QuoteStreamService quoteStreamService, MongoRollupService mongoRollupService,
+			StreamingRollupService streamingRollupService, BackfillEngine backfillEngine,
+			RollupJobService rollupJobService, CandleService candleService, RollupExecutor rollupExecutor,
+			TimeframeCache timeframeCache) {
+		this.timeframeCache = timeframeCache;
+		this.mongoScheduler = rollupExecutor.scheduler();
+		this.candleService = candleService;
+		this.rollupJobService = rollupJobService;
+		this.backfillEngine = backfillEngine;
+		this.mongoRollupService = mongoRollupService;
+		this.streamingRollup = streamingRollupService.create(QuoteIb.class, this.quoteAggregator, true, IB_HOUR_COL,
+				IB_DAY_COL);
+		this.quoteWriteBuffer = quoteWriteBuffer;
+		this.orderbookCache = orderbookCache;
+		this.latestQuoteStore = latestQuoteStore;
+		this.quoteStreamService = quoteStreamService;
 		this.orderBookClient = orderBookClient;
 		this.reportMapper = reportMapper;
 		this.myMongoRepository = myMongoRepository;
@@ -79,24 +110,42 @@ public class ItbitService {
 		this.currpairs.put("btceur", "XBTEUR");
 	}
 
-	public Mono<String> getOrderbook(String currpair) {
+	public Mono<OrderbookDto> getOrderbook(String currpair, int depth, double tick) {
 		final String newCurrpair = currpair.equals("btcusd") ? "XBTUSD" : currpair;
-		return this.orderBookClient.getOrderbookItbit(newCurrpair);
+		return this.orderbookCache.get(Exchange.ITBIT, newCurrpair,
+				() -> this.orderBookClient.getOrderbookItbit(newCurrpair))
+				.map(myOrderbook -> OrderbookDepth.limit(myOrderbook, depth, tick));
 	}
 
 	public Mono<QuoteIb> insertQuote(Mono<QuoteIb> quote) {
-		return this.myMongoRepository.insert(quote);
+		return this.quoteWriteBuffer.insert(quote, QuoteIb.class, Exchange.ITBIT)
+				.doOnNext(myQuote -> this.latestQuoteStore.update(Exchange.ITBIT, myQuote.getPair(), myQuote))
+				.flatMap(myQuote -> this.streamingRollup.add(myQuote).thenReturn(myQuote))
+				.flatMap(myQuote -> this.candleService.add(Exchange.ITBIT, myQuote.getPair(), myQuote.getCreatedAt(),
+						myQuote.getLastPrice(), myQuote.getVolume24h()).thenReturn(myQuote));
 	}
 
 	public Mono<QuoteIb> currentQuote(String pair) {
 		final String newPair = this.currpairs.get(pair);
 		Query query = MongoUtils.buildCurrentQuery(Optional.of(newPair));
-		return this.myMongoRepository.findOne(query, QuoteIb.class);
+		return this.latestQuoteStore.current(Exchange.ITBIT, newPair,
+				() -> this.myMongoRepository.findOne(query, QuoteIb.class));
 	}
 
-	public Flux<QuoteIb> tfQuotes(String timeFrame, String pair) {
+	public Flux<QuoteIb> quoteUpdates(String pair) {
+		return this.quoteStreamService.quotes(Exchange.ITBIT, this.currpairs.get(pair), this.currentQuote(pair));
+	}
+
+	public Flux<QuoteIb> tfQuotes(String timeFrame, String pair, int points) {
 		final String newPair = this.currpairs.get(pair);
-		return this.serviceUtils.tfQuotes(timeFrame, newPair, QuoteIb.class, IB_HOUR_COL, IB_DAY_COL);		
+		return this.timeframeCache
+				.get(Exchange.ITBIT, newPair, timeFrame,
+						() -> this.serviceUtils.tfQuotes(timeFrame, newPair, QuoteIb.class, IB_HOUR_COL, IB_DAY_COL))
+				.transform(Downsampler.lttb(points, QuoteIb::getCreatedAt, QuoteIb::getLastPrice));
+	}
+
+	public Flux<Candle> candles(String timeFrame, String pair, String resolution) {
+		return this.candleService.candles(Exchange.ITBIT, this.currpairs.get(pair), timeFrame, resolution);
 	}
 
 	public Mono<byte[]> pdfReport(String timeFrame, String pair) {
@@ -104,177 +153,82 @@ public class ItbitService {
 		return this.serviceUtils.pdfReport(timeFrame, newPair, QuoteIb.class, IB_HOUR_COL, IB_DAY_COL, this.reportMapper::convert);		
 	}
 
-	private void createIbHourlyAvg() {
+	private Mono<Void> createIbHourlyAvg() {
 		LocalDateTime startAll = LocalDateTime.now();
-		MyTimeFrame timeFrame = this.serviceUtils.createTimeFrame(IB_HOUR_COL, QuoteIb.class, true);
-		SimpleDateFormat sdf = new SimpleDateFormat("dd.MM.yyyy");
 		Calendar now = Calendar.getInstance();
 		now.setTime(Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant()));
-		while (timeFrame.end().before(now)) {
-			Date start = new Date();
-			Query query = new Query();
-			query.addCriteria(
-					Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
-			// Itbit
-			Mono<Collection<QuoteIb>> collectIb = this.myMongoRepository.find(query, QuoteIb.class)
-					.timeout(Duration.ofSeconds(5L)).doOnError(ex -> LOG.warn("Itbit prepare hour data failed", ex))
-					.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler)
-					.collectMultimap(quote -> quote.getPair(), quote -> quote)
-					.map(multimap -> multimap.keySet().stream()
-							.map(key -> makeIbQuoteHour(key, multimap, timeFrame.begin(), timeFrame.end()))
-							.collect(Collectors.toList()))
-					.flatMap(myList -> Mono
-							.just(myList.stream().flatMap(Collection::stream).collect(Collectors.toList())));
-			collectIb.filter(Predicate.not(Collection::isEmpty))
-					.flatMap(myColl -> this.myMongoRepository.insertAll(Mono.just(myColl), IB_HOUR_COL)
-							.timeout(Duration.ofSeconds(5L))
-							.doOnError(ex -> LOG.warn("Itbit prepare hour data failed", ex))
-							.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler).collectList())
-					.subscribeOn(this.mongoScheduler).block();
-
-			timeFrame.begin().add(Calendar.DAY_OF_YEAR, 1);
-			timeFrame.end().add(Calendar.DAY_OF_YEAR, 1);
-			LOG.info("Prepared Itbit Hour Data for: " + sdf.format(timeFrame.begin().getTime()) + " Time: "
-					+ (new Date().getTime() - start.getTime()) + "ms");
-		}
-		LOG.info(this.serviceUtils.createAvgLogStatement(startAll, "Prepared Itbit Hourly Data Time:"));
+		return this.serviceUtils.createTimeFrame(IB_HOUR_COL, QuoteIb.class, true)
+				.flatMap(myTimeFrame -> this.mongoRollupService.isEnabled()
+						? this.mongoRollupService.rollup(QuoteIb.class, IB_HOUR_COL, true, false,
+								myTimeFrame.begin().getTime(), now.getTime())
+						: this.backfillEngine.backfill(IB_HOUR_COL, QuoteIb.class, myTimeFrame, now,
+								myPartition -> this.createIbPartitionAvg(myPartition, IB_HOUR_COL, false)).then())
+				.doOnError(ex -> LOG.warn("Itbit prepare hour data failed", ex)).onErrorResume(ex -> Mono.empty())
+				.then().doOnSuccess(myVoid -> LOG.info(
+						this.serviceUtils.createAvgLogStatement(startAll, "Prepared Itbit Hourly Data Time:")));
 	}
 
-	private void createIbDailyAvg() {
+	private Mono<Void> createIbDailyAvg() {
 		LocalDateTime startAll = LocalDateTime.now();
-		MyTimeFrame timeFrame = this.serviceUtils.createTimeFrame(IB_DAY_COL, QuoteIb.class, false);
-		SimpleDateFormat sdf = new SimpleDateFormat("dd.MM.yyyy");
 		Calendar now = Calendar.getInstance();
 		now.setTime(Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant()));
-		while (timeFrame.end().before(now)) {
-			Date start = new Date();
-			Query query = new Query();
-			query.addCriteria(
-					Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
-			// Itbit
-			Mono<Collection<QuoteIb>> collectIb = this.myMongoRepository.find(query, QuoteIb.class)
-					.timeout(Duration.ofSeconds(5L)).doOnError(ex -> LOG.warn("Itbit prepare day data failed", ex))
-					.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler)
-					.collectMultimap(quote -> quote.getPair(), quote -> quote)
-					.map(multimap -> multimap.keySet().stream()
-							.map(key -> makeIbQuoteDay(key, multimap, timeFrame.begin(), timeFrame.end()))
-							.collect(Collectors.toList()))
-					.flatMap(myList -> Mono
-							.just(myList.stream().flatMap(Collection::stream).collect(Collectors.toList())));
-			collectIb.filter(Predicate.not(Collection::isEmpty))
-					.flatMap(myColl -> this.myMongoRepository.insertAll(Mono.just(myColl), IB_DAY_COL)
-							.timeout(Duration.ofSeconds(5L))
-							.doOnError(ex -> LOG.warn("Itbit prepare day data failed", ex))
-							.onErrorResume(ex -> Mono.empty()).subscribeOn(this.mongoScheduler).collectList())
-					.block();
-
-			timeFrame.begin().add(Calendar.DAY_OF_YEAR, 1);
-			timeFrame.end().add(Calendar.DAY_OF_YEAR, 1);
-			LOG.info("Prepared Itbit Day Data for: " + sdf.format(timeFrame.begin().getTime()) + " Time: "
-					+ (new Date().getTime() - start.getTime()) + "ms");
-		}
-		LOG.info(this.serviceUtils.createAvgLogStatement(startAll, "Prepared Itbit Daily Data Time:"));
+		return this.serviceUtils.createTimeFrame(IB_DAY_COL, QuoteIb.class, false)
+				.flatMap(myTimeFrame -> this.mongoRollupService.isEnabled()
+						? this.mongoRollupService.rollup(QuoteIb.class, IB_DAY_COL, true, true,
+								myTimeFrame.begin().getTime(), now.getTime())
+						: this.backfillEngine.backfill(IB_DAY_COL, QuoteIb.class, myTimeFrame, now,
+								myPartition -> this.createIbPartitionAvg(myPartition, IB_DAY_COL, true)).then())
+				.doOnError(ex -> LOG.warn("Itbit prepare day data failed", ex)).onErrorResume(ex -> Mono.empty())
+				.then().doOnSuccess(myVoid -> LOG.info(
+						this.serviceUtils.createAvgLogStatement(startAll, "Prepared Itbit Daily Data Time:")));
 	}
 
 	public Mono<String> createIbAvg() {
-		Mono<String> result = Mono.empty();
-		if ((this.singleInstanceDeployment && !ItbitService.singleInstanceLock) || !this.singleInstanceDeployment) {
-			ItbitService.singleInstanceLock = true;
-			result = this.myMongoRepository.ensureIndex(IB_HOUR_COL, DtoUtils.CREATEDAT)
-					.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
-					.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + IB_HOUR_COL + ") failed.", ex))
-//					.doOnError(ex -> LOG.info("ensureIndex(" + IB_HOUR_COL + ") failed.", ex))
-					.then(this.myMongoRepository.ensureIndex(IB_DAY_COL, DtoUtils.CREATEDAT)
-							.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
-//							.doOnError(ex -> LOG.info("ensureIndex(" + IB_DAY_COL + ") failed.", ex))
-							.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + IB_DAY_COL + ") failed.", ex)))
-					.map(value -> this.createHourDayAvg()).timeout(Duration.ofHours(2L))
-//					.doOnError(ex -> LOG.info("createIbAvg() failed.", ex))					
-					.onErrorContinue((ex, val) -> LOG.info("createIbAvg() failed.", ex))
-					.subscribeOn(this.mongoScheduler);			
-		}
-		return result;
+		return this.rollupJobService.runExclusive(IB_AVG_JOB,
+				this.myMongoRepository.ensureIndex(IB_HOUR_COL, DtoUtils.CREATEDAT)
+						.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
+						.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + IB_HOUR_COL + ") failed.", ex))
+//						.doOnError(ex -> LOG.info("ensureIndex(" + IB_HOUR_COL + ") failed.", ex))
+						.then(this.myMongoRepository.ensureIndex(IB_DAY_COL, DtoUtils.CREATEDAT)
+								.subscribeOn(this.mongoScheduler).timeout(Duration.ofMinutes(5L))
+//								.doOnError(ex -> LOG.info("ensureIndex(" + IB_DAY_COL + ") failed.", ex))
+								.onErrorContinue((ex, val) -> LOG.info("ensureIndex(" + IB_DAY_COL + ") failed.", ex)))
+						.flatMap(value -> this.createHourDayAvg()).timeout(Duration.ofHours(2L))
+//						.doOnError(ex -> LOG.info("createIbAvg() failed.", ex))
+						.onErrorContinue((ex, val) -> LOG.info("createIbAvg() failed.", ex))
+						.subscribeOn(this.mongoScheduler))
+				.doFinally(mySignal -> this.timeframeCache.invalidate(Exchange.ITBIT));
 	}
 
-	private String createHourDayAvg() {
+	private Mono<String> createHourDayAvg() {
 		LOG.info("createHourDayAvg()");
-		CompletableFuture<String> future5 = CompletableFuture.supplyAsync(() -> {
-			this.createIbHourlyAvg();
-			return "createIbHourlyAvg() Done.";
-		}, CompletableFuture.delayedExecutor(10, TimeUnit.SECONDS));
-		CompletableFuture<String> future6 = CompletableFuture.supplyAsync(() -> {
-			this.createIbDailyAvg();
-			return "createIbDailyAvg() Done.";
-		}, CompletableFuture.delayedExecutor(10, TimeUnit.SECONDS));
-		String combined = Stream.of(future5, future6).map(CompletableFuture::join).collect(Collectors.joining(" "));
-		LOG.info(combined);
-		return "done";
-	}
-
-	private Collection<QuoteIb> makeIbQuoteHour(String key, Map<String, Collection<QuoteIb>> multimap, Calendar begin,
-			Calendar end) {
-		List<Calendar> hours = this.serviceUtils.createDayHours(begin);
-		List<QuoteIb> hourQuotes = new LinkedList<QuoteIb>();
-		for (int i = 0; i < 24; i++) {
-			QuoteIb quoteIb = new QuoteIb(key, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
-					BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
-					BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
-					BigDecimal.ZERO, new Date());
-			quoteIb.setCreatedAt(hours.get(i).getTime());
-			final int x = i;
-			long count = multimap.get(key).stream().filter(quote -> {
-				return quote.getCreatedAt().after(hours.get(x).getTime())
-						&& quote.getCreatedAt().before(hours.get(x + 1).getTime());
-			}).count();
-			if (count > 2) {
-				QuoteIb hourQuote = multimap.get(key).stream().filter(quote -> {
-					return quote.getCreatedAt().after(hours.get(x).getTime())
-							&& quote.getCreatedAt().before(hours.get(x + 1).getTime());
-				}).reduce(quoteIb, (q1, q2) -> avgIbQuote(q1, q2, count));
-				// hourQuote.setPair(key);
-				hourQuotes.add(hourQuote);
-			}
-		}
-		return hourQuotes;
+		return Mono.when(this.createIbHourlyAvg(), this.createIbDailyAvg())
+				.doOnSuccess(myVoid -> LOG.info("createIbHourlyAvg() Done. createIbDailyAvg() Done."))
+				.thenReturn("done");
 	}
 
-	private Collection<QuoteIb> makeIbQuoteDay(String key, Map<String, Collection<QuoteIb>> multimap, Calendar begin,
-			Calendar end) {
-		List<QuoteIb> hourQuotes = new LinkedList<QuoteIb>();
-		QuoteIb quoteIb = new QuoteIb(key, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
-				BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
-				BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, new Date());
-		quoteIb.setCreatedAt(begin.getTime());
-		long count = multimap.get(key).stream().filter(quote -> {
-			return quote.getCreatedAt().after(begin.getTime()) && quote.getCreatedAt().before(end.getTime());
-		}).count();
-		if (count > 2) {
-			QuoteIb hourQuote = multimap.get(key).stream().filter(quote -> {
-				return quote.getCreatedAt().after(begin.getTime()) && quote.getCreatedAt().before(end.getTime());
-			}).reduce(quoteIb, (q1, q2) -> avgIbQuote(q1, q2, count));
-			// hourQuote.setPair(key);
-			hourQuotes.add(hourQuote);
-		}
-		return hourQuotes;
+	private Mono<Void> createIbPartitionAvg(BackfillEngine.Partition partition, String collection, boolean isDay) {
+		final MyTimeFrame timeFrame = partition.timeFrame();
+		final Query query = new Query();
+		query.addCriteria(
+				Criteria.where(DtoUtils.CREATEDAT).gt(timeFrame.begin().getTime()).lt(timeFrame.end().getTime()));
+		query.addCriteria(Criteria.where(DtoUtils.PAIR).is(partition.pair()));
+		return this.myMongoRepository.find(query, QuoteIb.class).timeout(Duration.ofSeconds(5L)).collectList()
+				.map(myQuotes -> this.quoteAggregator.aggregate(myQuotes,
+						this.serviceUtils.createDayHours(timeFrame.begin()), timeFrame.begin(), timeFrame.end()))
+				.map(myResult -> isDay ? myResult.days() : myResult.hours())
+				.filter(Predicate.not(Collection::isEmpty))
+				.flatMap(myColl -> this.serviceUtils
+						.upsertRollups(myColl, collection, myQuote -> Optional.of(myQuote.getPair()))
+						.timeout(Duration.ofSeconds(5L)))
+				.subscribeOn(this.mongoScheduler);
 	}
 
-	private QuoteIb avgIbQuote(QuoteIb q1, QuoteIb q2, long count) {
-		QuoteIb myQuote = new QuoteIb(q1.getPair(), this.serviceUtils.avgHourValue(q1.getBid(), q2.getBid(), count),
-				this.serviceUtils.avgHourValue(q1.getBidAmt(), q2.getBidAmt(), count),
-				this.serviceUtils.avgHourValue(q1.getAsk(), q2.getAsk(), count),
-				this.serviceUtils.avgHourValue(q1.getAskAmt(), q2.getAskAmt(), count),
-				this.serviceUtils.avgHourValue(q1.getLastPrice(), q2.getLastPrice(), count),
-				this.serviceUtils.avgHourValue(q1.getStAmt(), q2.getStAmt(), count),
-				this.serviceUtils.avgHourValue(q1.getVolume24h(), q2.getVolume24h(), count),
-				this.serviceUtils.avgHourValue(q1.getVolumeToday(), q2.getVolumeToday(), count),
-				this.serviceUtils.avgHourValue(q1.getHigh24h(), q2.getHigh24h(), count),
-				this.serviceUtils.avgHourValue(q1.getLow24h(), q2.getLow24h(), count),
-				this.serviceUtils.avgHourValue(q1.getOpenToday(), q2.getOpenToday(), count),
-				this.serviceUtils.avgHourValue(q1.getHighToday(), q2.getHighToday(), count),
-				this.serviceUtils.avgHourValue(q1.getLowToday(), q2.getLowToday(), count),
-				this.serviceUtils.avgHourValue(q1.getVwapToday(), q2.getVwapToday(), count),
-				this.serviceUtils.avgHourValue(q1.getVwap24h(), q2.getVwap24h(), count), q1.getServerTimeUTC());
-		myQuote.setCreatedAt(q1.getCreatedAt());
-		return myQuote;
+	private static QuoteIb createQuoteIb(String pair, Date createdAt, BigDecimal[] values) {
+		QuoteIb quoteIb = new QuoteIb(pair, values[0], values[1], values[2], values[3], values[4], values[5],
+				values[6], values[7], values[8], values[9], values[10], values[11], values[12], values[13], values[14],
+				new Date());
+		quoteIb.setCreatedAt(createdAt);
+		return quoteIb;
 	}
 }
@@ -0,0 +1,117 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.Quote;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Keeps the latest quote per exchange and pair. The quotes are updated on
+ * insert, an entry that has not been updated or checked for
+ * quote.latest.refresh-interval is reloaded from the database(the quotes can
+ * be inserted by another instance). A pair without quotes is cached as an
+ * entry without quote for the refresh-interval too. Concurrent reloads of a
+ * pair share one query. New quotes are published to the subscribers of updates(...).
+ */
+@Service
+public class LatestQuoteStore {
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final Map<String, Mono<Quote>> inFlight = new ConcurrentHashMap<>();
+	private final Sinks.Many<Update> updates = Sinks.many().multicast().directBestEffort();
+	@Value("${quote.latest.refresh-interval:PT90S}")
+	private Duration refreshInterval = Duration.ofSeconds(90L);
+
+	private record Entry(Quote quote, long checkedAt) {
+	}
+
+	private record Update(String key, Quote quote) {
+	}
+
+	public void update(Exchange exchange, String pair, Quote quote) {
+		final String key = this.key(exchange, pair);
+		final Entry oldEntry = this.entries.get(key);
+		final Entry entry = this.entries.merge(key, new Entry(quote, System.nanoTime()),
+				(myOld, myNew) -> myOld.quote() == null || isNewer(myNew.quote(), myOld.quote()) ? myNew
+						: new Entry(myOld.quote(), myNew.checkedAt()));
+		if (entry.quote() == quote && (oldEntry == null || oldEntry.quote() != quote)) {
+			synchronized (this.updates) {
+				this.updates.tryEmitNext(new Update(key, quote));
+			}
+		}
+	}
+
+	/**
+	 * Hot flux of the new quotes of an exchange and pair. Subscribers without
+	 * demand miss quotes, onBackpressureLatest() conflates them to the latest.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Quote> Flux<T> updates(Exchange exchange, String pair) {
+		final String key = this.key(exchange, pair);
+		return this.updates.asFlux().filter(myUpdate -> key.equals(myUpdate.key()))
+				.map(myUpdate -> (T) myUpdate.quote());
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Quote> Mono<T> current(Exchange exchange, String pair, Supplier<Mono<T>> loader) {
+		return Mono.defer(() -> {
+			final String key = this.key(exchange, pair);
+			final Entry entry = this.entries.get(key);
+			if (entry != null && System.nanoTime() - entry.checkedAt() <= this.refreshInterval.toNanos()) {
+				return Mono.justOrEmpty((T) entry.quote());
+			}
+			return this.load(exchange, pair, key, loader).map(myQuote -> (T) myQuote);
+		});
+	}
+
+	public static long ageSeconds(Quote quote) {
+		return quote.getCreatedAt() == null ? 0L
+				: Math.max(0L, Duration.ofMillis(new Date().getTime() - quote.getCreatedAt().getTime()).toSeconds());
+	}
+
+	private <T extends Quote> Mono<Quote> load(Exchange exchange, String pair, String key, Supplier<Mono<T>> loader) {
+		return this.inFlight.computeIfAbsent(key,
+				myKey -> Mono.defer(loader).cast(Quote.class).doOnNext(myQuote -> this.update(exchange, pair, myQuote))
+						.map(myQuote -> this.entries.get(myKey).quote())
+						.switchIfEmpty(Mono.defer(() -> Mono.justOrEmpty(this.checked(myKey).quote())))
+						.doFinally(mySignal -> this.inFlight.remove(myKey)).cache());
+	}
+
+	private Entry checked(String key) {
+		return this.entries.compute(key,
+				(myKey, myOld) -> new Entry(myOld == null ? null : myOld.quote(), System.nanoTime()));
+	}
+
+	private String key(Exchange exchange, String pair) {
+		return exchange.getValue() + "/" + pair;
+	}
+
+	private static boolean isNewer(Quote quote, Quote other) {
+		return quote.getCreatedAt() == null || other.getCreatedAt() == null
+				|| !quote.getCreatedAt().before(other.getCreatedAt());
+	}
+}
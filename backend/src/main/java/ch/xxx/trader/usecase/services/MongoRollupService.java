@@ -0,0 +1,166 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsDontMatch;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsMatch;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.model.entity.BackfillCheckpoint;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.Quote;
+import ch.xxx.trader.usecase.common.DtoUtils;
+import ch.xxx.trader.usecase.common.QuoteAggregator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates the hour and day averages with a $match/$group/$merge pipeline in
+ * MongoDb(5.0 or newer for $dateTrunc). The quotes are grouped per pair and
+ * hour/day of the system time zone, the averages are merged into the target
+ * collection on pair and createdAt. The time range is processed in chunks of
+ * rollup.mongo.chunk-days days. After each chunk the backfill checkpoints of
+ * the collection and of the pairs of the chunk are advanced to the chunk end,
+ * a switch back to the backfill continues there.
+ */
+@Service
+public class MongoRollupService {
+	private static final Logger LOG = LoggerFactory.getLogger(MongoRollupService.class);
+	static final String COUNT = "count";
+	private final MyMongoRepository myMongoRepository;
+	private final BackfillEngine backfillEngine;
+	@Value("${rollup.mongo.enabled:false}")
+	private boolean enabled;
+	@Value("${rollup.mongo.chunk-days:7}")
+	private int chunkDays;
+	@Value("${rollup.mongo.max-time:PT10M}")
+	private Duration maxTime;
+
+	public MongoRollupService(MyMongoRepository myMongoRepository, BackfillEngine backfillEngine) {
+		this.myMongoRepository = myMongoRepository;
+		this.backfillEngine = backfillEngine;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public Mono<Void> rollup(Class<? extends Quote> quoteClass, String targetCollection, boolean byPair,
+			boolean isDay, Date begin, Date end) {
+		final String sourceCollection = this.myMongoRepository.getCollectionName(quoteClass);
+		final List<String> valueFields = valueFields(quoteClass);
+		final String[] mergeOn = byPair ? new String[] { DtoUtils.PAIR, DtoUtils.CREATEDAT }
+				: new String[] { DtoUtils.CREATEDAT };
+		final Date rollupBegin = ServiceUtils.bucketBegin(begin, isDay);
+		return this.myMongoRepository.ensureUniqueIndex(targetCollection, mergeOn)
+				.thenMany(Flux.fromIterable(this.createChunks(rollupBegin, end)))
+				.concatMap(myChunk -> {
+					final long start = System.currentTimeMillis();
+					return this.myMongoRepository
+							.aggregateToCollection(createAggregation(valueFields, byPair, isDay, myChunk[0],
+									myChunk[1], targetCollection, ZoneId.systemDefault(), this.maxTime),
+									sourceCollection)
+							.doOnSuccess(myVoid -> LOG.info("Rolled up {} {} - {} into {}: {}ms", sourceCollection,
+									myChunk[0], myChunk[1], targetCollection, System.currentTimeMillis() - start))
+							.then(this.advanceCheckpoints(quoteClass, targetCollection, byPair, myChunk));
+				}).then();
+	}
+
+	private Mono<Void> advanceCheckpoints(Class<? extends Quote> quoteClass, String targetCollection, boolean byPair,
+			Date[] chunk) {
+		final Flux<String> chunkPairs = byPair ? this.myMongoRepository.findDistinct(
+				new Query(Criteria.where(DtoUtils.CREATEDAT).gt(chunk[0]).lt(chunk[1])), DtoUtils.PAIR, quoteClass,
+				String.class) : Flux.empty();
+		return this.myMongoRepository
+				.find(new Query(Criteria.where("collection").is(targetCollection)), BackfillCheckpoint.class)
+				.map(BackfillCheckpoint::getPair).concatWith(chunkPairs).distinct()
+				.concatMap(myPair -> this.backfillEngine.advanceCheckpoint(targetCollection, myPair, chunk[1]))
+				.then();
+	}
+
+	private List<Date[]> createChunks(Date begin, Date end) {
+		final List<Date[]> chunks = new ArrayList<>();
+		Date chunkBegin = begin;
+		while (chunkBegin.before(end)) {
+			final Date chunkEnd = Date.from(chunkBegin.toInstant().atZone(ZoneId.systemDefault())
+					.plusDays(Math.max(1, this.chunkDays)).toInstant());
+			chunks.add(new Date[] { chunkBegin, chunkEnd.before(end) ? chunkEnd : end });
+			chunkBegin = chunkEnd;
+		}
+		return chunks;
+	}
+
+	static List<String> valueFields(Class<? extends Quote> quoteClass) {
+		return Stream.of(quoteClass.getDeclaredFields())
+				.filter(myField -> BigDecimal.class.equals(myField.getType())
+						&& !Modifier.isStatic(myField.getModifiers()))
+				.map(Field::getName).toList();
+	}
+
+	static Aggregation createAggregation(List<String> valueFields, boolean byPair, boolean isDay, Date begin,
+			Date end, String targetCollection, ZoneId zoneId, Duration maxTime) {
+		final Document groupId = new Document();
+		if (byPair) {
+			groupId.append(DtoUtils.PAIR, "$" + DtoUtils.PAIR);
+		}
+		groupId.append(DtoUtils.CREATEDAT, new Document("$dateTrunc", new Document("date", "$" + DtoUtils.CREATEDAT)
+				.append("unit", isDay ? "day" : "hour").append("timezone", zoneId.getId())));
+		final Document group = new Document("_id", groupId).append(COUNT, new Document("$sum", 1));
+		final Document project = new Document("_id", 0);
+		if (byPair) {
+			project.append(DtoUtils.PAIR, "$_id." + DtoUtils.PAIR);
+		}
+		project.append(DtoUtils.CREATEDAT, "$_id." + DtoUtils.CREATEDAT);
+		valueFields.forEach(myField -> {
+			// missing values count as zero like in the QuoteAggregator
+			group.append(myField, new Document("$avg", new Document("$convert", new Document("input", "$" + myField)
+					.append("to", "decimal").append("onError", null).append("onNull", 0))));
+			project.append(myField, new Document("$round", List.of("$" + myField, QuoteAggregator.SCALE)));
+		});
+		final List<AggregationOperation> operations = List.of(
+				Aggregation.match(Criteria.where(DtoUtils.CREATEDAT).gt(begin).lt(end)),
+				myContext -> new Document("$group", group),
+				Aggregation.match(Criteria.where(COUNT).gte(QuoteAggregator.MIN_QUOTES)),
+				myContext -> new Document("$project", project),
+				MergeOperation.builder().intoCollection(targetCollection)
+						.on(byPair ? new String[] { DtoUtils.PAIR, DtoUtils.CREATEDAT }
+								: new String[] { DtoUtils.CREATEDAT })
+						.whenMatched(WhenDocumentsMatch.replaceDocument())
+						.whenDocumentsDontMatch(WhenDocumentsDontMatch.insertNewDocument()).build());
+		return Aggregation.newAggregation(operations)
+				.withOptions(AggregationOptions.builder().allowDiskUse(true).maxTime(maxTime).build());
+	}
+}
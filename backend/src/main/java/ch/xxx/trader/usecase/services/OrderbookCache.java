@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches the orderbooks per exchange and pair for orderbook.cache.ttl.
+ * Concurrent misses share one upstream request. Entries up to
+ * orderbook.cache.stale-while-revalidate older than the ttl are returned
+ * while they are refreshed in the background.
+ */
+@Service
+public class OrderbookCache {
+	private static final Logger LOG = LoggerFactory.getLogger(OrderbookCache.class);
+	private final MeterRegistry meterRegistry;
+	private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+	private final Map<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+	@Value("${orderbook.cache.ttl:PT2S}")
+	private Duration ttl = Duration.ofSeconds(2L);
+	@Value("${orderbook.cache.stale-while-revalidate:PT30S}")
+	private Duration staleWhileRevalidate = Duration.ofSeconds(30L);
+
+	private record CacheEntry(Object value, long loadedAt) {
+	}
+
+	public OrderbookCache(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> Mono<T> get(Exchange exchange, String pair, Supplier<Mono<T>> loader) {
+		return Mono.defer(() -> {
+			final String key = exchange.getValue() + "/" + pair;
+			final CacheEntry entry = this.entries.get(key);
+			final long age = entry == null ? Long.MAX_VALUE : System.nanoTime() - entry.loadedAt();
+			if (age <= this.ttl.toNanos()) {
+				this.count(exchange, "hit");
+				return Mono.just((T) entry.value());
+			}
+			if (age <= this.ttl.plus(this.staleWhileRevalidate).toNanos()) {
+				this.count(exchange, "stale");
+				this.load(key, loader).subscribe(myValue -> {
+				}, ex -> LOG.warn(String.format("Orderbook refresh of %s failed", key), ex));
+				return Mono.just((T) entry.value());
+			}
+			this.count(exchange, "miss");
+			return this.load(key, loader).map(myValue -> (T) myValue);
+		});
+	}
+
+	private <T> Mono<Object> load(String key, Supplier<Mono<T>> loader) {
+		return this.inFlight.computeIfAbsent(key,
+				myKey -> Mono.defer(loader).cast(Object.class)
+						.doOnNext(myValue -> this.entries.put(myKey, new CacheEntry(myValue, System.nanoTime())))
+						.doFinally(mySignal -> this.inFlight.remove(myKey)).cache());
+	}
+
+	private void count(Exchange exchange, String result) {
+		this.meterRegistry.counter("orderbook.cache.requests", "exchange", exchange.getValue(), "result", result)
+				.increment();
+	}
+}
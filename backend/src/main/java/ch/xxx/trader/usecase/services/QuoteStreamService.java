@@ -0,0 +1,92 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.Quote;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Pushes the quotes of the LatestQuoteStore as server sent events. A
+ * subscriber gets the current quote and then every new quote, quotes a slow
+ * subscriber can not take are conflated to the latest one. The current quote
+ * is checked every quote.stream.check-interval for quotes that were inserted
+ * by another instance(served by the LatestQuoteStore, one database query per
+ * pair and refresh interval). Heartbeat comments keep idle connections open
+ * and after quote.stream.max-duration the stream completes to let the client
+ * reconnect.
+ */
+@Service
+public class QuoteStreamService {
+	private final LatestQuoteStore latestQuoteStore;
+	private final Map<String, AtomicInteger> connections = new ConcurrentHashMap<>();
+	private final MeterRegistry meterRegistry;
+	@Value("${quote.stream.check-interval:PT30S}")
+	private Duration checkInterval = Duration.ofSeconds(30L);
+	@Value("${quote.stream.heartbeat:PT20S}")
+	private Duration heartbeat = Duration.ofSeconds(20L);
+	@Value("${quote.stream.max-duration:PT10M}")
+	private Duration maxDuration = Duration.ofMinutes(10L);
+
+	public QuoteStreamService(LatestQuoteStore latestQuoteStore, MeterRegistry meterRegistry) {
+		this.latestQuoteStore = latestQuoteStore;
+		this.meterRegistry = meterRegistry;
+	}
+
+	public <T extends Quote> Flux<T> quotes(Exchange exchange, String pair, Mono<T> currentQuote) {
+		return Flux.defer(() -> {
+			final AtomicLong lastCreatedAt = new AtomicLong(Long.MIN_VALUE);
+			Flux<T> currentQuotes = Flux.interval(Duration.ZERO, this.checkInterval).onBackpressureDrop()
+					.concatMap(myTick -> currentQuote.onErrorResume(ex -> Mono.empty()));
+			return Flux.merge(this.latestQuoteStore.<T>updates(exchange, pair), currentQuotes)
+					.filter(myQuote -> lastCreatedAt.getAndAccumulate(myQuote.getCreatedAt().getTime(),
+							Math::max) < myQuote.getCreatedAt().getTime());
+		}).onBackpressureLatest();
+	}
+
+	public Flux<ServerSentEvent<Object>> stream(Exchange exchange, Flux<? extends Quote> quotes) {
+		return this.stream(exchange.getValue(), this.events(exchange, quotes));
+	}
+
+	public Flux<ServerSentEvent<Object>> events(Exchange exchange, Flux<? extends Quote> quotes) {
+		return quotes.map(myQuote -> ServerSentEvent.<Object>builder(myQuote).event(exchange.getValue())
+				.id(Long.toString(myQuote.getCreatedAt().getTime())).build());
+	}
+
+	public Flux<ServerSentEvent<Object>> stream(String name, Flux<ServerSentEvent<Object>> events) {
+		final AtomicInteger connectionCount = this.connections.computeIfAbsent(name,
+				myName -> this.meterRegistry.gauge("quote.stream.connections", Tags.of("stream", myName),
+						new AtomicInteger()));
+		Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(this.heartbeat)
+				.map(myTick -> ServerSentEvent.builder().comment("heartbeat").build()).onBackpressureDrop();
+		return Flux.merge(1, events, heartbeats).take(this.maxDuration)
+				.doOnSubscribe(mySubscription -> connectionCount.incrementAndGet())
+				.doFinally(mySignal -> connectionCount.decrementAndGet());
+	}
+}
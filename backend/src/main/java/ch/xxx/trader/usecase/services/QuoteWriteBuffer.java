@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.common.IngestionRegistry;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Collects the quote inserts per collection and writes them with insertAll
+ * when ingestion.write.max-batch-size quotes are buffered or the window of the
+ * collection has passed. The window is ingestion.write.max-latency plus the
+ * offset span of the exchange pairs in the IngestionRegistry, so the quotes
+ * polled in one tick are written in one batch. An insert completes when the
+ * quote is buffered, failed flushes are logged.
+ */
+@Service
+public class QuoteWriteBuffer {
+	private static final Logger LOG = LoggerFactory.getLogger(QuoteWriteBuffer.class);
+	private final MyMongoRepository myMongoRepository;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, CollectionBuffer> buffers = new ConcurrentHashMap<>();
+	@Value("${ingestion.write.max-latency:PT1S}")
+	private Duration maxLatency = Duration.ofSeconds(1L);
+	@Value("${ingestion.write.max-batch-size:100}")
+	private int maxBatchSize = 100;
+	private volatile boolean closed = false;
+
+	private record CollectionBuffer(Sinks.Many<Object> sink, Mono<Void> completion) {
+	}
+
+	public QuoteWriteBuffer(MyMongoRepository myMongoRepository, MeterRegistry meterRegistry) {
+		this.myMongoRepository = myMongoRepository;
+		this.meterRegistry = meterRegistry;
+	}
+
+	public <T> Mono<T> insert(Mono<T> quote, Class<T> entityClass) {
+		return this.insert(quote, entityClass, Duration.ZERO);
+	}
+
+	public <T> Mono<T> insert(Mono<T> quote, Class<T> entityClass, Exchange exchange) {
+		return this.insert(quote, entityClass, IngestionRegistry.offsetSpan(exchange));
+	}
+
+	private <T> Mono<T> insert(Mono<T> quote, Class<T> entityClass, Duration offsetSpan) {
+		return quote.flatMap(myQuote -> this.write(myQuote, this.myMongoRepository.getCollectionName(entityClass),
+				offsetSpan));
+	}
+
+	@PreDestroy
+	public void flushAll() {
+		this.closed = true;
+		this.buffers.values().forEach(myBuffer -> {
+			synchronized (myBuffer) {
+				myBuffer.sink().tryEmitComplete();
+			}
+		});
+		Mono.when(this.buffers.values().stream().map(CollectionBuffer::completion).toList())
+				.timeout(Duration.ofSeconds(10L)).onErrorResume(ex -> {
+					LOG.warn("Flush of the quote write buffers on shutdown failed.", ex);
+					return Mono.empty();
+				}).block();
+	}
+
+	private <T> Mono<T> write(T quote, String collectionName, Duration offsetSpan) {
+		if (this.closed) {
+			return this.myMongoRepository.insert(Mono.just(quote));
+		}
+		CollectionBuffer buffer = this.buffers.computeIfAbsent(collectionName,
+				myName -> this.createBuffer(myName, this.maxLatency.plus(offsetSpan)));
+		Sinks.EmitResult emitResult;
+		synchronized (buffer) {
+			emitResult = buffer.sink().tryEmitNext(quote);
+		}
+		return emitResult.isFailure() ? this.myMongoRepository.insert(Mono.just(quote)) : Mono.just(quote);
+	}
+
+	private CollectionBuffer createBuffer(String collectionName, Duration window) {
+		Sinks.Many<Object> sink = Sinks.many().unicast().onBackpressureBuffer();
+		DistributionSummary batchSize = DistributionSummary.builder("ingestion.write.batch.size")
+				.tag("collection", collectionName).register(this.meterRegistry);
+		Timer flushTimer = Timer.builder("ingestion.write.flush.latency").tag("collection", collectionName)
+				.register(this.meterRegistry);
+		Mono<Void> completion = sink.asFlux().bufferTimeout(this.maxBatchSize, window)
+				.concatMap(myBatch -> this.flush(collectionName, myBatch, batchSize, flushTimer)).then().cache();
+		completion.subscribe();
+		return new CollectionBuffer(sink, completion);
+	}
+
+	private Mono<Void> flush(String collectionName, List<Object> batch, DistributionSummary batchSize,
+			Timer flushTimer) {
+		batchSize.record(batch.size());
+		final long start = System.nanoTime();
+		return this.myMongoRepository.<Object>insertAll(Mono.just(batch), collectionName).then()
+				.onErrorResume(ex -> {
+					LOG.warn(String.format("Insert of %d quotes into %s failed", batch.size(), collectionName), ex);
+					return Mono.empty();
+				}).doFinally(mySignal -> flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Shared executor of the rollup work of all exchanges. The work runs on one
+ * bounded elastic scheduler and waits for a permit, free permits go to the
+ * oldest waiting partition of any exchange, pair or day. The number of permits
+ * adapts to the latency per collection: it grows by one after limit partitions
+ * finished within twice the baseline latency and shrinks by a quarter after a
+ * slower or failed partition. It never exceeds the available processors (the
+ * cpu quota of the container) minus rollup.executor.reserved-cpus that are left
+ * to the request path.
+ */
+@Service
+public class RollupExecutor {
+	private static final Logger LOG = LoggerFactory.getLogger(RollupExecutor.class);
+	private static final double SLOW_FACTOR = 2.0;
+	private final Scheduler scheduler;
+	private final Deque<MonoSink<Long>> waiting = new ArrayDeque<>();
+	private final Map<String, Long> baselines = new HashMap<>();
+	@Value("${rollup.executor.reserved-cpus:1}")
+	private int reservedCpus = 1;
+	private int limit = 1;
+	private int running = 0;
+	private int fastPartitions = 0;
+
+	public RollupExecutor(MeterRegistry meterRegistry) {
+		final int cpus = Runtime.getRuntime().availableProcessors();
+		// the partitions block on mongo, the threads above the limit are left to them
+		this.scheduler = Schedulers.newBoundedElastic(Math.max(4, 4 * cpus), 1000, "rollup", 60);
+		meterRegistry.gauge("rollup.executor.limit", this, RollupExecutor::limit);
+		meterRegistry.gauge("rollup.executor.running", this, RollupExecutor::running);
+	}
+
+	@PreDestroy
+	public void dispose() {
+		this.scheduler.dispose();
+	}
+
+	public Scheduler scheduler() {
+		return this.scheduler;
+	}
+
+	/**
+	 * Runs the work on the rollup scheduler once a permit is free, the latency
+	 * of the work adapts the limit of the collection. A cancelled work only
+	 * returns its permit, it says nothing about the mongo latency.
+	 */
+	public <T> Mono<T> execute(String collection, Mono<T> work) {
+		return Mono.usingWhen(this.acquire(), myStart -> work.subscribeOn(this.scheduler),
+				myStart -> this.release(collection, myStart, true),
+				(myStart, ex) -> this.release(collection, myStart, false),
+				myStart -> Mono.fromRunnable(() -> this.free(null, 0L, true)));
+	}
+
+	public synchronized int limit() {
+		return this.limit;
+	}
+
+	public synchronized int running() {
+		return this.running;
+	}
+
+	int maxLimit() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors() - this.reservedCpus);
+	}
+
+	private Mono<Long> acquire() {
+		return Mono.create(mySink -> {
+			boolean granted;
+			synchronized (this) {
+				granted = this.running < this.limit;
+				if (granted) {
+					this.running++;
+				} else {
+					this.waiting.addLast(mySink);
+				}
+			}
+			if (granted) {
+				mySink.success(System.nanoTime());
+			} else {
+				mySink.onCancel(() -> {
+					boolean removed;
+					synchronized (this) {
+						removed = this.waiting.remove(mySink);
+					}
+					if (!removed) {
+						// granted, but the permit is dropped with the cancelled sink
+						this.free(null, 0L, true);
+					}
+				});
+			}
+		});
+	}
+
+	private Mono<Void> release(String collection, long start, boolean success) {
+		return Mono.fromRunnable(() -> this.free(collection, System.nanoTime() - start, success));
+	}
+
+	private void free(String collection, long latency, boolean success) {
+		final List<MonoSink<Long>> granted = new ArrayList<>();
+		synchronized (this) {
+			this.running--;
+			if (collection != null) {
+				this.adapt(collection, latency, success);
+			}
+			while (this.running < this.limit && !this.waiting.isEmpty()) {
+				this.running++;
+				granted.add(this.waiting.pollFirst());
+			}
+		}
+		granted.forEach(mySink -> mySink.success(System.nanoTime()));
+	}
+
+	private void adapt(String collection, long latency, boolean success) {
+		final long baseline = this.baselines.merge(collection, latency,
+				(myBaseline, myLatency) -> Math.min(myLatency, myBaseline + myBaseline / 10L));
+		final int oldLimit = this.limit;
+		if (!success || latency > SLOW_FACTOR * baseline) {
+			this.limit = Math.max(1, this.limit * 3 / 4);
+			this.fastPartitions = 0;
+		} else if (++this.fastPartitions >= this.limit) {
+			this.limit = this.limit + 1;
+			this.fastPartitions = 0;
+		}
+		this.limit = Math.min(this.limit, this.maxLimit());
+		if (oldLimit != this.limit) {
+			LOG.info("Rollup executor limit: {} -> {} ({} {}ms)", oldLimit, this.limit, collection,
+					latency / 1_000_000L);
+		}
+	}
+}
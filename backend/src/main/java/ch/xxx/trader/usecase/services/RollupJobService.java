@@ -0,0 +1,161 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.RollupJob;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Claims the rollup jobs in the rollupJob collection. A job is claimed with
+ * one findAndModify if it is new or its lease has expired, a job that is held
+ * by another run fails the upsert with a duplicate key and is skipped. The
+ * lease is renewed while the job runs and released with the final status.
+ * With rollup.shard.enabled=true(and rollup.mongo.enabled=false) the jobs run
+ * on every replica and the BackfillEngine claims the partitions as shards with
+ * the shorter rollup.shard.lease, a shard that is done is not claimed again.
+ */
+@Service
+public class RollupJobService {
+	private static final Logger LOG = LoggerFactory.getLogger(RollupJobService.class);
+	private static final String OWNER = "owner";
+	private static final String LEASE_UNTIL = "leaseUntil";
+	private final MyMongoRepository myMongoRepository;
+	private final String owner = String.format("%s:%s", ManagementFactory.getRuntimeMXBean().getName(),
+			UUID.randomUUID());
+	@Value("${rollup.job.lease:PT15M}")
+	private Duration lease = Duration.ofMinutes(15L);
+	@Value("${rollup.shard.enabled:false}")
+	private boolean sharded;
+	@Value("${rollup.mongo.enabled:false}")
+	private boolean mongoRollup;
+	@Value("${rollup.shard.lease:PT1M}")
+	private Duration shardLease = Duration.ofMinutes(1L);
+
+	public RollupJobService(MyMongoRepository myMongoRepository) {
+		this.myMongoRepository = myMongoRepository;
+	}
+
+	public <T> Mono<T> runExclusive(String job, Mono<T> work) {
+		// the shards of the partitions are claimed by the BackfillEngine
+		return this.isSharded() ? work : this.run(job, work, this.lease, false);
+	}
+
+	/**
+	 * Runs the work of a shard if it is not done and not held by another
+	 * replica, empty otherwise.
+	 */
+	public <T> Mono<T> runShard(String shard, Mono<T> work) {
+		return this.run(shard, work, this.shardLease, true);
+	}
+
+	public Mono<Boolean> isDone(String shard) {
+		return this.myMongoRepository
+				.findOne(new Query(Criteria.where("_id").is(shard).and("status").is(RollupJob.DONE)), RollupJob.class)
+				.hasElement();
+	}
+
+	public boolean isSharded() {
+		// the MongoRollupService does not use the partitions
+		return this.sharded && !this.mongoRollup;
+	}
+
+	public Duration shardLease() {
+		return this.shardLease;
+	}
+
+	public Mono<RollupJob> claim(String job) {
+		return this.claim(job, this.lease, false);
+	}
+
+	public Mono<RollupJob> renew(String job) {
+		return this.renew(job, this.lease);
+	}
+
+	private <T> Mono<T> run(String job, Mono<T> work, Duration jobLease, boolean skipDone) {
+		return Mono.usingWhen(this.claim(job, jobLease, skipDone), myJob -> {
+			final Disposable renewal = Flux.interval(jobLease.dividedBy(3L))
+					.concatMap(myTick -> this.renew(job, jobLease)).subscribe();
+			return work.doFinally(mySignal -> renewal.dispose());
+		}, myJob -> this.release(job, RollupJob.DONE, null),
+				(myJob, ex) -> this.release(job, RollupJob.FAILED, ex.getMessage()),
+				myJob -> this.release(job, RollupJob.CANCELLED, null));
+	}
+
+	private Mono<RollupJob> claim(String job, Duration jobLease, boolean skipDone) {
+		final Date now = new Date();
+		final Criteria criteria = Criteria.where("_id").is(job).orOperator(Criteria.where(LEASE_UNTIL).exists(false),
+				Criteria.where(LEASE_UNTIL).lt(now));
+		// a done shard fails the upsert with a duplicate key like a held one
+		final Query query = new Query(skipDone ? criteria.and("status").ne(RollupJob.DONE) : criteria);
+		final Update update = new Update().set(OWNER, this.owner).set("status", RollupJob.RUNNING)
+				.set(LEASE_UNTIL, this.leaseUntil(now, jobLease)).set("startedAt", now).set("updatedAt", now)
+				.unset("error");
+		return this.myMongoRepository.findAndModify(query, update, true, RollupJob.class)
+				.doOnNext(myJob -> LOG.info("Rollup job {} claimed by {}", job, this.owner))
+				.onErrorResume(DuplicateKeyException.class, ex -> {
+					LOG.info("Rollup job {} is held by another run.", job);
+					return Mono.empty();
+				});
+	}
+
+	private Mono<RollupJob> renew(String job, Duration jobLease) {
+		final Date now = new Date();
+		return this.myMongoRepository
+				.findAndModify(this.ownedQuery(job),
+						new Update().set(LEASE_UNTIL, this.leaseUntil(now, jobLease)).set("updatedAt", now), false,
+						RollupJob.class)
+				.onErrorResume(ex -> {
+					LOG.warn(String.format("Renew of rollup job %s failed.", job), ex);
+					return Mono.empty();
+				});
+	}
+
+	public Mono<RollupJob> release(String job, String status, String error) {
+		final Date now = new Date();
+		return this.myMongoRepository
+				.findAndModify(this.ownedQuery(job), new Update().set("status", status).set(LEASE_UNTIL, now)
+						.set("updatedAt", now).set("error", error), false, RollupJob.class)
+				.doOnNext(myJob -> LOG.info("Rollup job {} released: {}", job, status)).onErrorResume(ex -> {
+					LOG.warn(String.format("Release of rollup job %s failed.", job), ex);
+					return Mono.empty();
+				});
+	}
+
+	private Query ownedQuery(String job) {
+		return new Query(Criteria.where("_id").is(job).and(OWNER).is(this.owner));
+	}
+
+	private Date leaseUntil(Date now, Duration jobLease) {
+		return new Date(now.getTime() + jobLease.toMillis());
+	}
+}
@@ -15,13 +15,13 @@
  */
 package ch.xxx.trader.usecase.services;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -30,12 +30,14 @@ import java.util.Set;
 import java.util.function.Function;
 
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import ch.xxx.trader.domain.common.MongoUtils;
 import ch.xxx.trader.domain.common.MongoUtils.TimeFrame;
 import ch.xxx.trader.domain.model.dto.QuotePdf;
+import ch.xxx.trader.domain.model.entity.BackfillCheckpoint;
 import ch.xxx.trader.domain.model.entity.MyMongoRepository;
 import ch.xxx.trader.domain.model.entity.Quote;
 import ch.xxx.trader.usecase.common.DtoUtils;
@@ -68,11 +70,6 @@ public class ServiceUtils {
 		return hours;
 	}
 
-	public BigDecimal avgHourValue(BigDecimal v1, BigDecimal v2, long count) {
-		return v1.add(v2 == null ? BigDecimal.ZERO
-				: v2.divide(BigDecimal.valueOf(count == 0 ? 1 : count), 10, RoundingMode.HALF_UP));
-	}
-
 	public List<String> showThreads() {
 		List<String> logs = new LinkedList<>();
 		Set<Thread> threads = Thread.getAllStackTraces().keySet();
@@ -98,9 +95,8 @@ public class ServiceUtils {
 		TimeFrame myTimeFrame = MongoUtils.KEY_TO_TIMEFRAME.get(timeFrame);
 		Flux<T> result = switch (myTimeFrame) {
 		case MongoUtils.TimeFrame.TODAY -> {
-			Query query = MongoUtils.buildTodayQuery(Optional.of(pair));
-			yield this.myMongoRepository.find(query, quoteClass)
-					.filter(q -> MongoUtils.filterEvenMinutes(q.getCreatedAt()));
+			Query query = MongoUtils.sampleMinutes(MongoUtils.buildTodayQuery(Optional.of(pair)), 2);
+			yield this.myMongoRepository.find(query, quoteClass);
 		}
 		case MongoUtils.TimeFrame.SEVENDAYS -> {
 			Query query = MongoUtils.build7DayQuery(Optional.of(pair));
@@ -132,9 +128,8 @@ public class ServiceUtils {
 		TimeFrame myTimeFrame = MongoUtils.KEY_TO_TIMEFRAME.get(timeFrame);
 		Mono<byte[]> result = switch (myTimeFrame) {
 		case MongoUtils.TimeFrame.TODAY -> {
-			Query query = MongoUtils.buildTodayQuery(Optional.of(pair));
-			yield this.reportGenerator.generateReport(this.myMongoRepository.find(query, quoteClass)
-					.filter(myQuote -> MongoUtils.filter10Minutes(myQuote.getCreatedAt())).map(mapping));
+			Query query = MongoUtils.sampleMinutes(MongoUtils.buildTodayQuery(Optional.of(pair)), 10);
+			yield this.reportGenerator.generateReport(this.myMongoRepository.find(query, quoteClass).map(mapping));
 		}
 		case MongoUtils.TimeFrame.SEVENDAYS -> {
 			Query query = MongoUtils.build7DayQuery(Optional.of(pair));
@@ -166,39 +161,60 @@ public class ServiceUtils {
 		return result;
 	}
 
-	public MyTimeFrame createTimeFrame(String colName, Class<? extends Quote> colType, boolean hour) {
-		if (!this.myMongoRepository.collectionExists(colName).block()) {
-			this.myMongoRepository.createCollection(colName).block();
-		}
-		Query query = new Query().with(Sort.by(DtoUtils.CREATEDAT).ascending());
-		Optional<? extends Quote> firstQuote = Optional
-				.ofNullable(this.myMongoRepository.findOne(query, colType).block());
-		query = new Query().with(Sort.by(DtoUtils.CREATEDAT).descending());
-		final Calendar globalBeginn = Calendar.getInstance();
-		Optional.ofNullable(this.myMongoRepository.findOne(query, colType, colName).block())
-				.ifPresentOrElse(myQuote -> {
-					this.calcGlobalBegin(hour, globalBeginn, myQuote);
-				}, () -> {
-					globalBeginn.setTime(firstQuote.stream().map(myQuote -> myQuote.getCreatedAt()).findFirst().orElse(
-							Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant())));
+	public Mono<MyTimeFrame> createTimeFrame(String colName, Class<? extends Quote> colType, boolean hour) {
+		return this.myMongoRepository
+				.find(new Query(Criteria.where("collection").is(colName)), BackfillCheckpoint.class)
+				.map(BackfillCheckpoint::getCompletedUntil)
+				.reduce((myDate1, myDate2) -> myDate1.before(myDate2) ? myDate1 : myDate2)
+				.switchIfEmpty(Mono.defer(() -> this.findGlobalBegin(colName, colType, hour))).map(myGlobalBegin -> {
+					Calendar begin = Calendar.getInstance();
+					Calendar end = Calendar.getInstance();
+					begin.setTime(bucketBegin(myGlobalBegin, !hour));
+					end.setTime(begin.getTime());
+					end.add(Calendar.DAY_OF_YEAR, 1);
+					return new MyTimeFrame(begin, end);
 				});
+	}
+
+	public <T extends Quote> Mono<Void> upsertRollups(Collection<T> rollups, String collectionName,
+			Function<T, Optional<String>> pairOf) {
+		return this.myMongoRepository.upsertAll(rollups,
+				myRollup -> rollupQuery(myRollup.getCreatedAt(), pairOf.apply(myRollup)), collectionName);
+	}
+
+	/**
+	 * Begin of the hour or day of the system time zone, the key of the rollups
+	 * of the backfill, the streaming rollups and the MongoDb rollups.
+	 */
+	public static Date bucketBegin(Date createdAt, boolean isDay) {
+		return Date.from(createdAt.toInstant().atZone(ZoneId.systemDefault())
+				.truncatedTo(isDay ? ChronoUnit.DAYS : ChronoUnit.HOURS).toInstant());
+	}
+
+	public static Query rollupQuery(Date createdAt, Optional<String> pair) {
+		Query query = new Query(Criteria.where(DtoUtils.CREATEDAT).is(createdAt));
+		pair.ifPresent(myPair -> query.addCriteria(Criteria.where(DtoUtils.PAIR).is(myPair)));
+		return query;
+	}
 
-		Calendar begin = Calendar.getInstance();
-		Calendar end = Calendar.getInstance();
-		begin.setTime(globalBeginn.getTime());
-		begin.set(Calendar.MINUTE, 0);
-		begin.set(Calendar.SECOND, 0);
-		end.setTime(begin.getTime());
-		end.add(Calendar.DAY_OF_YEAR, 1);
-		return new MyTimeFrame(begin, end);
+	private Mono<Date> findGlobalBegin(String colName, Class<? extends Quote> colType, boolean hour) {
+		Query lastQuery = new Query().with(Sort.by(DtoUtils.CREATEDAT).descending());
+		Query firstQuery = new Query().with(Sort.by(DtoUtils.CREATEDAT).ascending());
+		return this.myMongoRepository.findOne(lastQuery, colType, colName)
+				.map(myQuote -> this.calcGlobalBegin(hour, myQuote))
+				.switchIfEmpty(Mono.defer(() -> this.myMongoRepository.findOne(firstQuery, colType)
+						.map(myQuote -> myQuote.getCreatedAt())))
+				.defaultIfEmpty(Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant()));
 	}
 
-	private void calcGlobalBegin(boolean hour, Calendar globalBeginn, Quote myQuote) {
+	private Date calcGlobalBegin(boolean hour, Quote myQuote) {
+		Calendar globalBeginn = Calendar.getInstance();
 		globalBeginn.setTime(myQuote.getCreatedAt());
 		if (hour) {
 			globalBeginn.add(Calendar.HOUR_OF_DAY, 1);
 		} else {
 			globalBeginn.add(Calendar.DAY_OF_YEAR, 1);
 		}
+		return globalBeginn.getTime();
 	}
 }
@@ -0,0 +1,179 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import ch.xxx.trader.domain.model.entity.BackfillCheckpoint;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.Quote;
+import ch.xxx.trader.usecase.common.DtoUtils;
+import ch.xxx.trader.usecase.common.QuoteAggregator;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Running hour and day averages per pair of one quote type. A bucket is
+ * closed by the first quote of the next bucket and upserted on pair and
+ * createdAt. The first buckets after a start have missed quotes, they are
+ * calculated from the quotes in the database. Quotes older than the open
+ * bucket are ignored. A written bucket advances the BackfillCheckpoint of the
+ * collection and pair to its end if the checkpoint reaches its begin.
+ */
+public class StreamingRollup<T extends Quote> {
+	private static final Logger LOG = LoggerFactory.getLogger(StreamingRollup.class);
+	private final StreamingRollupService streamingRollupService;
+	private final MyMongoRepository myMongoRepository;
+	private final MeterRegistry meterRegistry;
+	private final Class<T> quoteClass;
+	private final QuoteAggregator<T> quoteAggregator;
+	private final boolean byPair;
+	private final String hourCollection;
+	private final String dayCollection;
+	private final Map<String, Bucket> hourBuckets = new ConcurrentHashMap<>();
+	private final Map<String, Bucket> dayBuckets = new ConcurrentHashMap<>();
+
+	private class Bucket {
+		private final String pair;
+		private final Date begin;
+		private final Date end;
+		private final boolean isDay;
+		private final boolean complete;
+		private final QuoteAggregator<T>.RunningAverage runningAverage;
+
+		Bucket(String pair, Date begin, Date end, boolean isDay, boolean complete) {
+			this.pair = pair;
+			this.begin = begin;
+			this.end = end;
+			this.isDay = isDay;
+			this.complete = complete;
+			this.runningAverage = StreamingRollup.this.quoteAggregator.runningAverage();
+		}
+	}
+
+	StreamingRollup(StreamingRollupService streamingRollupService, MyMongoRepository myMongoRepository,
+			MeterRegistry meterRegistry, Class<T> quoteClass, QuoteAggregator<T> quoteAggregator, boolean byPair,
+			String hourCollection, String dayCollection) {
+		this.streamingRollupService = streamingRollupService;
+		this.myMongoRepository = myMongoRepository;
+		this.meterRegistry = meterRegistry;
+		this.quoteClass = quoteClass;
+		this.quoteAggregator = quoteAggregator;
+		this.byPair = byPair;
+		this.hourCollection = hourCollection;
+		this.dayCollection = dayCollection;
+	}
+
+	/**
+	 * Adds the inserted quote to its buckets and writes the buckets it closes.
+	 * Write errors are logged and do not fail the insert.
+	 */
+	public Mono<Void> add(T quote) {
+		if (!this.streamingRollupService.isEnabled()) {
+			return Mono.empty();
+		}
+		final String pair = this.quoteAggregator.pair(quote);
+		final ZonedDateTime createdAt = quote.getCreatedAt().toInstant().atZone(ZoneId.systemDefault());
+		// the same bucket begins as ServiceUtils.bucketBegin(...), streaming and backfill upsert one document
+		final List<Bucket> closed = new ArrayList<>();
+		this.add(this.hourBuckets, pair, quote, createdAt.truncatedTo(ChronoUnit.HOURS), ChronoUnit.HOURS)
+				.ifPresent(closed::add);
+		this.add(this.dayBuckets, pair, quote, createdAt.truncatedTo(ChronoUnit.DAYS), ChronoUnit.DAYS)
+				.ifPresent(closed::add);
+		return Flux.fromIterable(closed).concatMap(this::write).then();
+	}
+
+	private Optional<Bucket> add(Map<String, Bucket> buckets, String pair, T quote, ZonedDateTime begin,
+			ChronoUnit unit) {
+		final Date bucketBegin = Date.from(begin.toInstant());
+		synchronized (buckets) {
+			final Bucket current = buckets.get(pair);
+			if (current != null && bucketBegin.before(current.begin)) {
+				return Optional.empty();
+			}
+			Optional<Bucket> result = Optional.empty();
+			Bucket bucket = current;
+			if (current == null || bucketBegin.after(current.begin)) {
+				bucket = new Bucket(pair, bucketBegin, Date.from(begin.plus(1, unit).toInstant()),
+						ChronoUnit.DAYS.equals(unit), current != null);
+				buckets.put(pair, bucket);
+				result = Optional.ofNullable(current);
+			}
+			bucket.runningAverage.add(quote);
+			return result;
+		}
+	}
+
+	private Mono<Void> write(Bucket bucket) {
+		final String collection = bucket.isDay ? this.dayCollection : this.hourCollection;
+		final Mono<T> average = bucket.complete
+				? Mono.justOrEmpty(this.quoteAggregator.average(bucket.runningAverage, bucket.pair, bucket.begin))
+				: this.reload(bucket);
+		return average.flatMap(myQuote -> this.myMongoRepository.upsert(this.bucketQuery(bucket), myQuote, collection))
+				.doOnNext(myQuote -> this.meterRegistry.counter("rollup.streaming.writes", "collection", collection,
+						"source", bucket.complete ? "running" : "reload").increment())
+				.flatMap(myQuote -> this.advanceCheckpoint(bucket, collection).thenReturn(myQuote))
+				.doOnError(ex -> LOG.warn(String.format("Streaming rollup of %s %s into %s failed.", bucket.pair,
+						bucket.begin, collection), ex))
+				.onErrorResume(ex -> Mono.empty()).then();
+	}
+
+	private Mono<BackfillCheckpoint> advanceCheckpoint(Bucket bucket, String collection) {
+		// a gap before the bucket(downtime) keeps the checkpoint, the backfill fills it
+		final Query query = new Query(
+				Criteria.where("_id").is(new BackfillCheckpoint(collection, bucket.pair, bucket.end).getId())
+						.and("completedUntil").gte(bucket.begin));
+		return this.myMongoRepository.findAndModify(query,
+				new Update().max("completedUntil", bucket.end).set("updatedAt", new Date()), false,
+				BackfillCheckpoint.class);
+	}
+
+	private Mono<T> reload(Bucket bucket) {
+		final Query query = new Query(Criteria.where(DtoUtils.CREATEDAT).gt(bucket.begin).lt(bucket.end));
+		if (this.byPair) {
+			query.addCriteria(Criteria.where(DtoUtils.PAIR).is(bucket.pair));
+		}
+		final Calendar begin = Calendar.getInstance();
+		begin.setTime(bucket.begin);
+		final Calendar end = Calendar.getInstance();
+		end.setTime(bucket.end);
+		return this.myMongoRepository.find(query, this.quoteClass).collectList().flatMapIterable(myQuotes -> {
+			final QuoteAggregator.Result<T> result = this.quoteAggregator.aggregate(myQuotes, List.of(begin, end),
+					begin, end);
+			return bucket.isDay ? result.days() : result.hours();
+		}).next();
+	}
+
+	private Query bucketQuery(Bucket bucket) {
+		return ServiceUtils.rollupQuery(bucket.begin, this.byPair ? Optional.of(bucket.pair) : Optional.empty());
+	}
+}
@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.Quote;
+import ch.xxx.trader.usecase.common.QuoteAggregator;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Creates the StreamingRollups of the exchange services. With
+ * rollup.streaming.enabled the hour and day averages are updated on quote
+ * insert and written when the bucket closes. The written buckets advance the
+ * backfill checkpoints, the cron jobs of PrepareDataTask skip them and only
+ * backfill the buckets before a checkpoint(first run, downtime).
+ */
+@Service
+public class StreamingRollupService {
+	private final MyMongoRepository myMongoRepository;
+	private final MeterRegistry meterRegistry;
+	@Value("${rollup.streaming.enabled:false}")
+	private boolean enabled;
+
+	public StreamingRollupService(MyMongoRepository myMongoRepository, MeterRegistry meterRegistry) {
+		this.myMongoRepository = myMongoRepository;
+		this.meterRegistry = meterRegistry;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public <T extends Quote> StreamingRollup<T> create(Class<T> quoteClass, QuoteAggregator<T> quoteAggregator,
+			boolean byPair, String hourCollection, String dayCollection) {
+		return new StreamingRollup<T>(this, this.myMongoRepository, this.meterRegistry, quoteClass, quoteAggregator,
+				byPair, hourCollection, dayCollection);
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ch.xxx.trader.domain.common.MongoUtils;
+import ch.xxx.trader.domain.common.MongoUtils.TimeFrame;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches the quotes of the timeframes that are read from the day collections
+ * per exchange, pair and timeframe. The cache holds at most
+ * timeframe.cache.max-quotes quotes, the least recently used series are
+ * evicted first. The series of an exchange are invalidated when its rollup job
+ * completes and expire after timeframe.cache.ttl, that bounds the staleness
+ * after the rollups of other replicas. Concurrent misses share one query.
+ */
+@Service
+public class TimeframeCache {
+	private static final Logger LOG = LoggerFactory.getLogger(TimeframeCache.class);
+	private static final Set<TimeFrame> CACHED_TIMEFRAMES = EnumSet.of(TimeFrame.THIRTYDAYS, TimeFrame.NINTYDAYS,
+			TimeFrame.Month6, TimeFrame.Year1);
+	private final MeterRegistry meterRegistry;
+	// access ordered for the eviction, guarded by this
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Exchange, Long> generations = new EnumMap<>(Exchange.class);
+	private final Map<String, Mono<List<Object>>> inFlight = new ConcurrentHashMap<>();
+	private long cachedQuotes = 0L;
+	@Value("${timeframe.cache.enabled:false}")
+	private boolean enabled;
+	@Value("${timeframe.cache.max-quotes:200000}")
+	private long maxQuotes = 200000L;
+	@Value("${timeframe.cache.ttl:PT1H}")
+	private Duration ttl = Duration.ofHours(1L);
+
+	private record CacheEntry(Exchange exchange, List<Object> quotes, long loadedAt) {
+	}
+
+	public TimeframeCache(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		meterRegistry.gauge("timeframe.cache.quotes", this, TimeframeCache::cachedQuotes);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> Flux<T> get(Exchange exchange, String pair, String timeFrame, Supplier<Flux<T>> loader) {
+		if (!this.enabled || !CACHED_TIMEFRAMES.contains(MongoUtils.KEY_TO_TIMEFRAME.get(timeFrame))) {
+			return Flux.defer(loader);
+		}
+		return Mono.defer(() -> {
+			final String key = exchange.getValue() + "/" + pair + "/" + timeFrame;
+			final CacheEntry entry = this.lookup(key);
+			if (entry != null) {
+				this.count(exchange, "hit");
+				return Mono.just(entry.quotes());
+			}
+			this.count(exchange, "miss");
+			return this.load(exchange, key, loader);
+		}).flatMapIterable(myQuotes -> (List<T>) myQuotes);
+	}
+
+	public void invalidate(Exchange exchange) {
+		final int removed;
+		synchronized (this) {
+			this.generations.merge(exchange, 1L, Long::sum);
+			final int size = this.entries.size();
+			this.entries.values().removeIf(myEntry -> {
+				final boolean remove = myEntry.exchange() == exchange;
+				this.cachedQuotes -= remove ? myEntry.quotes().size() : 0L;
+				return remove;
+			});
+			removed = size - this.entries.size();
+		}
+		LOG.info("Timeframe cache of {} invalidated: {} series", exchange.getValue(), removed);
+	}
+
+	public synchronized long cachedQuotes() {
+		return this.cachedQuotes;
+	}
+
+	private synchronized CacheEntry lookup(String key) {
+		final CacheEntry entry = this.entries.get(key);
+		if (entry != null && System.nanoTime() - entry.loadedAt() > this.ttl.toNanos()) {
+			this.entries.remove(key);
+			this.cachedQuotes -= entry.quotes().size();
+			return null;
+		}
+		return entry;
+	}
+
+	private <T> Mono<List<Object>> load(Exchange exchange, String key, Supplier<Flux<T>> loader) {
+		return this.inFlight.computeIfAbsent(key, myKey -> {
+			final long generation = this.generation(exchange);
+			return Flux.defer(loader).cast(Object.class).collectList()
+					.doOnNext(myQuotes -> this.put(exchange, myKey, myQuotes, generation))
+					.doFinally(mySignal -> this.inFlight.remove(myKey)).cache();
+		});
+	}
+
+	private synchronized void put(Exchange exchange, String key, List<Object> quotes, long generation) {
+		// a series loaded before an invalidation or larger than the cache is not stored
+		if (generation != this.generation(exchange) || quotes.size() > this.maxQuotes) {
+			return;
+		}
+		final CacheEntry old = this.entries.put(key, new CacheEntry(exchange, List.copyOf(quotes), System.nanoTime()));
+		this.cachedQuotes += quotes.size() - (old == null ? 0L : old.quotes().size());
+		final Iterator<CacheEntry> eldest = this.entries.values().iterator();
+		while (this.cachedQuotes > this.maxQuotes && eldest.hasNext()) {
+			this.cachedQuotes -= eldest.next().quotes().size();
+			eldest.remove();
+		}
+	}
+
+	private synchronized long generation(Exchange exchange) {
+		return this.generations.getOrDefault(exchange, 0L);
+	}
+
+	private void count(Exchange exchange, String result) {
+		this.meterRegistry.counter("timeframe.cache.requests", "exchange", exchange.getValue(), "result", result)
+				.increment();
+	}
+}
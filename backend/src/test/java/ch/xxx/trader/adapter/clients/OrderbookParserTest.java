@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.clients;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+import reactor.core.publisher.Flux;
+import tools.jackson.databind.json.JsonMapper;
+
+public class OrderbookParserTest {
+	private final JsonMapper jsonMapper = new JsonMapper();
+
+	@Test
+	public void parseBitstamp() {
+		String json = "{\"timestamp\":\"1700000000\",\"microtimestamp\":\"1700000000000000\","
+				+ "\"bids\":[[\"100.5\",\"1.25\"],[\"100.0\",\"2\"]],\"asks\":[[\"101\",\"0.5\"]]}";
+		OrderbookDto orderbook = OrderbookParser.parse(this.jsonMapper.createParser(json), 1000);
+		Assertions.assertArrayEquals(new double[] { 100.5, 100.0 }, orderbook.bidPrices());
+		Assertions.assertArrayEquals(new double[] { 1.25, 2.0 }, orderbook.bidAmounts());
+		Assertions.assertArrayEquals(new double[] { 101.0 }, orderbook.askPrices());
+		Assertions.assertArrayEquals(new double[] { 0.5 }, orderbook.askAmounts());
+	}
+
+	@Test
+	public void parseBitfinex() {
+		String json = "{\"bids\":[{\"price\":\"100.5\",\"amount\":\"1.25\",\"timestamp\":\"1700000000.0\"}],"
+				+ "\"asks\":[{\"timestamp\":\"1700000000.0\",\"amount\":\"0.5\",\"price\":\"101\"}]}";
+		OrderbookDto orderbook = OrderbookParser.parse(this.jsonMapper.createParser(json), 1000);
+		Assertions.assertArrayEquals(new double[] { 100.5 }, orderbook.bidPrices());
+		Assertions.assertArrayEquals(new double[] { 1.25 }, orderbook.bidAmounts());
+		Assertions.assertArrayEquals(new double[] { 101.0 }, orderbook.askPrices());
+		Assertions.assertArrayEquals(new double[] { 0.5 }, orderbook.askAmounts());
+	}
+
+	@Test
+	public void parseMaxLevels() {
+		StringBuilder bids = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			bids.append(i == 0 ? "" : ",").append("[").append(1000 - i).append(",").append(i + 1).append(",[1,2]]");
+		}
+		String json = "{\"bids\":[" + bids + "],\"extra\":{\"a\":[1,2]},\"asks\":[[1001,3]]}";
+		OrderbookDto orderbook = OrderbookParser.parse(this.jsonMapper.createParser(json), 100);
+		Assertions.assertEquals(100, orderbook.bidPrices().length);
+		Assertions.assertEquals(901.0, orderbook.bidPrices()[99]);
+		Assertions.assertEquals(100.0, orderbook.bidAmounts()[99]);
+		Assertions.assertArrayEquals(new double[] { 1001.0 }, orderbook.askPrices());
+	}
+
+	@Test
+	public void parseChunks() {
+		RestOrderBookClient restOrderBookClient = new RestOrderBookClient(null, this.jsonMapper);
+		ReflectionTestUtils.setField(restOrderBookClient, "maxLevels", 2);
+		String json = "{\"timestamp\":\"1700000000\",\"asks\":[[\"101\",\"0.5\"],[\"102\",\"1\"],[\"103\",\"2\"]],"
+				+ "\"bids\":[[\"100.5\",\"1.25\"],[\"100.0\",\"2\"],[\"99\",\"3\"],[\"98\",\"4\"]]}";
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		AtomicInteger chunks = new AtomicInteger(0);
+		Flux<DataBuffer> body = Flux.range(0, (bytes.length + 6) / 7).doOnNext(myIndex -> chunks.incrementAndGet())
+				.map(myIndex -> DefaultDataBufferFactory.sharedInstance
+						.wrap(Arrays.copyOfRange(bytes, myIndex * 7, Math.min(bytes.length, myIndex * 7 + 7))));
+		OrderbookDto orderbook = restOrderBookClient.parseOrderbook(body).block();
+		Assertions.assertArrayEquals(new double[] { 100.5, 100.0 }, orderbook.bidPrices());
+		Assertions.assertArrayEquals(new double[] { 1.25, 2.0 }, orderbook.bidAmounts());
+		Assertions.assertArrayEquals(new double[] { 101.0, 102.0 }, orderbook.askPrices());
+		Assertions.assertTrue(chunks.get() < (bytes.length + 6) / 7);
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.clients;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import ch.xxx.trader.domain.model.entity.QuoteBf;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.usecase.mappers.EventMapper;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.databind.json.JsonMapper;
+
+public class StreamingQuoteClientTest {
+	private final StreamingQuoteClient streamingQuoteClient = new StreamingQuoteClient(null, null,
+			new EventMapper(new JsonMapper()), myExchange -> WebClient.create(), Schedulers.immediate());
+
+	@Test
+	public void bitfinexTicker() {
+		List<QuoteBf> quotes = new ArrayList<>();
+		Disposable disposable = this.streamingQuoteClient.bitfinexQuotes().subscribe(quotes::add);
+		ReflectionTestUtils.invokeMethod(this.streamingQuoteClient, "onBitfinexMessage", new HashMap<Long, String>(),
+				"{\"event\":\"info\",\"version\":2}");
+		Map<Long, String> channels = new HashMap<>();
+		ReflectionTestUtils.invokeMethod(this.streamingQuoteClient, "onBitfinexMessage", channels,
+				"{\"event\":\"subscribed\",\"channel\":\"ticker\",\"chanId\":17,\"symbol\":\"tBTCUSD\",\"pair\":\"BTCUSD\"}");
+		ReflectionTestUtils.invokeMethod(this.streamingQuoteClient, "onBitfinexMessage", channels, "[17,\"hb\"]");
+		Boolean open = ReflectionTestUtils.invokeMethod(this.streamingQuoteClient, "onBitfinexMessage", channels,
+				"[17,[29000,1.5,29002,2.5,100,0.01,29001,1234.5,29500,28500]]");
+		disposable.dispose();
+		Assertions.assertTrue(open);
+		Assertions.assertEquals(1, quotes.size());
+		Assertions.assertEquals("btcusd", quotes.get(0).getPair());
+		Assertions.assertEquals(29001, quotes.get(0).getMid().intValue());
+		Assertions.assertEquals(29500, quotes.get(0).getHigh().intValue());
+		Assertions.assertEquals(28500, quotes.get(0).getLow().intValue());
+		Assertions.assertFalse((Boolean) ReflectionTestUtils.invokeMethod(this.streamingQuoteClient,
+				"onBitfinexMessage", channels, "{\"event\":\"info\",\"code\":20051}"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void bitstampTradeNeedsBaseline() {
+		List<QuoteBs> quotes = new ArrayList<>();
+		Disposable disposable = this.streamingQuoteClient.bitstampQuotes().subscribe(quotes::add);
+		String trade = "{\"event\":\"trade\",\"channel\":\"live_trades_btcusd\",\"data\":{\"price\":29100.5,\"timestamp\":\"1682751197\"}}";
+		ReflectionTestUtils.invokeMethod(this.streamingQuoteClient, "onBitstampMessage", trade);
+		Assertions.assertTrue(quotes.isEmpty());
+		Map<String, QuoteBs> bitstampQuotes = (Map<String, QuoteBs>) ReflectionTestUtils
+				.getField(this.streamingQuoteClient, "bitstampQuotes");
+		QuoteBs baseline = new QuoteBs(BigDecimal.valueOf(29000L), BigDecimal.valueOf(28900L),
+				new Date(), BigDecimal.ONE, BigDecimal.ONE, BigDecimal.TEN,
+				BigDecimal.valueOf(28000L), BigDecimal.ONE, BigDecimal.ONE);
+		baseline.setPair("btcusd");
+		bitstampQuotes.put("btcusd", baseline);
+		ReflectionTestUtils.invokeMethod(this.streamingQuoteClient, "onBitstampMessage", trade);
+		Assertions.assertFalse((Boolean) ReflectionTestUtils.invokeMethod(this.streamingQuoteClient,
+				"onBitstampMessage", "{\"event\":\"bts:request_reconnect\",\"channel\":\"\",\"data\":\"\"}"));
+		disposable.dispose();
+		Assertions.assertEquals(1, quotes.size());
+		Assertions.assertEquals("btcusd", quotes.get(0).getPair());
+		Assertions.assertEquals("29100.5", quotes.get(0).getLast().toString());
+		Assertions.assertEquals("29100.5", quotes.get(0).getHigh().toString());
+		Assertions.assertEquals(28000, quotes.get(0).getLow().intValue());
+	}
+}
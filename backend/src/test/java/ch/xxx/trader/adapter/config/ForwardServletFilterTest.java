@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.config;
+
+import java.util.Collections;
+import java.util.Locale;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ForwardServletFilterTest {
+	private final ForwardServletFilter filter = new ForwardServletFilter();
+
+	@Test
+	public void quoteStreamIsNotForwarded() throws Exception {
+		HttpServletRequest request = this.createRequest("/quotes/stream");
+		ServletResponse response = Mockito.mock(ServletResponse.class);
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		this.filter.doFilter(request, response, chain);
+		Mockito.verify(chain).doFilter(request, response);
+		Mockito.verify(request, Mockito.never()).getServletContext();
+	}
+
+	@Test
+	public void unknownPathIsForwarded() throws Exception {
+		HttpServletRequest request = this.createRequest("/dashboard");
+		ServletResponse response = Mockito.mock(ServletResponse.class);
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		ServletContext context = Mockito.mock(ServletContext.class);
+		RequestDispatcher dispatcher = Mockito.mock(RequestDispatcher.class);
+		Mockito.when(request.getServletContext()).thenReturn(context);
+		Mockito.when(context.getRequestDispatcher("/en/index.html")).thenReturn(dispatcher);
+		this.filter.doFilter(request, response, chain);
+		Mockito.verify(dispatcher).forward(request, response);
+		Mockito.verify(chain, Mockito.never()).doFilter(request, response);
+	}
+
+	private HttpServletRequest createRequest(String servletPath) {
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		Mockito.when(request.getServletPath()).thenReturn(servletPath);
+		Mockito.when(request.getLocales())
+				.thenReturn(Collections.enumeration(Collections.singletonList(Locale.ENGLISH)));
+		return request;
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.adapter.cron;
+
+import static org.mockito.ArgumentMatchers.any;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import ch.xxx.trader.domain.common.IngestionRegistry;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.IngestionPair;
+import ch.xxx.trader.usecase.services.BitfinexService;
+import ch.xxx.trader.usecase.services.BitstampService;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+public class QuoteIngestionEngineTest {
+	private static final int PAIR_COUNT = 400;
+	private static final int MAX_CONCURRENCY = 16;
+	private static final long STUB_LATENCY_MS = 20L;
+	private static final String BITSTAMP_VALUE = "{\"high\":\"29524.75\", \"last\":\"29321.25\", \"timestamp\":1682751197, "
+			+ "\"bid\":\"29318.75\", \"vwap\":\"29270.74796455\", \"volume\":\"146.48759230\", \"low\":\"28921.00\", "
+			+ "\"ask\":\"29319.00\", \"open\":\"29451.25\"}";
+	private static final String BITFINEX_VALUE = "{\"mid\":\"29318.875\", \"bid\":\"29318.75\", \"ask\":\"29319.00\", "
+			+ "\"last_price\":\"29321.25\", \"low\":\"28921.00\", \"high\":\"29524.75\", \"volume\":\"146.48759230\", "
+			+ "\"timestamp\":\"1682751197.898910\"}";
+	private final AtomicInteger inFlight = new AtomicInteger(0);
+	private final AtomicInteger maxInFlight = new AtomicInteger(0);
+
+	@Test
+	public void pollHundredsOfPairs() {
+		BitstampService bitstampService = Mockito.mock(BitstampService.class);
+		BitfinexService bitfinexService = Mockito.mock(BitfinexService.class);
+		Mockito.when(bitstampService.insertQuote(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		Mockito.when(bitfinexService.insertQuote(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		QuoteIngestionEngine quoteIngestionEngine = new QuoteIngestionEngine(bitstampService, bitfinexService, null,
+				null, myExchange -> WebClient.builder().exchangeFunction(this::stubExchange).build(),
+				Schedulers.boundedElastic());
+		ReflectionTestUtils.setField(quoteIngestionEngine, "maxConcurrency", MAX_CONCURRENCY);
+		List<IngestionPair> pairs = IntStream.range(0, PAIR_COUNT)
+				.mapToObj(i -> new IngestionPair(i % 2 == 0 ? Exchange.BITSTAMP : Exchange.BITFINEX, "pair" + i,
+						IngestionRegistry.TICK, Duration.ZERO))
+				.toList();
+
+		long start = System.nanoTime();
+		Long polled = quoteIngestionEngine.pollPairs(pairs).block(Duration.ofSeconds(30L));
+		long durationMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		Assertions.assertEquals(PAIR_COUNT, polled.intValue());
+		Mockito.verify(bitstampService, Mockito.times(PAIR_COUNT / 2)).insertQuote(any());
+		Mockito.verify(bitfinexService, Mockito.times(PAIR_COUNT / 2)).insertQuote(any());
+		Assertions.assertTrue(this.maxInFlight.get() <= MAX_CONCURRENCY,
+				String.format("In flight requests: %d", this.maxInFlight.get()));
+		// sequential polling against the stub would take PAIR_COUNT * STUB_LATENCY_MS
+		Assertions.assertTrue(durationMs < PAIR_COUNT * STUB_LATENCY_MS / 2,
+				String.format("Polled %d pairs in %dms", PAIR_COUNT, durationMs));
+	}
+
+	@Test
+	public void duePairsByInterval() {
+		IngestionPair everyTick = new IngestionPair(Exchange.BITSTAMP, "btceur", IngestionRegistry.TICK,
+				Duration.ZERO);
+		IngestionPair everyFifthTick = new IngestionPair(Exchange.BITSTAMP, "etheur",
+				IngestionRegistry.TICK.multipliedBy(5L), Duration.ZERO);
+		List<IngestionPair> pairs = List.of(everyTick, everyFifthTick);
+		Assertions.assertEquals(List.of(everyTick, everyFifthTick), IngestionRegistry.duePairs(pairs, 10L));
+		Assertions.assertEquals(List.of(everyTick), IngestionRegistry.duePairs(pairs, 11L));
+	}
+
+	private Mono<ClientResponse> stubExchange(ClientRequest request) {
+		final String body = request.url().getHost().contains("bitfinex") ? BITFINEX_VALUE : BITSTAMP_VALUE;
+		return Mono.fromRunnable(() -> this.maxInFlight.accumulateAndGet(this.inFlight.incrementAndGet(), Math::max))
+				// leave before the response is emitted, the engine may start the next request on it
+				.then(Mono.delay(Duration.ofMillis(STUB_LATENCY_MS))
+						.doOnTerminate(() -> this.inFlight.decrementAndGet()))
+				.then(Mono.fromCallable(() -> ClientResponse.create(HttpStatus.OK)
+						.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(body).build()));
+	}
+}
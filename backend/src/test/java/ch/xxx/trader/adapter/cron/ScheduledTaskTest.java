@@ -21,6 +21,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
 import tools.jackson.databind.json.JsonMapper;
 
 public class ScheduledTaskTest {
@@ -36,8 +38,9 @@ public class ScheduledTaskTest {
 	@Test
 	public void convertTest() throws JsonMappingException, JsonProcessingException {
 		PaxosQuote paxosQuote = this.objectMapper.readValue(VALUE, PaxosQuote.class);
-		ScheduledTask scheduledTask = new ScheduledTask(null, null, null, null, null, null, null);
-		QuoteIb quoteIb = scheduledTask.convert(paxosQuote);
+		QuoteIngestionEngine quoteIngestionEngine = new QuoteIngestionEngine(null, null, null, null,
+				myExchange -> WebClient.create(), Schedulers.immediate());
+		QuoteIb quoteIb = quoteIngestionEngine.convert(paxosQuote);
 		Assertions.assertEquals("XBTUSD", quoteIb.getPair());
 		Assertions.assertEquals(paxosQuote.getBestBid().getPrice().toString(), quoteIb.getBid().toString());
 		Assertions.assertEquals(paxosQuote.getBestBid().getAmount().toString(), quoteIb.getBidAmt().toString());
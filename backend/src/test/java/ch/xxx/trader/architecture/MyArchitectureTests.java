@@ -61,7 +61,8 @@ public class MyArchitectureTests {
 			.applicationServices("..usecase..").adapter("rest", "..adapter.controller..")
 			.adapter("cron", "..adapter.cron..").adapter("repo", "..adapter.repository..")
 			.adapter("events", "..adapter.events..").adapter("config", "..adapter.config..")
-			.adapter("clients", "..adapter.clients..").withOptionalLayers(true);
+			.adapter("clients", "..adapter.clients..").adapter("actuator", "..adapter.actuator..")
+			.withOptionalLayers(true);
 
 	@ArchTest
 	static final ArchRule cyclesDomain = SlicesRuleDefinition.slices().matching("..domain.(*)..").should()
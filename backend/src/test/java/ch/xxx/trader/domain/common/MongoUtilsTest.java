@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.domain.common;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.query.Query;
+
+public class MongoUtilsTest {
+
+	@Test
+	public void sampleMinutesInQuery() {
+		Query query = MongoUtils.sampleMinutes(MongoUtils.buildTodayQuery(Optional.of("btcusd")), 10);
+		Document expr = ((MongoExpression) query.getQueryObject().get("$expr")).toDocument();
+
+		Assertions.assertEquals("btcusd", query.getQueryObject().get("pair"));
+		Assertions.assertEquals(
+				new Document("$eq", List.of(new Document("$mod", List.of(new Document("$minute",
+						new Document("date", "$createdAt").append("timezone", ZoneId.systemDefault().getId())), 10)),
+						0)),
+				expr);
+	}
+}
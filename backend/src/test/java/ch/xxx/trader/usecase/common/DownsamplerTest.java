@@ -0,0 +1,68 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.xxx.trader.domain.model.entity.QuoteCbSmall;
+import reactor.core.publisher.Flux;
+
+public class DownsamplerTest {
+	private final long now = System.currentTimeMillis();
+	private final List<QuoteCbSmall> quotes = IntStream.range(0, 1000)
+			.mapToObj(myIndex -> new QuoteCbSmall(new Date(this.now - (1000 - myIndex) * 60000L),
+					BigDecimal.valueOf(myIndex == 500 ? 5000.0 : 100.0 + Math.sin(myIndex / 20.0)), BigDecimal.ONE,
+					BigDecimal.ONE, BigDecimal.ONE))
+			.toList();
+
+	@Test
+	public void lttbKeepsFirstLastAndPeaks() {
+		List<QuoteCbSmall> result = this.downsample(this.quotes, 100);
+
+		Assertions.assertTrue(result.size() <= 100);
+		Assertions.assertTrue(result.size() > 90);
+		Assertions.assertSame(this.quotes.get(0), result.get(0));
+		Assertions.assertSame(this.quotes.get(999), result.get(result.size() - 1));
+		Assertions.assertTrue(result.contains(this.quotes.get(500)));
+		Assertions.assertTrue(IntStream.range(1, result.size())
+				.allMatch(myIndex -> result.get(myIndex).getCreatedAt().after(result.get(myIndex - 1).getCreatedAt())));
+	}
+
+	@Test
+	public void lttbKeepsSparseSeries() {
+		List<QuoteCbSmall> sparse = this.quotes.subList(990, 1000);
+
+		Assertions.assertEquals(sparse, this.downsample(sparse, 100));
+	}
+
+	@Test
+	public void lttbDisabled() {
+		Assertions.assertEquals(this.quotes, this.downsample(this.quotes, 0));
+		Assertions.assertEquals(List.of(), this.downsample(List.of(), 100));
+	}
+
+	private List<QuoteCbSmall> downsample(List<QuoteCbSmall> values, int points) {
+		return Flux.fromIterable(values)
+				.transform(Downsampler.lttb(points, QuoteCbSmall::getCreatedAt, QuoteCbSmall::getUsd)).collectList()
+				.block();
+	}
+}
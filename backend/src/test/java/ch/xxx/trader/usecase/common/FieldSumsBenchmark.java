@@ -0,0 +1,139 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+/**
+ * Aggregates a Coinbase day (1440 quotes with all QuoteCbFields set to rates
+ * between 10^-6 and 10^5 with up to 16 digits) with the FieldSums and with the
+ * former divide per value of ServiceUtils.avgHourValue. Run with -prof gc to
+ * compare the allocations. Run with the main method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldSumsBenchmark {
+	private static final int QUOTES_PER_DAY = 1440;
+	@Param({ "decimal", "fixedPoint", "kahan" })
+	private String fieldSums;
+	private List<QuoteCb> quotes;
+	private Calendar begin;
+	private Calendar end;
+	private List<Calendar> hours;
+	private QuoteAggregator<QuoteCb> quoteAggregator;
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FieldSumsBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	@Setup
+	public void setup() {
+		this.begin = new GregorianCalendar(2024, Calendar.JANUARY, 10);
+		this.end = new GregorianCalendar(2024, Calendar.JANUARY, 11);
+		this.hours = new ArrayList<>();
+		for (int i = 0; i <= 24; i++) {
+			Calendar hour = (Calendar) this.begin.clone();
+			hour.add(Calendar.HOUR_OF_DAY, i);
+			this.hours.add(hour);
+		}
+		Random random = new Random(42L);
+		this.quotes = new ArrayList<>();
+		for (int minute = 0; minute < QUOTES_PER_DAY; minute++) {
+			QuoteCb quote = new QuoteCb();
+			for (int i = 0; i < QuoteCbFields.NAMES.size(); i++) {
+				QuoteCbFields.set(quote, i,
+						BigDecimal.valueOf(random.nextLong(1L, 100_000_000_000L), 6 + random.nextInt(11)));
+			}
+			quote.setCreatedAt(new Date(this.begin.getTimeInMillis() + minute * 60000L + 30000L));
+			this.quotes.add(quote);
+		}
+		IntFunction<FieldSums> sums = switch (this.fieldSums) {
+		case "fixedPoint" -> FieldSums.fixedPoint(QuoteAggregator.EXCHANGE_SCALE);
+		case "kahan" -> FieldSums.kahan();
+		default -> FieldSums.decimal();
+		};
+		this.quoteAggregator = new QuoteAggregator<QuoteCb>(IntStream.range(0, QuoteCbFields.NAMES.size())
+				.<Function<QuoteCb, BigDecimal>>mapToObj(myIndex -> myQuote -> QuoteCbFields.get(myQuote, myIndex))
+				.toList(), myQuote -> "ALLUSD", (myPair, myCreatedAt, myValues) -> {
+					QuoteCb quoteCb = new QuoteCb();
+					for (int i = 0; i < myValues.length; i++) {
+						QuoteCbFields.set(quoteCb, i, myValues[i]);
+					}
+					quoteCb.setCreatedAt(myCreatedAt);
+					return quoteCb;
+				}, sums);
+	}
+
+	@Benchmark
+	public Object fieldSums() {
+		return this.quoteAggregator.aggregate(this.quotes, this.hours, this.begin, this.end);
+	}
+
+	@Benchmark
+	public Object legacyDividePerValue() {
+		// the day and the 24 hours, every value is divided by the count and added
+		List<BigDecimal[]> result = new ArrayList<>();
+		for (int hour = 0; hour <= 24; hour++) {
+			final int myHour = hour;
+			List<QuoteCb> bucket = hour == 24 ? this.quotes
+					: this.quotes.stream().filter(myQuote -> myQuote.getCreatedAt()
+							.after(this.hours.get(myHour).getTime())
+							&& myQuote.getCreatedAt().before(this.hours.get(myHour + 1).getTime())).toList();
+			BigDecimal count = BigDecimal.valueOf(bucket.size());
+			BigDecimal[] sums = new BigDecimal[QuoteCbFields.NAMES.size()];
+			for (int i = 0; i < sums.length; i++) {
+				sums[i] = BigDecimal.ZERO;
+				for (QuoteCb quote : bucket) {
+					sums[i] = sums[i].add(QuoteCbFields.get(quote, i).divide(count, 10, RoundingMode.HALF_UP));
+				}
+			}
+			result.add(sums);
+		}
+		return result;
+	}
+}
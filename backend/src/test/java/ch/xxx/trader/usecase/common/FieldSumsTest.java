@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FieldSumsTest {
+
+	@Test
+	public void averagesMatchDecimal() {
+		List<BigDecimal> values = List.of(new BigDecimal("29318.75"), new BigDecimal("29320.12345678"),
+				new BigDecimal("0.00000001"), new BigDecimal("29317.5"));
+		BigDecimal expected = this.average(FieldSums.decimal(), values);
+		Assertions.assertEquals(0, expected.compareTo(this.average(FieldSums.fixedPoint(8), values)));
+		Assertions.assertEquals(0, expected.compareTo(this.average(FieldSums.kahan(), values)));
+	}
+
+	@Test
+	public void fixedPointRoundsToScale() {
+		BigDecimal average = this.average(FieldSums.fixedPoint(2),
+				List.of(new BigDecimal("1.004"), new BigDecimal("1.004"), new BigDecimal("1.004")));
+		Assertions.assertEquals(0, new BigDecimal("1.00").compareTo(average));
+	}
+
+	@Test
+	public void fixedPointOverflowIsExact() {
+		List<BigDecimal> values = List.of(new BigDecimal("9000000000000000000"),
+				new BigDecimal("9000000000000000000"), new BigDecimal("3"), new BigDecimal("0.5"));
+		Assertions.assertEquals(0, this.average(FieldSums.decimal(), values)
+				.compareTo(this.average(FieldSums.fixedPoint(8), values)));
+	}
+
+	@Test
+	public void kahanCompensatesSmallValues() {
+		// 1e16 + 1 + 1 loses both ones in a plain double sum
+		List<BigDecimal> values = List.of(new BigDecimal("10000000000000000"), BigDecimal.ONE, BigDecimal.ONE,
+				new BigDecimal("-10000000000000000"));
+		Assertions.assertEquals(0, new BigDecimal("0.5").compareTo(this.average(FieldSums.kahan(), values)));
+	}
+
+	private BigDecimal average(IntFunction<FieldSums> fieldSums, List<BigDecimal> values) {
+		FieldSums sums = fieldSums.apply(1);
+		values.forEach(myValue -> sums.add(0, myValue));
+		return sums.average(0, values.size());
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.xxx.trader.domain.model.dto.OrderbookDto;
+
+public class OrderbookDepthTest {
+	private final OrderbookDto orderbook = new OrderbookDto(new Date(),
+			new double[] { 100.5, 100.2, 99.9, 99.1, 98.0 }, new double[] { 1.0, 2.0, 3.0, 4.0, 5.0 },
+			new double[] { 101.1, 101.4, 102.2 }, new double[] { 1.0, 2.0, 3.0 });
+
+	@Test
+	public void limitDepth() {
+		OrderbookDto result = OrderbookDepth.limit(this.orderbook, 2, 0.0);
+		Assertions.assertArrayEquals(new double[] { 100.5, 100.2 }, result.bidPrices());
+		Assertions.assertArrayEquals(new double[] { 1.0, 2.0 }, result.bidAmounts());
+		Assertions.assertArrayEquals(new double[] { 101.1, 101.4 }, result.askPrices());
+		Assertions.assertArrayEquals(new double[] { 1.0, 2.0 }, result.askAmounts());
+	}
+
+	@Test
+	public void limitDepthWithTick() {
+		OrderbookDto result = OrderbookDepth.limit(this.orderbook, 2, 1.0);
+		Assertions.assertArrayEquals(new double[] { 100.0, 99.0 }, result.bidPrices());
+		Assertions.assertArrayEquals(new double[] { 3.0, 7.0 }, result.bidAmounts());
+		Assertions.assertArrayEquals(new double[] { 102.0, 103.0 }, result.askPrices());
+		Assertions.assertArrayEquals(new double[] { 3.0, 3.0 }, result.askAmounts());
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+/**
+ * Compares the PrecisionLimiter with the former reflection based
+ * limitPrecision. Run with the main method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrecisionLimiterBenchmark {
+	private QuoteBs quoteBs;
+	private QuoteCb quoteCb;
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(PrecisionLimiterBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	@Setup
+	public void setup() {
+		BigDecimal value = new BigDecimal("1234.56789012345678901234567890123456789");
+		this.quoteBs = new QuoteBs(value, value, new Date(), value, value, value, value, value, value);
+		this.quoteCb = new QuoteCb();
+		this.quoteCb.setXcn(value);
+	}
+
+	@Benchmark
+	public Object quoteBsReflection() {
+		return limitPrecisionReflection(this.quoteBs);
+	}
+
+	@Benchmark
+	public Object quoteBsPrecisionLimiter() {
+		return PrecisionLimiter.limit(this.quoteBs);
+	}
+
+	@Benchmark
+	public Object quoteCbReflection() {
+		return limitPrecisionReflection(this.quoteCb);
+	}
+
+	@Benchmark
+	public Object quoteCbPrecisionLimiter() {
+		return PrecisionLimiter.limit(this.quoteCb);
+	}
+
+	static <T> T limitPrecisionReflection(T quote) {
+		var fields = quote.getClass().getDeclaredFields();
+		for (Field field : fields) {
+			if (field.getType().isAssignableFrom(BigDecimal.class)) {
+				field.setAccessible(true);
+				try {
+					var value = (BigDecimal) field.get(quote);
+					value = value.round(new MathContext(30, RoundingMode.HALF_UP));
+					field.set(quote, value);
+				} catch (IllegalAccessException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		return quote;
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+public class PrecisionLimiterTest {
+	private static final String LONG_VALUE = "1234.56789012345678901234567890123456789";
+
+	@Test
+	public void limitFinalFields() {
+		BigDecimal value = new BigDecimal(LONG_VALUE);
+		QuoteBs quote = new QuoteBs(value, BigDecimal.TEN, new Date(), value, value, value, value, value, value);
+		PrecisionLimiter.limit(quote);
+		Assertions.assertEquals("1234.56789012345678901234567890", quote.getHigh().toPlainString());
+		Assertions.assertEquals(30, quote.getOpen().precision());
+		Assertions.assertEquals(BigDecimal.TEN, quote.getLast());
+	}
+
+	@Test
+	public void limitMatchesReflection() {
+		QuoteCb limited = new QuoteCb();
+		QuoteCb reference = new QuoteCb();
+		limited.setXcn(new BigDecimal(LONG_VALUE));
+		reference.setXcn(new BigDecimal(LONG_VALUE));
+		PrecisionLimiter.limit(limited);
+		PrecisionLimiterBenchmark.limitPrecisionReflection(reference);
+		Assertions.assertEquals(reference.getXcn(), limited.getXcn());
+		Assertions.assertEquals(BigDecimal.ZERO, limited.getBtc());
+	}
+}
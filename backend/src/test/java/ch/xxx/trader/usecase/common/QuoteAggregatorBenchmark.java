@@ -0,0 +1,151 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+
+/**
+ * Compares the QuoteAggregator with the former per hour filter, count and
+ * reduce over the quotes of a day (1440 quotes per pair). Run with the main
+ * method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuoteAggregatorBenchmark {
+	private static final int QUOTES_PER_PAIR = 1440;
+	@Param({ "1", "4", "8" })
+	private int pairs;
+	private List<QuoteBs> quotes;
+	private Calendar begin;
+	private Calendar end;
+	private List<Calendar> hours;
+	private final QuoteAggregator<QuoteBs> quoteAggregator = new QuoteAggregator<QuoteBs>(
+			List.of(QuoteBs::getHigh, QuoteBs::getLast, QuoteBs::getBid, QuoteBs::getVwap, QuoteBs::getVolume,
+					QuoteBs::getLow, QuoteBs::getAsk, QuoteBs::getOpen),
+			QuoteBs::getPair, (myPair, myCreatedAt, myValues) -> {
+				QuoteBs quoteBs = new QuoteBs(myValues[0], myValues[1], myCreatedAt, myValues[2], myValues[3],
+						myValues[4], myValues[5], myValues[6], myValues[7]);
+				quoteBs.setPair(myPair);
+				quoteBs.setCreatedAt(myCreatedAt);
+				return quoteBs;
+			});
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(QuoteAggregatorBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	@Setup
+	public void setup() {
+		this.begin = new GregorianCalendar(2024, Calendar.JANUARY, 10);
+		this.end = new GregorianCalendar(2024, Calendar.JANUARY, 11);
+		this.hours = new ArrayList<>();
+		for (int i = 0; i <= 24; i++) {
+			Calendar hour = (Calendar) this.begin.clone();
+			hour.add(Calendar.HOUR_OF_DAY, i);
+			this.hours.add(hour);
+		}
+		this.quotes = new ArrayList<>();
+		for (int pair = 0; pair < this.pairs; pair++) {
+			for (int minute = 0; minute < QUOTES_PER_PAIR; minute++) {
+				BigDecimal value = BigDecimal.valueOf(40000 + minute, 2);
+				QuoteBs quoteBs = new QuoteBs(value, value, new Date(), value, value, value, value, value, value);
+				quoteBs.setPair("pair" + pair);
+				quoteBs.setCreatedAt(new Date(this.begin.getTimeInMillis() + minute * 60000L + 30000L));
+				this.quotes.add(quoteBs);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object legacyHoursAndDays() {
+		Map<String, Collection<QuoteBs>> multimap = this.quotes.stream()
+				.collect(Collectors.groupingBy(QuoteBs::getPair, Collectors.toCollection(ArrayList::new)));
+		List<QuoteBs> result = new ArrayList<>();
+		multimap.keySet().forEach(myKey -> {
+			for (int i = 0; i < 24; i++) {
+				legacyAvg(myKey, multimap, this.hours.get(i), this.hours.get(i + 1)).forEach(result::add);
+			}
+			legacyAvg(myKey, multimap, this.begin, this.end).forEach(result::add);
+		});
+		return result;
+	}
+
+	@Benchmark
+	public Object quoteAggregator() {
+		return this.quoteAggregator.aggregate(this.quotes, this.hours, this.begin, this.end);
+	}
+
+	static List<QuoteBs> legacyAvg(String key, Map<String, Collection<QuoteBs>> multimap, Calendar begin,
+			Calendar end) {
+		QuoteBs quoteBs = new QuoteBs(BigDecimal.ZERO, BigDecimal.ZERO, begin.getTime(), BigDecimal.ZERO,
+				BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+		quoteBs.setCreatedAt(begin.getTime());
+		long count = multimap.get(key).stream().filter(quote -> quote.getCreatedAt().after(begin.getTime())
+				&& quote.getCreatedAt().before(end.getTime())).count();
+		if (count <= 2) {
+			return List.of();
+		}
+		QuoteBs result = multimap.get(key).stream().filter(
+				quote -> quote.getCreatedAt().after(begin.getTime()) && quote.getCreatedAt().before(end.getTime()))
+				.reduce(quoteBs, (q1, q2) -> legacyAvgQuote(q1, q2, count));
+		result.setPair(key);
+		return List.of(result);
+	}
+
+	static QuoteBs legacyAvgQuote(QuoteBs q1, QuoteBs q2, long count) {
+		QuoteBs myQuote = new QuoteBs(avg(q1.getHigh(), q2.getHigh(), count), avg(q1.getLast(), q2.getLast(), count),
+				q1.getTimestamp(), avg(q1.getBid(), q2.getBid(), count), avg(q1.getVwap(), q2.getVwap(), count),
+				avg(q1.getVolume(), q2.getVolume(), count), avg(q1.getLow(), q2.getLow(), count),
+				avg(q1.getAsk(), q2.getAsk(), count), avg(q1.getOpen(), q2.getOpen(), count));
+		myQuote.setCreatedAt(q1.getCreatedAt());
+		return myQuote;
+	}
+
+	private static BigDecimal avg(BigDecimal v1, BigDecimal v2, long count) {
+		return v1.add(v2 == null ? BigDecimal.ZERO : v2.divide(BigDecimal.valueOf(count), 10, RoundingMode.HALF_UP));
+	}
+}
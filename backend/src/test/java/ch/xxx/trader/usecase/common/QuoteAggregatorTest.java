@@ -0,0 +1,138 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+public class QuoteAggregatorTest {
+	private final QuoteAggregator<QuoteBs> quoteAggregator = new QuoteAggregator<QuoteBs>(
+			List.of(QuoteBs::getLast, QuoteBs::getVolume), QuoteBs::getPair, (myPair, myCreatedAt, myValues) -> {
+				QuoteBs quoteBs = new QuoteBs(BigDecimal.ZERO, myValues[0], myCreatedAt, BigDecimal.ZERO,
+						BigDecimal.ZERO, myValues[1], BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+				quoteBs.setPair(myPair);
+				quoteBs.setCreatedAt(myCreatedAt);
+				return quoteBs;
+			});
+	private Calendar begin;
+	private Calendar end;
+	private List<Calendar> hours;
+
+	@BeforeEach
+	public void setup() {
+		this.begin = new GregorianCalendar(2024, Calendar.JANUARY, 10);
+		this.end = new GregorianCalendar(2024, Calendar.JANUARY, 11);
+		this.hours = new ArrayList<>();
+		for (int i = 0; i <= 24; i++) {
+			Calendar hour = (Calendar) this.begin.clone();
+			hour.add(Calendar.HOUR_OF_DAY, i);
+			this.hours.add(hour);
+		}
+	}
+
+	@Test
+	public void aggregateHoursAndDays() {
+		List<QuoteBs> quotes = List.of(this.quote("btcusd", 0, 10, "1", "10"), this.quote("btcusd", 0, 20, "2", "20"),
+				this.quote("btcusd", 0, 30, "3", "30"), this.quote("ethusd", 5, 1, "5", "1"),
+				this.quote("ethusd", 5, 2, "7", "1"), this.quote("ethusd", 6, 3, "9", "1"));
+		QuoteAggregator.Result<QuoteBs> result = this.quoteAggregator.aggregate(quotes, this.hours, this.begin,
+				this.end);
+
+		Assertions.assertEquals(1, result.hours().size());
+		QuoteBs hourQuote = result.hours().getFirst();
+		Assertions.assertEquals("btcusd", hourQuote.getPair());
+		Assertions.assertEquals(this.hours.getFirst().getTime(), hourQuote.getCreatedAt());
+		Assertions.assertEquals(0, new BigDecimal("2").compareTo(hourQuote.getLast()));
+		Assertions.assertEquals(0, new BigDecimal("20").compareTo(hourQuote.getVolume()));
+
+		Assertions.assertEquals(2, result.days().size());
+		QuoteBs dayQuote = result.days().get(1);
+		Assertions.assertEquals("ethusd", dayQuote.getPair());
+		Assertions.assertEquals(this.begin.getTime(), dayQuote.getCreatedAt());
+		Assertions.assertEquals(0, new BigDecimal("7").compareTo(dayQuote.getLast()));
+	}
+
+	@Test
+	public void aggregateExcludesBoundaries() {
+		List<QuoteBs> quotes = List.of(this.quote("btcusd", 1, 0, "1", "1"), this.quote("btcusd", 1, 10, "2", "1"),
+				this.quote("btcusd", 1, 20, "3", "1"), this.quote("btcusd", 1, 30, "4", "1"));
+		QuoteAggregator.Result<QuoteBs> result = this.quoteAggregator.aggregate(quotes, this.hours, this.begin,
+				this.end);
+
+		Assertions.assertEquals(1, result.hours().size());
+		Assertions.assertEquals(0, new BigDecimal("3").compareTo(result.hours().getFirst().getLast()));
+		Assertions.assertEquals(0, new BigDecimal("2.5").compareTo(result.days().getFirst().getLast()));
+	}
+
+	@Test
+	public void aggregateNeedsMinQuotes() {
+		List<QuoteBs> quotes = List.of(this.quote("btcusd", 2, 10, "1", "1"), this.quote("btcusd", 2, 20, "2", "1"));
+		QuoteAggregator.Result<QuoteBs> result = this.quoteAggregator.aggregate(quotes, this.hours, this.begin,
+				this.end);
+
+		Assertions.assertTrue(result.hours().isEmpty());
+		Assertions.assertTrue(result.days().isEmpty());
+	}
+
+	@Test
+	public void aggregateQuoteCbByIndex() {
+		QuoteAggregator<QuoteCb> cbAggregator = new QuoteAggregator<QuoteCb>(QuoteCbFields.NAMES.size(),
+				QuoteCbFields::get, myQuote -> "ALLUSD", (myPair, myCreatedAt, myValues) -> {
+					QuoteCb quoteCb = new QuoteCb();
+					for (int i = 0; i < myValues.length; i++) {
+						QuoteCbFields.set(quoteCb, i, myValues[i]);
+					}
+					quoteCb.setCreatedAt(myCreatedAt);
+					return quoteCb;
+				}, FieldSums.kahan());
+		List<QuoteCb> quotes = new ArrayList<>();
+		for (int minute = 10; minute <= 30; minute += 10) {
+			QuoteCb quoteCb = new QuoteCb();
+			quoteCb.setUsd(BigDecimal.ONE);
+			quoteCb.setEur(BigDecimal.valueOf(minute, 2));
+			quoteCb.setCreatedAt(new Date(this.begin.getTimeInMillis() + minute * 60000L));
+			quotes.add(quoteCb);
+		}
+		QuoteAggregator.Result<QuoteCb> result = cbAggregator.aggregate(quotes, this.hours, this.begin, this.end);
+
+		Assertions.assertEquals(1, result.hours().size());
+		Assertions.assertEquals(0, BigDecimal.ONE.compareTo(result.hours().getFirst().getUsd()));
+		Assertions.assertEquals(0, new BigDecimal("0.2").compareTo(result.hours().getFirst().getEur()));
+		Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(result.days().getFirst().getBtc()));
+	}
+
+	private QuoteBs quote(String pair, int hour, int minute, String last, String volume) {
+		Calendar createdAt = (Calendar) this.begin.clone();
+		createdAt.add(Calendar.HOUR_OF_DAY, hour);
+		createdAt.add(Calendar.MINUTE, minute);
+		QuoteBs quoteBs = new QuoteBs(BigDecimal.ONE, new BigDecimal(last), new Date(), BigDecimal.ONE,
+				BigDecimal.ONE, new BigDecimal(volume), BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE);
+		quoteBs.setPair(pair);
+		quoteBs.setCreatedAt(createdAt.getTime());
+		return quoteBs;
+	}
+}
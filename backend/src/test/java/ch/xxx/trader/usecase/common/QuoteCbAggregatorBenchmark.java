@@ -0,0 +1,149 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+/**
+ * Aggregates the hours of a Coinbase day (1440 quotes) with the former reduce
+ * that creates a QuoteCb per quote, with a function per field and with the
+ * indexed QuoteCbFields reader. The main method runs it with the GCProfiler,
+ * gc.alloc.rate.norm is the allocation per aggregation and gc.time the time
+ * spent in gc pauses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuoteCbAggregatorBenchmark {
+	private static final int QUOTES_PER_DAY = 1440;
+	private List<QuoteCb> quotes;
+	private Calendar begin;
+	private Calendar end;
+	private List<Calendar> hours;
+	private QuoteAggregator<QuoteCb> functionAggregator;
+	private QuoteAggregator<QuoteCb> indexedAggregator;
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(QuoteCbAggregatorBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+
+	@Setup
+	public void setup() {
+		this.begin = new GregorianCalendar(2024, Calendar.JANUARY, 10);
+		this.end = new GregorianCalendar(2024, Calendar.JANUARY, 11);
+		this.hours = new ArrayList<>();
+		for (int i = 0; i <= 24; i++) {
+			Calendar hour = (Calendar) this.begin.clone();
+			hour.add(Calendar.HOUR_OF_DAY, i);
+			this.hours.add(hour);
+		}
+		Random random = new Random(42L);
+		this.quotes = new ArrayList<>();
+		for (int minute = 0; minute < QUOTES_PER_DAY; minute++) {
+			QuoteCb quote = new QuoteCb();
+			for (int i = 0; i < QuoteCbFields.NAMES.size(); i++) {
+				QuoteCbFields.set(quote, i,
+						BigDecimal.valueOf(random.nextLong(1L, 100_000_000_000L), 6 + random.nextInt(11)));
+			}
+			quote.setCreatedAt(new Date(this.begin.getTimeInMillis() + minute * 60000L + 30000L));
+			this.quotes.add(quote);
+		}
+		this.functionAggregator = new QuoteAggregator<QuoteCb>(IntStream.range(0, QuoteCbFields.NAMES.size())
+				.<Function<QuoteCb, BigDecimal>>mapToObj(myIndex -> myQuote -> QuoteCbFields.get(myQuote, myIndex))
+				.toList(), myQuote -> "ALLUSD", QuoteCbAggregatorBenchmark::createQuoteCb, FieldSums.kahan());
+		this.indexedAggregator = new QuoteAggregator<QuoteCb>(QuoteCbFields.NAMES.size(), QuoteCbFields::get,
+				myQuote -> "ALLUSD", QuoteCbAggregatorBenchmark::createQuoteCb, FieldSums.kahan());
+	}
+
+	@Benchmark
+	public Object legacyReduce() {
+		List<QuoteCb> result = new ArrayList<>();
+		for (int hour = 0; hour < 24; hour++) {
+			final Date hourBegin = this.hours.get(hour).getTime();
+			final Date hourEnd = this.hours.get(hour + 1).getTime();
+			final long count = this.quotes.stream().filter(
+					myQuote -> myQuote.getCreatedAt().after(hourBegin) && myQuote.getCreatedAt().before(hourEnd))
+					.count();
+			QuoteCb quoteCb = new QuoteCb();
+			quoteCb.setCreatedAt(hourBegin);
+			result.add(this.quotes.stream().filter(
+					myQuote -> myQuote.getCreatedAt().after(hourBegin) && myQuote.getCreatedAt().before(hourEnd))
+					.reduce(quoteCb, (q1, q2) -> legacyAvgQuote(q1, q2, count)));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public Object functionFields() {
+		return this.functionAggregator.aggregate(this.quotes, this.hours, this.begin, this.end);
+	}
+
+	@Benchmark
+	public Object indexedFields() {
+		return this.indexedAggregator.aggregate(this.quotes, this.hours, this.begin, this.end);
+	}
+
+	// the former avgCbQuotePeriodMF, a new QuoteCb for every quote
+	private static QuoteCb legacyAvgQuote(QuoteCb q1, QuoteCb q2, long count) {
+		QuoteCb result = new QuoteCb();
+		for (int i = 0; i < QuoteCbFields.NAMES.size(); i++) {
+			QuoteCbFields.set(result, i, QuoteCbFields.get(q1, i)
+					.add(QuoteCbFields.get(q2, i).divide(BigDecimal.valueOf(count), 10, RoundingMode.HALF_UP)));
+			result.setCreatedAt(q1.getCreatedAt());
+		}
+		return result;
+	}
+
+	private static QuoteCb createQuoteCb(String pair, Date createdAt, BigDecimal[] values) {
+		QuoteCb quoteCb = new QuoteCb();
+		for (int i = 0; i < values.length; i++) {
+			QuoteCbFields.set(quoteCb, i, values[i]);
+		}
+		quoteCb.setCreatedAt(createdAt);
+		return quoteCb;
+	}
+}
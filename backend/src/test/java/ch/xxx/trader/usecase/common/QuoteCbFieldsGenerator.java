@@ -0,0 +1,131 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+/**
+ * Generates the QuoteCbFields accessor table from the BigDecimal fields of
+ * QuoteCb. Run the main method from the backend directory after a currency has
+ * been added to QuoteCb, QuoteCbFieldsTest fails while the table is outdated.
+ */
+public class QuoteCbFieldsGenerator {
+	public static final Path SOURCE = Path.of("src/main/java/ch/xxx/trader/usecase/common/QuoteCbFields.java");
+	// fields whose accessors do not follow the bean naming
+	private static final Map<String, List<String>> ACCESSORS = Map.of("inch1", List.of("get1inch", "set1Inch"),
+			"super1", List.of("getSuper", "setSuper"));
+
+	public static void main(String[] args) throws IOException {
+		Files.writeString(SOURCE, generate());
+	}
+
+	public static List<Field> fields() {
+		return Stream.of(QuoteCb.class.getDeclaredFields()).filter(
+				myField -> BigDecimal.class.equals(myField.getType()) && !Modifier.isStatic(myField.getModifiers()))
+				.toList();
+	}
+
+	public static String generate() {
+		final List<Field> fields = fields();
+		final StringBuilder sb = new StringBuilder();
+		sb.append("""
+				/**
+				 *    Copyright 2016 Sven Loesekann
+
+				   Licensed under the Apache License, Version 2.0 (the "License");
+				   you may not use this file except in compliance with the License.
+				   You may obtain a copy of the License at
+
+				       http://www.apache.org/licenses/LICENSE-2.0
+
+				   Unless required by applicable law or agreed to in writing, software
+				   distributed under the License is distributed on an "AS IS" BASIS,
+				   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+				   See the License for the specific language governing permissions and
+				   limitations under the License.
+				 */
+				package ch.xxx.trader.usecase.common;
+
+				import java.math.BigDecimal;
+				import java.util.List;
+
+				import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+				/**
+				 * Indexed access to the BigDecimal rate fields of QuoteCb. The index is the
+				 * position of the field name in NAMES.
+				 *
+				 * Generated by QuoteCbFieldsGenerator, do not edit.
+				 */
+				public final class QuoteCbFields {
+					public static final List<String> NAMES = List.of(
+				""");
+		sb.append(lines(fields.stream().map(myField -> "\"" + myField.getName() + "\"").toList(), 4, ",", ");"));
+		sb.append("\n\tprivate QuoteCbFields() {\n\t}\n\n");
+		sb.append("\tpublic static BigDecimal get(QuoteCb quote, int index) {\n\t\treturn switch (index) {\n");
+		for (int i = 0; i < fields.size(); i++) {
+			sb.append(String.format("\t\tcase %d -> quote.%s();%n", i, accessor(fields.get(i), 0).getName()));
+		}
+		sb.append("\t\tdefault -> throw new IndexOutOfBoundsException(index);\n\t\t};\n\t}\n\n");
+		sb.append("\tpublic static void set(QuoteCb quote, int index, BigDecimal value) {\n\t\tswitch (index) {\n");
+		for (int i = 0; i < fields.size(); i++) {
+			sb.append(String.format("\t\tcase %d -> quote.%s(value);%n", i, accessor(fields.get(i), 1).getName()));
+		}
+		sb.append("\t\tdefault -> throw new IndexOutOfBoundsException(index);\n\t\t}\n\t}\n}\n");
+		return sb.toString().replace("\r\n", "\n");
+	}
+
+	private static Method accessor(Field field, int kind) {
+		final String name = ACCESSORS.containsKey(field.getName()) ? ACCESSORS.get(field.getName()).get(kind)
+				: (kind == 0 ? "get" : "set") + field.getName().substring(0, 1).toUpperCase()
+						+ field.getName().substring(1);
+		try {
+			return kind == 0 ? QuoteCb.class.getMethod(name) : QuoteCb.class.getMethod(name, BigDecimal.class);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(String.format("No accessor %s for QuoteCb.%s", name, field.getName()),
+					e);
+		}
+	}
+
+	private static String lines(List<String> values, int tabs, String separator, String end) {
+		final String indent = "\t".repeat(tabs);
+		final StringBuilder sb = new StringBuilder(indent);
+		int length = tabs * 4;
+		for (int i = 0; i < values.size(); i++) {
+			final String value = values.get(i) + (i < values.size() - 1 ? separator : end);
+			if (length + value.length() + 1 > 120) {
+				sb.setLength(sb.length() - 1);
+				sb.append("\n").append(indent);
+				length = tabs * 4;
+			}
+			sb.append(value).append(" ");
+			length += value.length() + 1;
+		}
+		sb.setLength(sb.length() - 1);
+		return sb.append("\n").toString();
+	}
+}
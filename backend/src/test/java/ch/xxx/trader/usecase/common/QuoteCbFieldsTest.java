@@ -0,0 +1,52 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.common;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+
+public class QuoteCbFieldsTest {
+
+	@Test
+	public void generatedTableIsCurrent() throws IOException {
+		Assertions.assertEquals(QuoteCbFieldsGenerator.generate(), Files.readString(QuoteCbFieldsGenerator.SOURCE),
+				"QuoteCb changed, run QuoteCbFieldsGenerator.");
+	}
+
+	@Test
+	public void accessorsMatchFields() throws IllegalAccessException {
+		List<Field> fields = QuoteCbFieldsGenerator.fields();
+		Assertions.assertEquals(fields.stream().map(Field::getName).toList(), QuoteCbFields.NAMES);
+		QuoteCb quote = new QuoteCb();
+		for (int i = 0; i < fields.size(); i++) {
+			QuoteCbFields.set(quote, i, BigDecimal.valueOf(i + 1));
+		}
+		for (int i = 0; i < fields.size(); i++) {
+			fields.get(i).setAccessible(true);
+			Assertions.assertEquals(BigDecimal.valueOf(i + 1), fields.get(i).get(quote), fields.get(i).getName());
+			Assertions.assertEquals(BigDecimal.valueOf(i + 1), QuoteCbFields.get(quote, i));
+		}
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> QuoteCbFields.get(quote, fields.size()));
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import static org.mockito.ArgumentMatchers.any;
+
+import java.time.Duration;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.model.dto.BackfillProgress;
+import ch.xxx.trader.domain.model.entity.BackfillCheckpoint;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.usecase.services.ServiceUtils.MyTimeFrame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class BackfillEngineTest {
+
+	@Test
+	public void createPartitionsAfterCheckpoint() {
+		List<BackfillEngine.Partition> partitions = BackfillEngine.createPartitions(List.of("btcusd", "ethusd"),
+				Map.of("btcusd", this.day(3).getTime()), new MyTimeFrame(this.day(1), this.day(2)), this.day(5));
+		Assertions.assertEquals(List.of("ethusd", "ethusd", "btcusd", "ethusd"),
+				partitions.stream().map(BackfillEngine.Partition::pair).toList());
+		Assertions.assertEquals(this.day(3).getTime(), partitions.get(2).timeFrame().begin().getTime());
+		Assertions.assertEquals(this.day(4).getTime(), partitions.get(3).timeFrame().end().getTime());
+	}
+
+	@Test
+	public void backfillSavesCheckpointsInOrder() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.find(any(Query.class), Mockito.eq(BackfillCheckpoint.class)))
+				.thenReturn(Flux.empty());
+		List<BackfillCheckpoint> checkpoints = new CopyOnWriteArrayList<>();
+		Mockito.when(myMongoRepository.save(any(BackfillCheckpoint.class))).thenAnswer(myInvocation -> {
+			checkpoints.add(myInvocation.getArgument(0));
+			return Mono.just(myInvocation.getArgument(0));
+		});
+		RollupExecutor rollupExecutor = new RollupExecutor(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(rollupExecutor, "limit", 3);
+		BackfillEngine backfillEngine = new BackfillEngine(myMongoRepository, rollupExecutor,
+				new RollupJobService(myMongoRepository));
+		// later days finish first, the checkpoints are saved in day order
+		Long count = backfillEngine.backfill("quoteBsHour", List.of("btcusd"),
+				new MyTimeFrame(this.day(1), this.day(2)), this.day(5),
+				myPartition -> Mono.just(myPartition).delayElement(Duration
+						.ofMillis(50L - myPartition.timeFrame().begin().get(Calendar.DAY_OF_MONTH) * 10L)))
+				.block();
+
+		Assertions.assertEquals(3L, count);
+		Assertions.assertEquals(List.of(this.day(2).getTime(), this.day(3).getTime(), this.day(4).getTime()),
+				checkpoints.stream().map(BackfillCheckpoint::getCompletedUntil).toList());
+		BackfillProgress progress = backfillEngine.progress().get("quoteBsHour");
+		Assertions.assertEquals("DONE", progress.state());
+		Assertions.assertEquals(3, progress.completed());
+	}
+
+	@Test
+	public void backfillPairsFromQuotes() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.find(any(Query.class), Mockito.eq(BackfillCheckpoint.class)))
+				.thenReturn(Flux.empty());
+		Mockito.when(myMongoRepository.findDistinct(any(Query.class), Mockito.eq("pair"), Mockito.eq(QuoteBs.class),
+				Mockito.eq(String.class))).thenReturn(Flux.just("btcusd", "ltcusd"));
+		Mockito.when(myMongoRepository.save(any(BackfillCheckpoint.class)))
+				.thenAnswer(myInvocation -> Mono.just(myInvocation.getArgument(0)));
+		BackfillEngine backfillEngine = new BackfillEngine(myMongoRepository,
+				new RollupExecutor(new SimpleMeterRegistry()), new RollupJobService(myMongoRepository));
+		List<String> pairs = new CopyOnWriteArrayList<>();
+		Long count = backfillEngine.backfill("quoteBsDay", QuoteBs.class, new MyTimeFrame(this.day(1), this.day(2)),
+				this.day(4), myPartition -> Mono.fromRunnable(() -> pairs.add(myPartition.pair()))).block();
+
+		Assertions.assertEquals(4L, count);
+		Assertions.assertEquals(List.of("btcusd", "btcusd", "ltcusd", "ltcusd"), pairs.stream().sorted().toList());
+	}
+
+	@Test
+	public void backfillStopsOnError() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.find(any(Query.class), Mockito.eq(BackfillCheckpoint.class)))
+				.thenReturn(Flux.empty());
+		Mockito.when(myMongoRepository.save(any(BackfillCheckpoint.class)))
+				.thenAnswer(myInvocation -> Mono.just(myInvocation.getArgument(0)));
+		BackfillEngine backfillEngine = new BackfillEngine(myMongoRepository,
+				new RollupExecutor(new SimpleMeterRegistry()), new RollupJobService(myMongoRepository));
+		Assertions.assertThrows(RuntimeException.class,
+				() -> backfillEngine.backfill("quoteBsDay", List.of("btcusd"),
+						new MyTimeFrame(this.day(1), this.day(2)), this.day(5),
+						myPartition -> myPartition.timeFrame().begin().get(Calendar.DAY_OF_MONTH) == 2
+								? Mono.error(new RuntimeException("failed"))
+								: Mono.empty())
+						.block());
+		Assertions.assertEquals("FAILED", backfillEngine.progress().get("quoteBsDay").state());
+		Assertions.assertEquals(1, backfillEngine.progress().get("quoteBsDay").completed());
+	}
+
+	@Test
+	public void backfillShardsAwaitsHeldShard() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.find(any(Query.class), Mockito.eq(BackfillCheckpoint.class)))
+				.thenReturn(Flux.empty());
+		Mockito.when(myMongoRepository.getCollectionName(BackfillCheckpoint.class)).thenReturn("backfillCheckpoint");
+		List<Update> checkpoints = new CopyOnWriteArrayList<>();
+		Mockito.when(myMongoRepository.upsertUpdate(any(Query.class), any(Update.class),
+				Mockito.eq("backfillCheckpoint"))).thenAnswer(myInvocation -> {
+					checkpoints.add(myInvocation.getArgument(1));
+					return Mono.empty();
+				});
+		RollupJobService rollupJobService = Mockito.mock(RollupJobService.class);
+		Mockito.when(rollupJobService.isSharded()).thenReturn(true);
+		Mockito.when(rollupJobService.shardLease()).thenReturn(Duration.ofMillis(30L));
+		// day 1 is done, day 2 is held by another replica until its third check
+		AtomicInteger heldChecks = new AtomicInteger(0);
+		Mockito.when(rollupJobService.runShard(Mockito.anyString(), any())).thenAnswer(
+				myInvocation -> myInvocation.getArgument(0, String.class).endsWith("2024-01-03")
+						? myInvocation.getArgument(1)
+						: Mono.empty());
+		Mockito.when(rollupJobService.isDone(Mockito.anyString())).thenAnswer(myInvocation -> {
+			String shard = myInvocation.getArgument(0);
+			return Mono.fromCallable(() -> shard.endsWith("2024-01-01")
+					|| (shard.endsWith("2024-01-02") && heldChecks.incrementAndGet() > 2));
+		});
+		List<Integer> processed = new CopyOnWriteArrayList<>();
+		BackfillEngine backfillEngine = new BackfillEngine(myMongoRepository,
+				new RollupExecutor(new SimpleMeterRegistry()), rollupJobService);
+		Long count = backfillEngine.backfill("quoteBsHour", List.of("btcusd"),
+				new MyTimeFrame(this.day(1), this.day(2)), this.day(5),
+				myPartition -> Mono.fromRunnable(
+						() -> processed.add(myPartition.timeFrame().begin().get(Calendar.DAY_OF_MONTH))))
+				.block();
+
+		Assertions.assertEquals(3L, count);
+		Assertions.assertEquals(List.of(3), processed);
+		Assertions.assertEquals(3, heldChecks.get());
+		Assertions.assertEquals(1, checkpoints.size());
+		Assertions.assertEquals(this.day(4).getTime(),
+				checkpoints.get(0).getUpdateObject().get("$max", Document.class).get("completedUntil"));
+		Assertions.assertEquals("DONE", backfillEngine.progress().get("quoteBsHour").state());
+	}
+
+	private Calendar day(int day) {
+		return new GregorianCalendar(2024, Calendar.JANUARY, day);
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.common.MongoUtils.TimeFrame;
+import ch.xxx.trader.domain.model.dto.CandleResolution;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import reactor.core.publisher.Mono;
+
+public class CandleServiceTest {
+
+	@Test
+	public void candleBegin() {
+		Date createdAt = toDate(LocalDateTime.of(2024, 3, 5, 13, 47, 31));
+
+		Assertions.assertEquals(toDate(LocalDateTime.of(2024, 3, 5, 13, 47)),
+				CandleService.candleBegin(CandleResolution.M1, createdAt));
+		Assertions.assertEquals(toDate(LocalDateTime.of(2024, 3, 5, 13, 45)),
+				CandleService.candleBegin(CandleResolution.M5, createdAt));
+		Assertions.assertEquals(toDate(LocalDateTime.of(2024, 3, 5, 13, 0)),
+				CandleService.candleBegin(CandleResolution.H1, createdAt));
+		Assertions.assertEquals(toDate(LocalDateTime.of(2024, 3, 5, 0, 0)),
+				CandleService.candleBegin(CandleResolution.D1, createdAt));
+	}
+
+	@Test
+	public void collectionNameAndResolution() {
+		Assertions.assertEquals("candleBitstamp1h",
+				CandleService.collectionName(Exchange.BITSTAMP, CandleResolution.H1));
+		Assertions.assertEquals("candleCoinbase5m",
+				CandleService.collectionName(Exchange.COINBASE, CandleResolution.M5));
+		Assertions.assertEquals(CandleResolution.M5, CandleService.defaultResolution(TimeFrame.TODAY));
+		Assertions.assertEquals(CandleResolution.H1, CandleService.defaultResolution(TimeFrame.SEVENDAYS));
+		Assertions.assertEquals(CandleResolution.D1, CandleService.defaultResolution(TimeFrame.Year1));
+	}
+
+	@Test
+	public void candleUpdate() {
+		Document update = CandleService.candleUpdate(new BigDecimal("101.5"), null).getUpdateObject();
+
+		Assertions.assertEquals(new Decimal128(new BigDecimal("101.5")),
+				update.get("$setOnInsert", Document.class).get("open"));
+		Assertions.assertEquals(new Decimal128(new BigDecimal("101.5")),
+				update.get("$max", Document.class).get("high"));
+		Assertions.assertEquals(new Decimal128(new BigDecimal("101.5")),
+				update.get("$min", Document.class).get("low"));
+		Assertions.assertEquals(1, update.get("$inc", Document.class).get("count"));
+		Assertions.assertFalse(update.get("$set", Document.class).containsKey("volume"));
+	}
+
+	@Test
+	public void addUpsertsAllResolutions() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		List<String> collectionNames = new CopyOnWriteArrayList<>();
+		Mockito.when(myMongoRepository.ensureUniqueIndex(anyString(), anyString(), anyString()))
+				.thenReturn(Mono.just("pair_1_createdAt_1"));
+		Mockito.when(myMongoRepository.upsertUpdate(any(Query.class), any(Update.class), anyString()))
+				.thenAnswer(myInvocation -> {
+					collectionNames.add(myInvocation.getArgument(2));
+					return Mono.empty();
+				});
+		CandleService candleService = new CandleService(myMongoRepository);
+		ReflectionTestUtils.setField(candleService, "enabled", true);
+		candleService.add(Exchange.BITSTAMP, "btcusd", new Date(), new BigDecimal("101.5"), BigDecimal.TEN).block();
+
+		Assertions.assertEquals(List.of("candleBitstamp1d", "candleBitstamp1h", "candleBitstamp1m", "candleBitstamp5m"),
+				collectionNames.stream().sorted().toList());
+	}
+
+	private static Date toDate(LocalDateTime localDateTime) {
+		return Date.from(localDateTime.atZone(ZoneId.systemDefault()).toInstant());
+	}
+}
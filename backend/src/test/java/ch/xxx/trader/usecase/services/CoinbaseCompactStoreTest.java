@@ -0,0 +1,83 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+import ch.xxx.trader.domain.model.entity.QuoteCbCompact;
+import ch.xxx.trader.usecase.common.QuoteCbFields;
+
+public class CoinbaseCompactStoreTest {
+
+	@Test
+	public void compactRoundTrip() {
+		CoinbaseCompactStore.SymbolDictionary dictionary = this.createDictionary();
+		QuoteCb quote = new QuoteCb();
+		quote.setUsd(new BigDecimal("29318.75"));
+		quote.setEur(new BigDecimal("26543.123456789"));
+		quote.setLtc(new BigDecimal("0.0000123"));
+		QuoteCbCompact compact = CoinbaseCompactStore.toCompact(quote, dictionary);
+		Assertions.assertEquals(3, compact.size());
+		Assertions.assertTrue(compact.getSymbolIds()[0] < compact.getSymbolIds()[1]
+				&& compact.getSymbolIds()[1] < compact.getSymbolIds()[2]);
+		Assertions.assertEquals(0, new BigDecimal("29318.75").compareTo(compact.getRate(dictionary.symbolId("usd"))));
+		Assertions.assertEquals(BigDecimal.ZERO, compact.getRate(dictionary.symbolId("eth")));
+		QuoteCb result = CoinbaseCompactStore.toQuoteCb(compact, dictionary);
+		Assertions.assertEquals(quote.getCreatedAt(), result.getCreatedAt());
+		IntStream.range(0, QuoteCbFields.NAMES.size())
+				.forEach(myIndex -> Assertions.assertEquals(0, QuoteCbFields.get(quote, myIndex)
+						.compareTo(QuoteCbFields.get(result, myIndex)), QuoteCbFields.NAMES.get(myIndex)));
+	}
+
+	@Test
+	public void avgPeriod() {
+		CoinbaseCompactStore.SymbolDictionary dictionary = this.createDictionary();
+		CoinbaseCompactStore coinbaseCompactStore = new CoinbaseCompactStore(null, null, new ServiceUtils(null, null));
+		List<QuoteCbCompact> quotes = IntStream.range(1, 5).mapToObj(myIndex -> {
+			QuoteCb quote = new QuoteCb();
+			quote.setCreatedAt(new Date(myIndex * 1000L));
+			quote.setUsd(BigDecimal.valueOf(myIndex * 10L));
+			if (myIndex == 4) {
+				quote.setEur(BigDecimal.valueOf(8L));
+			}
+			return CoinbaseCompactStore.toCompact(quote, dictionary);
+		}).toList();
+		Optional<QuoteCbCompact> result = coinbaseCompactStore.avgPeriod(quotes, new Date(0L), new Date(10000L));
+		Assertions.assertTrue(result.isPresent());
+		Assertions.assertEquals(0, BigDecimal.valueOf(25L).compareTo(result.get().getRate(dictionary.symbolId("usd"))));
+		Assertions.assertEquals(0, BigDecimal.valueOf(2L).compareTo(result.get().getRate(dictionary.symbolId("eur"))));
+		Assertions.assertEquals(2, result.get().size());
+		Assertions.assertTrue(coinbaseCompactStore.avgPeriod(quotes, new Date(0L), new Date(3000L)).isEmpty());
+	}
+
+	private CoinbaseCompactStore.SymbolDictionary createDictionary() {
+		Map<String, Integer> symbolIds = new HashMap<>();
+		// reverse order to check the sorting of the symbol ids
+		IntStream.range(0, QuoteCbFields.NAMES.size()).forEach(myIndex -> symbolIds
+				.put(QuoteCbFields.NAMES.get(myIndex), QuoteCbFields.NAMES.size() - 1 - myIndex));
+		return CoinbaseCompactStore.createDictionary(symbolIds);
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import reactor.core.publisher.Mono;
+
+public class LatestQuoteStoreTest {
+
+	@Test
+	public void currentFromStore() {
+		LatestQuoteStore latestQuoteStore = new LatestQuoteStore();
+		AtomicInteger queries = new AtomicInteger();
+		QuoteBs dbQuote = this.createQuote(new Date(1000L));
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertSame(dbQuote, latestQuoteStore.current(Exchange.BITSTAMP, "btcusd", () -> {
+				queries.incrementAndGet();
+				return Mono.just(dbQuote);
+			}).block());
+		}
+		Assertions.assertEquals(1, queries.get());
+		QuoteBs newQuote = this.createQuote(new Date(2000L));
+		latestQuoteStore.update(Exchange.BITSTAMP, "btcusd", newQuote);
+		latestQuoteStore.update(Exchange.BITSTAMP, "btcusd", this.createQuote(new Date(1500L)));
+		Assertions.assertSame(newQuote, latestQuoteStore
+				.current(Exchange.BITSTAMP, "btcusd", () -> Mono.just(this.createQuote(new Date(0L)))).block());
+	}
+
+	@Test
+	public void currentRefresh() {
+		LatestQuoteStore latestQuoteStore = new LatestQuoteStore();
+		ReflectionTestUtils.setField(latestQuoteStore, "refreshInterval", Duration.ZERO);
+		QuoteBs insertedQuote = this.createQuote(new Date(2000L));
+		latestQuoteStore.update(Exchange.BITSTAMP, "btcusd", insertedQuote);
+		Assertions.assertSame(insertedQuote, latestQuoteStore
+				.current(Exchange.BITSTAMP, "btcusd", () -> Mono.just(this.createQuote(new Date(1000L)))).block());
+		Assertions.assertSame(insertedQuote,
+				latestQuoteStore.current(Exchange.BITSTAMP, "btcusd", () -> Mono.<QuoteBs>empty()).block());
+		QuoteBs dbQuote = this.createQuote(new Date(3000L));
+		Assertions.assertSame(dbQuote,
+				latestQuoteStore.current(Exchange.BITSTAMP, "btcusd", () -> Mono.just(dbQuote)).block());
+	}
+
+	@Test
+	public void currentEmptyCached() {
+		LatestQuoteStore latestQuoteStore = new LatestQuoteStore();
+		AtomicInteger queries = new AtomicInteger();
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertNull(latestQuoteStore.current(Exchange.BITSTAMP, "btcusd", () -> {
+				queries.incrementAndGet();
+				return Mono.<QuoteBs>empty();
+			}).block());
+		}
+		Assertions.assertEquals(1, queries.get());
+		QuoteBs newQuote = this.createQuote(new Date(2000L));
+		latestQuoteStore.update(Exchange.BITSTAMP, "btcusd", newQuote);
+		Assertions.assertSame(newQuote,
+				latestQuoteStore.current(Exchange.BITSTAMP, "btcusd", () -> Mono.<QuoteBs>empty()).block());
+	}
+
+	@Test
+	public void ageSeconds() {
+		QuoteBs quote = this.createQuote(new Date(System.currentTimeMillis() - 65000L));
+		long age = LatestQuoteStore.ageSeconds(quote);
+		Assertions.assertTrue(age >= 65L && age < 70L);
+	}
+
+	private QuoteBs createQuote(Date createdAt) {
+		QuoteBs quote = new QuoteBs(BigDecimal.ONE, BigDecimal.ONE, createdAt, BigDecimal.ONE, BigDecimal.ONE,
+				BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE);
+		quote.setPair("btcusd");
+		quote.setCreatedAt(createdAt);
+		return quote;
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import static org.mockito.ArgumentMatchers.any;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.model.entity.BackfillCheckpoint;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.domain.model.entity.QuoteCb;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class MongoRollupServiceTest {
+
+	@Test
+	public void valueFields() {
+		Assertions.assertEquals(List.of("high", "last", "bid", "vwap", "volume", "low", "ask", "open"),
+				MongoRollupService.valueFields(QuoteBs.class));
+		Assertions.assertTrue(MongoRollupService.valueFields(QuoteCb.class).contains("try1"));
+	}
+
+	@Test
+	public void rollupAdvancesCheckpoints() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.getCollectionName(QuoteBs.class)).thenReturn("quoteBs");
+		Mockito.when(myMongoRepository.getCollectionName(BackfillCheckpoint.class)).thenReturn("backfillCheckpoint");
+		Mockito.when(myMongoRepository.ensureUniqueIndex(Mockito.eq("quoteBsDay"), any(String[].class)))
+				.thenReturn(Mono.just("pair_1_createdAt_1"));
+		Mockito.when(myMongoRepository.aggregateToCollection(any(Aggregation.class), Mockito.eq("quoteBs")))
+				.thenReturn(Mono.empty());
+		Mockito.when(myMongoRepository.find(any(Query.class), Mockito.eq(BackfillCheckpoint.class)))
+				.thenReturn(Flux.just(new BackfillCheckpoint("quoteBsDay", "xrpusd", new Date(0L))));
+		Mockito.when(myMongoRepository.findDistinct(any(Query.class), Mockito.eq("pair"), Mockito.eq(QuoteBs.class),
+				Mockito.eq(String.class))).thenReturn(Flux.just("btcusd", "xrpusd"));
+		List<Query> checkpoints = new ArrayList<>();
+		List<Update> updates = new ArrayList<>();
+		Mockito.when(myMongoRepository.upsertUpdate(any(Query.class), any(Update.class),
+				Mockito.eq("backfillCheckpoint"))).thenAnswer(myInvocation -> {
+					checkpoints.add(myInvocation.getArgument(0));
+					updates.add(myInvocation.getArgument(1));
+					return Mono.empty();
+				});
+		MongoRollupService mongoRollupService = new MongoRollupService(myMongoRepository,
+				new BackfillEngine(myMongoRepository, null, null));
+		ReflectionTestUtils.setField(mongoRollupService, "chunkDays", 7);
+		ReflectionTestUtils.setField(mongoRollupService, "maxTime", Duration.ofMinutes(10L));
+		Date begin = Date.from(LocalDate.of(2024, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		Date end = Date.from(LocalDate.of(2024, 1, 11).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		mongoRollupService.rollup(QuoteBs.class, "quoteBsDay", true, true, begin, end).block();
+
+		Assertions.assertEquals(
+				List.of("quoteBsDay:xrpusd", "quoteBsDay:btcusd", "quoteBsDay:xrpusd", "quoteBsDay:btcusd"),
+				checkpoints.stream().map(myQuery -> myQuery.getQueryObject().get("_id")).toList());
+		Assertions.assertEquals(end,
+				updates.get(3).getUpdateObject().get("$max", Document.class).get("completedUntil"));
+	}
+
+	@Test
+	public void createHourAggregation() {
+		Date begin = new Date(1704844800000L);
+		Date end = new Date(1704931200000L);
+		Aggregation aggregation = MongoRollupService.createAggregation(List.of("last"), true, false, begin, end,
+				"quoteBsHour", ZoneId.of("Europe/Zurich"), Duration.ofMinutes(10L));
+		List<Document> stages = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+		Assertions.assertEquals(5, stages.size());
+		Document match = stages.get(0).get("$match", Document.class).get("createdAt", Document.class);
+		Assertions.assertEquals(begin, match.get("$gt"));
+		Assertions.assertEquals(end, match.get("$lt"));
+		Document groupId = stages.get(1).get("$group", Document.class).get("_id", Document.class);
+		Assertions.assertEquals("$pair", groupId.get("pair"));
+		Document dateTrunc = groupId.get("createdAt", Document.class).get("$dateTrunc", Document.class);
+		Assertions.assertEquals("hour", dateTrunc.get("unit"));
+		Assertions.assertEquals("Europe/Zurich", dateTrunc.get("timezone"));
+		Assertions.assertEquals(3, stages.get(2).get("$match", Document.class).get("count", Document.class)
+				.get("$gte"));
+		Assertions.assertTrue(stages.get(3).get("$project", Document.class).containsKey("last"));
+		Document merge = stages.get(4).get("$merge", Document.class);
+		Assertions.assertEquals("quoteBsHour", merge.get("into"));
+		Assertions.assertEquals(List.of("pair", "createdAt"), merge.get("on"));
+		Assertions.assertTrue(aggregation.getOptions().isAllowDiskUse());
+	}
+
+	@Test
+	public void createDayAggregationWithoutPair() {
+		Aggregation aggregation = MongoRollupService.createAggregation(List.of("btc"), false, true, new Date(0L),
+				new Date(), "quoteCbDay", ZoneId.of("UTC"), Duration.ofMinutes(10L));
+		List<Document> stages = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+		Document groupId = stages.get(1).get("$group", Document.class).get("_id", Document.class);
+		Assertions.assertFalse(groupId.containsKey("pair"));
+		Assertions.assertEquals("day",
+				groupId.get("createdAt", Document.class).get("$dateTrunc", Document.class).get("unit"));
+		Assertions.assertFalse(
+				String.valueOf(stages.get(4).get("$merge", Document.class).get("on")).contains("pair"));
+	}
+}
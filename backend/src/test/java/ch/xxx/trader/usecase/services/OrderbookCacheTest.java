@@ -0,0 +1,67 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class OrderbookCacheTest {
+
+	@Test
+	public void coalesceConcurrentMisses() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		OrderbookCache orderbookCache = new OrderbookCache(meterRegistry);
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		List<String> results = Flux.range(0, 50)
+				.flatMap(myIndex -> orderbookCache.get(Exchange.BITSTAMP, "btcusd",
+						() -> Mono.fromCallable(() -> "orderbook" + upstreamCalls.incrementAndGet())
+								.delayElement(Duration.ofMillis(100L))))
+				.collectList().block(Duration.ofSeconds(5L));
+		Assertions.assertEquals(50, results.size());
+		Assertions.assertEquals(1, upstreamCalls.get());
+		Assertions.assertTrue(results.stream().allMatch("orderbook1"::equals));
+		Assertions.assertEquals("orderbook1", orderbookCache
+				.get(Exchange.BITSTAMP, "btcusd", () -> Mono.just("orderbook" + upstreamCalls.incrementAndGet()))
+				.block());
+		Assertions.assertEquals(1, upstreamCalls.get());
+		Assertions.assertEquals(1.0, meterRegistry.get("orderbook.cache.requests").tag("result", "hit").counter().count());
+	}
+
+	@Test
+	public void staleWhileRevalidate() throws InterruptedException {
+		OrderbookCache orderbookCache = new OrderbookCache(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(orderbookCache, "ttl", Duration.ofMillis(50L));
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		Assertions.assertEquals("orderbook1", orderbookCache.get(Exchange.BITFINEX, "btcusd",
+				() -> Mono.fromCallable(() -> "orderbook" + upstreamCalls.incrementAndGet())).block());
+		Thread.sleep(100L);
+		Assertions.assertEquals("orderbook1", orderbookCache.get(Exchange.BITFINEX, "btcusd",
+				() -> Mono.fromCallable(() -> "orderbook" + upstreamCalls.incrementAndGet())).block());
+		Assertions.assertEquals(2, upstreamCalls.get());
+		Assertions.assertEquals("orderbook2", orderbookCache.get(Exchange.BITFINEX, "btcusd",
+				() -> Mono.fromCallable(() -> "orderbook" + upstreamCalls.incrementAndGet())).block());
+	}
+}
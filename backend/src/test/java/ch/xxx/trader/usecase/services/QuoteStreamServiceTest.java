@@ -0,0 +1,105 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+
+public class QuoteStreamServiceTest {
+
+	@Test
+	public void streamCurrentAndNewQuotes() throws InterruptedException {
+		LatestQuoteStore latestQuoteStore = new LatestQuoteStore();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		QuoteStreamService quoteStreamService = new QuoteStreamService(latestQuoteStore, meterRegistry);
+		QuoteBs currentQuote = this.createQuote(new Date(1000L));
+		List<ServerSentEvent<Object>> events = new CopyOnWriteArrayList<>();
+		Disposable disposable = quoteStreamService
+				.stream(Exchange.BITSTAMP, quoteStreamService.quotes(Exchange.BITSTAMP, "btcusd",
+						latestQuoteStore.current(Exchange.BITSTAMP, "btcusd", () -> Mono.just(currentQuote))))
+				.subscribe(events::add);
+		Thread.sleep(100L);
+		Assertions.assertEquals(1.0, meterRegistry.get("quote.stream.connections").gauge().value());
+		QuoteBs newQuote = this.createQuote(new Date(2000L));
+		latestQuoteStore.update(Exchange.BITSTAMP, "btcusd", newQuote);
+		latestQuoteStore.update(Exchange.BITSTAMP, "btcusd", this.createQuote(new Date(1500L)));
+		latestQuoteStore.update(Exchange.BITSTAMP, "ethusd", this.createQuote(new Date(3000L)));
+		Thread.sleep(100L);
+		disposable.dispose();
+		Assertions.assertEquals(2, events.size());
+		Assertions.assertSame(currentQuote, events.get(0).data());
+		Assertions.assertSame(newQuote, events.get(1).data());
+		Assertions.assertEquals("bitstamp", events.get(1).event());
+		Assertions.assertEquals("2000", events.get(1).id());
+		Assertions.assertEquals(0.0, meterRegistry.get("quote.stream.connections").gauge().value());
+	}
+
+	@Test
+	public void streamConflatesForSlowSubscribers() {
+		LatestQuoteStore latestQuoteStore = new LatestQuoteStore();
+		QuoteStreamService quoteStreamService = new QuoteStreamService(latestQuoteStore, new SimpleMeterRegistry());
+		List<QuoteBs> received = new CopyOnWriteArrayList<>();
+		SlowSubscriber subscriber = new SlowSubscriber(received);
+		quoteStreamService.quotes(Exchange.BITSTAMP, "btcusd", Mono.<QuoteBs>empty()).subscribe(subscriber);
+		for (int i = 1; i <= 10; i++) {
+			latestQuoteStore.update(Exchange.BITSTAMP, "btcusd", this.createQuote(new Date(i * 1000L)));
+		}
+		subscriber.request(2L);
+		subscriber.dispose();
+		Assertions.assertEquals(List.of(1000L, 10000L),
+				received.stream().map(myQuote -> myQuote.getCreatedAt().getTime()).toList());
+	}
+
+	private QuoteBs createQuote(Date createdAt) {
+		QuoteBs quote = new QuoteBs(BigDecimal.ONE, BigDecimal.ONE, createdAt, BigDecimal.ONE, BigDecimal.ONE,
+				BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE);
+		quote.setPair("btcusd");
+		quote.setCreatedAt(createdAt);
+		return quote;
+	}
+
+	private static class SlowSubscriber extends BaseSubscriber<QuoteBs> {
+		private final List<QuoteBs> received;
+
+		SlowSubscriber(List<QuoteBs> received) {
+			this.received = received;
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			subscription.request(1L);
+		}
+
+		@Override
+		protected void hookOnNext(QuoteBs value) {
+			this.received.add(value);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.common.IngestionRegistry;
+import ch.xxx.trader.domain.model.dto.Exchange;
+import ch.xxx.trader.domain.model.dto.IngestionPair;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.QuoteBf;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class QuoteWriteBufferTest {
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void insertsInBatches() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.getCollectionName(QuoteBs.class)).thenReturn("quoteBs");
+		Mockito.when(myMongoRepository.insertAll(any(Mono.class), eq("quoteBs"))).thenAnswer(
+				myInvocation -> ((Mono<Collection<Object>>) myInvocation.getArgument(0)).flatMapMany(Flux::fromIterable));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		QuoteWriteBuffer quoteWriteBuffer = new QuoteWriteBuffer(myMongoRepository, meterRegistry);
+		ReflectionTestUtils.setField(quoteWriteBuffer, "maxLatency", Duration.ofMillis(100L));
+		List<QuoteBs> quotes = Flux.range(0, 250)
+				.flatMap(myIndex -> quoteWriteBuffer.insert(Mono.just(this.createQuote(myIndex)), QuoteBs.class))
+				.collectList().block(Duration.ofSeconds(5L));
+		Assertions.assertEquals(250, quotes.size());
+		quoteWriteBuffer.flushAll();
+		Mockito.verify(myMongoRepository, Mockito.never()).insert(any(Mono.class));
+		Assertions.assertEquals(250L,
+				(long) meterRegistry.get("ingestion.write.batch.size").summary().totalAmount());
+		Assertions.assertTrue(meterRegistry.get("ingestion.write.batch.size").summary().count() < 10L);
+		Mockito.when(myMongoRepository.insert(any(Mono.class)))
+				.thenAnswer(myInvocation -> myInvocation.getArgument(0));
+		Assertions.assertNotNull(
+				quoteWriteBuffer.insert(Mono.just(this.createQuote(250)), QuoteBs.class).block(Duration.ofSeconds(1L)));
+		Mockito.verify(myMongoRepository).insert(any(Mono.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void insertsTickInOneBatchPerCollection() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.getCollectionName(QuoteBs.class)).thenReturn("quoteBs");
+		Mockito.when(myMongoRepository.getCollectionName(QuoteBf.class)).thenReturn("quoteBf");
+		Mockito.when(myMongoRepository.insertAll(any(Mono.class), any(String.class)))
+				.thenAnswer(myInvocation -> ((Mono<Collection<Object>>) myInvocation.getArgument(0))
+						.flatMapMany(Flux::fromIterable));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+		try {
+			QuoteWriteBuffer quoteWriteBuffer = new QuoteWriteBuffer(myMongoRepository, meterRegistry);
+			IngestionRegistry.PAIRS.stream()
+					.filter(myPair -> IngestionRegistry.STREAMING_EXCHANGES.contains(myPair.exchange()))
+					.forEach(myPair -> scheduler.schedule(() -> this.insert(quoteWriteBuffer, myPair).subscribe(),
+							myPair.offset().toMillis(), TimeUnit.MILLISECONDS));
+			scheduler.advanceTimeBy(IngestionRegistry.TICK);
+			DistributionSummary quoteBs = meterRegistry.get("ingestion.write.batch.size").tag("collection", "quoteBs")
+					.summary();
+			DistributionSummary quoteBf = meterRegistry.get("ingestion.write.batch.size").tag("collection", "quoteBf")
+					.summary();
+			Assertions.assertEquals(1L, quoteBs.count());
+			Assertions.assertEquals(IngestionRegistry.pairs(Exchange.BITSTAMP).size(), (int) quoteBs.totalAmount());
+			Assertions.assertEquals(1L, quoteBf.count());
+			Assertions.assertEquals(IngestionRegistry.pairs(Exchange.BITFINEX).size(), (int) quoteBf.totalAmount());
+		} finally {
+			VirtualTimeScheduler.reset();
+		}
+	}
+
+	private Mono<?> insert(QuoteWriteBuffer quoteWriteBuffer, IngestionPair ingestionPair) {
+		BigDecimal value = BigDecimal.ONE;
+		return Exchange.BITSTAMP.equals(ingestionPair.exchange())
+				? quoteWriteBuffer.insert(Mono.just(this.createQuote(1)), QuoteBs.class, Exchange.BITSTAMP)
+				: quoteWriteBuffer.insert(
+						Mono.just(new QuoteBf(value, value, value, value, value, value, value, "1682751197.898910")),
+						QuoteBf.class, Exchange.BITFINEX);
+	}
+
+	private QuoteBs createQuote(int index) {
+		BigDecimal value = BigDecimal.valueOf(index);
+		QuoteBs quote = new QuoteBs(value, value, new Date(), value, value, value, value, value, value);
+		quote.setPair("btcusd");
+		return quote;
+	}
+}
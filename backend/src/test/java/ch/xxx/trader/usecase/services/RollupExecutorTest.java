@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class RollupExecutorTest {
+
+	@Test
+	public void executeWithinLimit() {
+		RollupExecutor rollupExecutor = this.rollupExecutor(1);
+		AtomicInteger maxRunning = new AtomicInteger(0);
+		Long count = Flux.range(0, 4)
+				.flatMap(myIndex -> rollupExecutor.execute("quoteBsHour", Mono.fromCallable(() -> {
+					maxRunning.accumulateAndGet(rollupExecutor.running(), Math::max);
+					return myIndex;
+				}).delayElement(Duration.ofMillis(20L))))
+				.count().block();
+
+		Assertions.assertEquals(4L, count);
+		Assertions.assertEquals(1, maxRunning.get());
+		Assertions.assertEquals(0, rollupExecutor.running());
+		rollupExecutor.dispose();
+	}
+
+	@Test
+	public void limitGrowsUpToMaxLimit() {
+		RollupExecutor rollupExecutor = this.rollupExecutor(3);
+		for (int i = 0; i < 10; i++) {
+			rollupExecutor.execute("quoteBsHour", Mono.just(i).delayElement(Duration.ofMillis(20L))).block();
+		}
+
+		Assertions.assertEquals(3, rollupExecutor.limit());
+		rollupExecutor.dispose();
+	}
+
+	@Test
+	public void limitShrinksOnFailure() {
+		RollupExecutor rollupExecutor = this.rollupExecutor(4);
+		ReflectionTestUtils.setField(rollupExecutor, "limit", 4);
+		Assertions.assertThrows(RuntimeException.class,
+				() -> rollupExecutor.execute("quoteBsDay", Mono.error(new RuntimeException("failed"))).block());
+
+		Assertions.assertEquals(3, rollupExecutor.limit());
+		Assertions.assertEquals(0, rollupExecutor.running());
+		rollupExecutor.dispose();
+	}
+
+	@Test
+	public void cancelKeepsLimit() {
+		RollupExecutor rollupExecutor = this.rollupExecutor(4);
+		ReflectionTestUtils.setField(rollupExecutor, "limit", 4);
+		rollupExecutor.execute("quoteBsDay", Mono.never()).subscribe().dispose();
+
+		Assertions.assertEquals(4, rollupExecutor.limit());
+		Assertions.assertEquals(0, rollupExecutor.running());
+		rollupExecutor.dispose();
+	}
+
+	private RollupExecutor rollupExecutor(int maxLimit) {
+		RollupExecutor rollupExecutor = new RollupExecutor(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(rollupExecutor, "reservedCpus",
+				Runtime.getRuntime().availableProcessors() - maxLimit);
+		return rollupExecutor;
+	}
+}
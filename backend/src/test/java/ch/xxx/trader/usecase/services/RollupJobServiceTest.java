@@ -0,0 +1,92 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.RollupJob;
+import reactor.core.publisher.Mono;
+
+public class RollupJobServiceTest {
+
+	@Test
+	public void runExclusiveSkipsHeldJob() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.findAndModify(any(Query.class), any(Update.class), anyBoolean(),
+				Mockito.eq(RollupJob.class))).thenReturn(Mono.error(new DuplicateKeyException("held")));
+		AtomicBoolean started = new AtomicBoolean(false);
+		String result = new RollupJobService(myMongoRepository)
+				.runExclusive("bitstamp_avg", Mono.fromCallable(() -> {
+					started.set(true);
+					return "done";
+				})).block();
+
+		Assertions.assertNull(result);
+		Assertions.assertFalse(started.get());
+	}
+
+	@Test
+	public void runExclusiveReleasesJob() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		List<Boolean> upserts = new CopyOnWriteArrayList<>();
+		List<Update> updates = new CopyOnWriteArrayList<>();
+		Mockito.when(myMongoRepository.findAndModify(any(Query.class), any(Update.class), anyBoolean(),
+				Mockito.eq(RollupJob.class))).thenAnswer(myInvocation -> {
+					upserts.add(myInvocation.getArgument(2));
+					updates.add(myInvocation.getArgument(1));
+					return Mono.just(new RollupJob());
+				});
+		String result = new RollupJobService(myMongoRepository).runExclusive("bitstamp_avg", Mono.just("done"))
+				.block();
+
+		Assertions.assertEquals("done", result);
+		// claimed with an upsert, released without
+		Assertions.assertEquals(List.of(true, false), upserts);
+		Assertions.assertEquals(RollupJob.DONE,
+				updates.get(1).getUpdateObject().get("$set", Document.class).getString("status"));
+	}
+
+	@Test
+	public void runExclusiveReleasesFailedJob() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		List<Update> updates = new CopyOnWriteArrayList<>();
+		Mockito.when(myMongoRepository.findAndModify(any(Query.class), any(Update.class), anyBoolean(),
+				Mockito.eq(RollupJob.class))).thenAnswer(myInvocation -> {
+					updates.add(myInvocation.getArgument(1));
+					return Mono.just(new RollupJob());
+				});
+		Assertions.assertThrows(RuntimeException.class, () -> new RollupJobService(myMongoRepository)
+				.runExclusive("bitstamp_avg", Mono.error(new RuntimeException("failed"))).block());
+
+		Assertions.assertEquals(2, updates.size());
+		Assertions.assertEquals(RollupJob.FAILED,
+				updates.get(1).getUpdateObject().get("$set", Document.class).getString("status"));
+	}
+}
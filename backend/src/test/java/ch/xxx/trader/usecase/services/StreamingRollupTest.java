@@ -0,0 +1,166 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.model.entity.BackfillCheckpoint;
+import ch.xxx.trader.domain.model.entity.MyMongoRepository;
+import ch.xxx.trader.domain.model.entity.QuoteBs;
+import ch.xxx.trader.usecase.common.QuoteAggregator;
+import ch.xxx.trader.usecase.services.ServiceUtils.MyTimeFrame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class StreamingRollupTest {
+	private final QuoteAggregator<QuoteBs> quoteAggregator = new QuoteAggregator<QuoteBs>(List.of(QuoteBs::getLast),
+			QuoteBs::getPair, (myPair, myCreatedAt, myValues) -> {
+				QuoteBs quoteBs = new QuoteBs(null, myValues[0], myCreatedAt, null, null, null, null, null, null);
+				quoteBs.setPair(myPair);
+				quoteBs.setCreatedAt(myCreatedAt);
+				return quoteBs;
+			});
+
+	@Test
+	public void writeClosedHour() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.find(any(Query.class), eq(QuoteBs.class))).thenReturn(Flux.empty());
+		Mockito.when(myMongoRepository.upsert(any(Query.class), any(), any(String.class)))
+				.thenAnswer(myInvocation -> Mono.just(myInvocation.getArgument(1)));
+		Mockito.when(myMongoRepository.findAndModify(any(Query.class), any(Update.class), eq(false),
+				eq(BackfillCheckpoint.class))).thenReturn(Mono.empty());
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		StreamingRollupService streamingRollupService = new StreamingRollupService(myMongoRepository, meterRegistry);
+		ReflectionTestUtils.setField(streamingRollupService, "enabled", true);
+		StreamingRollup<QuoteBs> streamingRollup = streamingRollupService.create(QuoteBs.class,
+				this.quoteAggregator, true, "quoteBsHour", "quoteBsDay");
+
+		List.of(this.quote(10, 5, "1"), this.quote(10, 30, "1"), this.quote(11, 1, "2"), this.quote(11, 20, "4"),
+				this.quote(11, 40, "6"), this.quote(9, 50, "100"), this.quote(12, 1, "8"))
+				.forEach(myQuote -> streamingRollup.add(myQuote).block());
+
+		ArgumentCaptor<QuoteBs> captor = ArgumentCaptor.forClass(QuoteBs.class);
+		Mockito.verify(myMongoRepository).upsert(any(Query.class), captor.capture(), eq("quoteBsHour"));
+		Assertions.assertEquals(0, new BigDecimal("4").compareTo(captor.getValue().getLast()));
+		Assertions.assertEquals(this.date(11, 0), captor.getValue().getCreatedAt());
+		Assertions.assertEquals("btcusd", captor.getValue().getPair());
+		Mockito.verify(myMongoRepository).find(any(Query.class), eq(QuoteBs.class));
+		Mockito.verify(myMongoRepository, Mockito.never()).upsert(any(Query.class), any(), eq("quoteBsDay"));
+		ArgumentCaptor<Query> checkpointCaptor = ArgumentCaptor.forClass(Query.class);
+		Mockito.verify(myMongoRepository).findAndModify(checkpointCaptor.capture(), any(Update.class), eq(false),
+				eq(BackfillCheckpoint.class));
+		Assertions.assertEquals("quoteBsHour:btcusd", checkpointCaptor.getValue().getQueryObject().get("_id"));
+		Assertions.assertEquals(1.0, meterRegistry.get("rollup.streaming.writes").tag("source", "running")
+				.counter().count());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void streamingAndBackfillUpsertOneDocument() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Map<Query, Object> documents = new HashMap<>();
+		Mockito.when(myMongoRepository.find(any(Query.class), eq(QuoteBs.class))).thenReturn(Flux.empty());
+		Mockito.when(myMongoRepository.find(any(Query.class), eq(BackfillCheckpoint.class))).thenReturn(Flux
+				.just(new BackfillCheckpoint("quoteBsHour", "btcusd", new Date(this.date(11, 0).getTime() + 250L))));
+		Mockito.when(myMongoRepository.upsert(any(Query.class), any(), eq("quoteBsHour"))).thenAnswer(myInvocation -> {
+			documents.put(myInvocation.getArgument(0), myInvocation.getArgument(1));
+			return Mono.just(myInvocation.getArgument(1));
+		});
+		Mockito.when(myMongoRepository.findAndModify(any(Query.class), any(Update.class), eq(false),
+				eq(BackfillCheckpoint.class))).thenReturn(Mono.empty());
+		Mockito.when(myMongoRepository.upsertAll(any(), any(), eq("quoteBsHour"))).thenAnswer(myInvocation -> {
+			Function<Object, Query> keyQuery = myInvocation.getArgument(1);
+			((Collection<Object>) myInvocation.getArgument(0))
+					.forEach(myRollup -> documents.put(keyQuery.apply(myRollup), myRollup));
+			return Mono.empty();
+		});
+		StreamingRollupService streamingRollupService = new StreamingRollupService(myMongoRepository,
+				new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(streamingRollupService, "enabled", true);
+		StreamingRollup<QuoteBs> streamingRollup = streamingRollupService.create(QuoteBs.class,
+				this.quoteAggregator, true, "quoteBsHour", "quoteBsDay");
+		List<QuoteBs> hourQuotes = List.of(this.quote(11, 1, "2"), this.quote(11, 20, "4"), this.quote(11, 40, "6"));
+		List.of(this.quote(10, 5, "1"), hourQuotes.get(0), hourQuotes.get(1), hourQuotes.get(2),
+				this.quote(12, 1, "8")).forEach(myQuote -> streamingRollup.add(myQuote).block());
+
+		ServiceUtils serviceUtils = new ServiceUtils(myMongoRepository, null);
+		MyTimeFrame timeFrame = serviceUtils.createTimeFrame("quoteBsHour", QuoteBs.class, true).block();
+		Assertions.assertEquals(this.date(11, 0), timeFrame.begin().getTime());
+		List<QuoteBs> rollups = this.quoteAggregator.aggregate(hourQuotes,
+				serviceUtils.createDayHours(timeFrame.begin()), timeFrame.begin(), timeFrame.end()).hours();
+		serviceUtils.upsertRollups(rollups, "quoteBsHour", myQuote -> Optional.of(myQuote.getPair())).block();
+
+		Assertions.assertEquals(1, documents.size());
+		Assertions.assertEquals(this.date(11, 0), ((QuoteBs) documents.values().iterator().next()).getCreatedAt());
+	}
+
+	@Test
+	public void dayTimeFrameBeginsAtMidnight() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		Mockito.when(myMongoRepository.find(any(Query.class), eq(BackfillCheckpoint.class))).thenReturn(Flux
+				.just(new BackfillCheckpoint("quoteBsDay", "btcusd", new Date(this.date(13, 27).getTime() + 250L))));
+		MyTimeFrame timeFrame = new ServiceUtils(myMongoRepository, null)
+				.createTimeFrame("quoteBsDay", QuoteBs.class, false).block();
+		Assertions.assertEquals(this.date(0, 0), timeFrame.begin().getTime());
+		Assertions.assertEquals(
+				Date.from(LocalDateTime.of(2024, 1, 11, 0, 0).atZone(ZoneId.systemDefault()).toInstant()),
+				timeFrame.end().getTime());
+	}
+
+	@Test
+	public void disabled() {
+		MyMongoRepository myMongoRepository = Mockito.mock(MyMongoRepository.class);
+		StreamingRollup<QuoteBs> streamingRollup = new StreamingRollupService(myMongoRepository,
+				new SimpleMeterRegistry()).create(QuoteBs.class, this.quoteAggregator, true, "quoteBsHour",
+						"quoteBsDay");
+		List.of(this.quote(10, 5, "1"), this.quote(11, 5, "1"))
+				.forEach(myQuote -> streamingRollup.add(myQuote).block());
+		Mockito.verifyNoInteractions(myMongoRepository);
+	}
+
+	private QuoteBs quote(int hour, int minute, String last) {
+		QuoteBs quoteBs = new QuoteBs(BigDecimal.ONE, new BigDecimal(last), new Date(), BigDecimal.ONE,
+				BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE);
+		quoteBs.setPair("btcusd");
+		quoteBs.setCreatedAt(this.date(hour, minute));
+		return quoteBs;
+	}
+
+	private Date date(int hour, int minute) {
+		return Date.from(LocalDateTime.of(2024, 1, 10, hour, minute).atZone(ZoneId.systemDefault()).toInstant());
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package ch.xxx.trader.usecase.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.xxx.trader.domain.model.dto.Exchange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+public class TimeframeCacheTest {
+
+	@Test
+	public void invalidateAfterRollup() {
+		TimeframeCache timeframeCache = this.timeframeCache(100L);
+		AtomicInteger queries = new AtomicInteger();
+		Assertions.assertEquals(List.of(1, 2, 3), this.get(timeframeCache, Exchange.BITSTAMP, "30days", queries));
+		Assertions.assertEquals(List.of(1, 2, 3), this.get(timeframeCache, Exchange.BITSTAMP, "30days", queries));
+		Assertions.assertEquals(1, queries.get());
+		timeframeCache.invalidate(Exchange.BITFINEX);
+		this.get(timeframeCache, Exchange.BITSTAMP, "30days", queries);
+		Assertions.assertEquals(1, queries.get());
+		timeframeCache.invalidate(Exchange.BITSTAMP);
+		this.get(timeframeCache, Exchange.BITSTAMP, "30days", queries);
+		Assertions.assertEquals(2, queries.get());
+	}
+
+	@Test
+	public void notCachedTimeframes() {
+		TimeframeCache timeframeCache = this.timeframeCache(100L);
+		AtomicInteger queries = new AtomicInteger();
+		this.get(timeframeCache, Exchange.BITSTAMP, "today", queries);
+		this.get(timeframeCache, Exchange.BITSTAMP, "today", queries);
+		this.get(timeframeCache, Exchange.BITSTAMP, "7days", queries);
+		Assertions.assertEquals(3, queries.get());
+		Assertions.assertEquals(0L, timeframeCache.cachedQuotes());
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() {
+		TimeframeCache timeframeCache = this.timeframeCache(7L);
+		AtomicInteger queries = new AtomicInteger();
+		this.get(timeframeCache, Exchange.BITSTAMP, "30days", queries);
+		this.get(timeframeCache, Exchange.BITSTAMP, "90days", queries);
+		this.get(timeframeCache, Exchange.BITSTAMP, "30days", queries);
+		Assertions.assertEquals(2, queries.get());
+		// 9 quotes do not fit, the 90days series was used least recently
+		this.get(timeframeCache, Exchange.BITSTAMP, "1year", queries);
+		Assertions.assertEquals(6L, timeframeCache.cachedQuotes());
+		this.get(timeframeCache, Exchange.BITSTAMP, "30days", queries);
+		Assertions.assertEquals(3, queries.get());
+		this.get(timeframeCache, Exchange.BITSTAMP, "90days", queries);
+		Assertions.assertEquals(4, queries.get());
+	}
+
+	private List<Integer> get(TimeframeCache timeframeCache, Exchange exchange, String timeFrame,
+			AtomicInteger queries) {
+		return timeframeCache.get(exchange, "btcusd", timeFrame, () -> {
+			queries.incrementAndGet();
+			return Flux.just(1, 2, 3);
+		}).collectList().block();
+	}
+
+	private TimeframeCache timeframeCache(long maxQuotes) {
+		TimeframeCache timeframeCache = new TimeframeCache(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(timeframeCache, "enabled", true);
+		ReflectionTestUtils.setField(timeframeCache, "maxQuotes", maxQuotes);
+		return timeframeCache;
+	}
+}
@@ -6,7 +6,8 @@ const PROXY_CONFIG = [
             "/itbit",
             "/bitfinex",
             "/myuser",
-            "/statistics"
+            "/statistics",
+            "/quotes"
         ],
         target: "http://localhost:8080",
         secure: false
@@ -13,8 +13,10 @@
    See the License for the specific language governing permissions and
    limitations under the License.
  */
-export interface OrderbookBs {
+export interface Orderbook {
   timestamp: Date;
-  bids: string[][];
-  asks: string[][];
+  bidPrices: number[];
+  bidAmounts: number[];
+  askPrices: number[];
+  askAmounts: number[];
 }
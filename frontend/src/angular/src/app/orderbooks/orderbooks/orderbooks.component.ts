@@ -24,9 +24,7 @@ import { BitstampCurrPairs, BitstampService } from "../../services/bitstamp.serv
 import { ItbitCurrPairs, ItbitService } from "../../services/itbit.service";
 import { BitfinexCurrPairs, BitfinexService } from "../../services/bitfinex.service";
 import { Router } from "@angular/router";
-import { OrderbookBs } from "../../common/orderbook-bs";
-import { OrderbookBf, OrderBf } from "../../common/orderbook-bf";
-import { OrderbookIb } from "../../common/orderbook-ib";
+import { Orderbook } from "../../common/orderbook";
 import { takeUntilDestroyed } from "@angular/core/rxjs-interop";
 import { MatButtonModule } from "@angular/material/button";
 
@@ -88,7 +86,7 @@ export class OrderbooksComponent implements OnInit {
         .pipe(takeUntilDestroyed(this.destroy))
         .subscribe((ob) => {
           //                this.orderbookIb = ob;
-          this.ibOrders = this.filterObIb(ob);
+          this.ibOrders = this.filterOb(ob);
         });
     } else {
       this.ibOrders = [];
@@ -99,7 +97,7 @@ export class OrderbooksComponent implements OnInit {
         .pipe(takeUntilDestroyed(this.destroy))
         .subscribe((ob) => {
           //                this.orderbookBs = ob;
-          this.bsOrders = this.filterObBs(ob);
+          this.bsOrders = this.filterOb(ob);
         });
     } else {
       this.bsOrders = [];
@@ -110,7 +108,7 @@ export class OrderbooksComponent implements OnInit {
         .pipe(takeUntilDestroyed(this.destroy))
         .subscribe((ob) => {
           //                this.orderbookBf = ob;
-          this.bfOrders = this.filterObBf(ob);
+          this.bfOrders = this.filterOb(ob);
         });
     } else {
       this.bfOrders = [];
@@ -121,62 +119,21 @@ export class OrderbooksComponent implements OnInit {
     this.router.navigate(["/overview"]);
   }
 
-  private filterObBs(ob: OrderbookBs): MyOrder[] {
+  private filterOb(ob: Orderbook): MyOrder[] {
     const myOrders: MyOrder[] = [];
     let sum = 0;
-    const bidAskArr = this.model.buysell === 1 ? ob.asks : ob.bids;
-    for (const order of bidAskArr) {
+    const prices = this.model.buysell === 1 ? ob.askPrices : ob.bidPrices;
+    const amounts = this.model.buysell === 1 ? ob.askAmounts : ob.bidAmounts;
+    for (let i = 0; i < prices.length; i++) {
       myOrders.push(
         new MyOrder(
           this.model.buysell,
-          parseFloat(order[0]),
-          parseFloat(order[1]),
+          prices[i],
+          amounts[i],
           sum > this.model.amount ? "black" : "blue",
         ),
       );
-      sum += parseFloat(order[1]);
-      if (sum > this.model.amount * 1.5) {
-        break;
-      }
-    }
-    return myOrders;
-  }
-
-  private filterObBf(ob: OrderbookBf): MyOrder[] {
-    const myOrders: MyOrder[] = [];
-    let sum = 0;
-    const bidAskArr = this.model.buysell === 1 ? ob.asks : ob.bids;
-    for (const order of bidAskArr) {
-      myOrders.push(
-        new MyOrder(
-          this.model.buysell,
-          parseFloat(order.price),
-          parseFloat(order.amount),
-          sum > this.model.amount ? "black" : "blue",
-        ),
-      );
-      sum += parseFloat(order.amount);
-      if (sum > this.model.amount * 1.5) {
-        break;
-      }
-    }
-    return myOrders;
-  }
-
-  private filterObIb(ob: OrderbookIb): MyOrder[] {
-    const myOrders: MyOrder[] = [];
-    let sum = 0;
-    const bidAskArr = this.model.buysell === 1 ? ob.asks : ob.bids;
-    for (const order of bidAskArr) {
-      myOrders.push(
-        new MyOrder(
-          this.model.buysell,
-          parseFloat(order[0]),
-          parseFloat(order[1]),
-          sum > this.model.amount ? "black" : "blue",
-        ),
-      );
-      sum += parseFloat(order[1]);
+      sum += amounts[i];
       if (sum > this.model.amount * 1.5) {
         break;
       }
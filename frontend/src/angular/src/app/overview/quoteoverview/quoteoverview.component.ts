@@ -15,7 +15,6 @@
 import {
   Component,
   OnInit,
-  OnDestroy,
   DestroyRef,
   ChangeDetectionStrategy,
 } from "@angular/core";
@@ -23,6 +22,7 @@ import { BitstampCurrPairs, BitstampService } from "../../services/bitstamp.serv
 import { CoinbaseCurrPairs, CoinbaseService } from "../../services/coinbase.service";
 import { ItbitCurrPairs, ItbitService } from "../../services/itbit.service";
 import { BitfinexCurrPairs, BitfinexService } from "../../services/bitfinex.service";
+import { QuoteEvent, QuoteStreamService } from "../../services/quote-stream.service";
 import { QuoteBs } from "../../common/quote-bs";
 import { QuoteCb } from "../../common/quote-cb";
 import { QuoteIb } from "../../common/quote-ib";
@@ -69,15 +69,30 @@ import { MatToolbarModule } from "@angular/material/toolbar";
   changeDetection: ChangeDetectionStrategy.Eager,
   styleUrls: ["./quoteoverview.component.scss"],
 })
-export class QuoteoverviewComponent implements OnInit, OnDestroy {
+export class QuoteoverviewComponent implements OnInit {
   protected datasource = new Myds();
   protected loggedIn = false;
-  private interval: any;
   private utils = new CommonUtils();
   private bitstampCurrPairs= new BitstampCurrPairs();
   private coinbaseCurrPairs= new CoinbaseCurrPairs();
   private itbitCurrPairs= new ItbitCurrPairs();
   private bitfinexCurrPairs= new BitfinexCurrPairs();
+  private bsRowIds = [
+    this.bitstampCurrPairs.BTCEUR,
+    this.bitstampCurrPairs.ETHEUR,
+    this.bitstampCurrPairs.LTCEUR,
+    this.bitstampCurrPairs.XRPEUR,
+    this.bitstampCurrPairs.BTCUSD,
+    this.bitstampCurrPairs.ETHUSD,
+    this.bitstampCurrPairs.LTCUSD,
+    this.bitstampCurrPairs.XRPUSD,
+  ];
+  private bfRowIds = [
+    this.bitfinexCurrPairs.BTCUSD,
+    this.bitfinexCurrPairs.ETHUSD,
+    this.bitfinexCurrPairs.LTCUSD,
+    this.bitfinexCurrPairs.XRPUSD,
+  ];
 
   constructor(
     private router: Router,
@@ -85,6 +100,7 @@ export class QuoteoverviewComponent implements OnInit, OnDestroy {
     private serviceCb: CoinbaseService,
     private serviceIb: ItbitService,
     private serviceBf: BitfinexService,
+    private serviceQs: QuoteStreamService,
     private serviceMu: MyuserService,
     private tokenService: TokenService,
     private destroy: DestroyRef,
@@ -92,12 +108,6 @@ export class QuoteoverviewComponent implements OnInit, OnDestroy {
   ) {}
 
   ngOnInit() {
-    if (this.interval) {
-      clearInterval(this.interval);
-    }
-    this.interval = setInterval(() => {
-      this.refreshData();
-    }, 15000);
     if (this.datasource.rows.length < 16) {
       for (let i = 0; i < 16; i++) {
         this.datasource.rows.push(
@@ -118,16 +128,14 @@ export class QuoteoverviewComponent implements OnInit, OnDestroy {
       this.datasource.updateRows();
     }
     this.refreshData();
+    this.serviceQs
+      .streamQuotes()
+      .pipe(takeUntilDestroyed(this.destroy))
+      .subscribe((quoteEvent) => this.updateRows(quoteEvent));
     this.loggedIn = !!this.tokenService.token;
     //console.log(this.hash);
   }
 
-  ngOnDestroy(): void {
-    if (this.interval) {
-      clearInterval(this.interval);
-    }
-  }
-
   openLoginDialog(): void {
     const dialogRef = this.dialog.open(LoginComponent, {
       width: "600px",
@@ -256,6 +264,40 @@ export class QuoteoverviewComponent implements OnInit, OnDestroy {
         );
   }
 
+  private updateRows(quoteEvent: QuoteEvent): void {
+    if (quoteEvent.exchange === "bitstamp" && !!quoteEvent.quote?.last) {
+      const rowId = this.bsRowIds.indexOf(quoteEvent.quote.pair);
+      if (rowId >= 0) {
+        this.datasource.rows[rowId] = this.createRowBs(
+          quoteEvent.quote,
+          "Bitstamp",
+          this.utils.getCurrpairName(quoteEvent.quote.pair) ?? "",
+        );
+      }
+    } else if (quoteEvent.exchange === "bitfinex" && !!quoteEvent.quote?.last_price) {
+      const rowId = this.bfRowIds.indexOf(quoteEvent.quote.pair);
+      if (rowId >= 0) {
+        this.datasource.rows[12 + rowId] = this.createRowBf(
+          quoteEvent.quote,
+          "Bitfinex",
+          this.utils.getCurrpairName(quoteEvent.quote.pair) ?? "",
+        );
+      }
+    } else if (quoteEvent.exchange === "itbit" && !!quoteEvent.quote?.lastPrice) {
+      this.datasource.rows[8] = this.createRowIb(
+        quoteEvent.quote,
+        "Itbit",
+        this.utils.getCurrpairName(this.itbitCurrPairs.BTCUSD) ?? "",
+      );
+    } else if (quoteEvent.exchange === "coinbase" && !!quoteEvent.quote?.btc) {
+      const myrows = this.createRowsCb(quoteEvent.quote);
+      this.datasource.rows[9] = myrows[0];
+      this.datasource.rows[10] = myrows[1];
+      this.datasource.rows[11] = myrows[2];
+    }
+    this.datasource.updateRows();
+  }
+
   private refeshBsData(currPair: string, rowId: number): void {
     this.serviceBs
       .getCurrentQuote(currPair)
@@ -19,7 +19,7 @@ import { Observable } from "rxjs";
 import { catchError, map, tap } from "rxjs/operators";
 import { QuoteBf } from "../common/quote-bf";
 import { Utils } from "./utils";
-import { OrderbookBf } from "../common/orderbook-bf";
+import { Orderbook } from "../common/orderbook";
 
 export class BitfinexCurrPairs {
   // eslint-disable-next-line @typescript-eslint/naming-convention
@@ -106,13 +106,13 @@ export class BitfinexService {
       .pipe(catchError(this.utils.handleError<QuoteBf[]>("get1YearQuotes")));
   }
 
-  getOrderbook(currencypair: string): Observable<OrderbookBf> {
+  getOrderbook(currencypair: string, depth = 100): Observable<Orderbook> {
     const reqOptions = { headers: this.utils.createTokenHeader() };
     return this.http
-      .get<OrderbookBf>(
-        this.bitfinex + "/" + currencypair + "/orderbook",
+      .get<Orderbook>(
+        this.bitfinex + "/" + currencypair + "/orderbook?depth=" + depth,
         reqOptions,
       )
-      .pipe(catchError(this.utils.handleError<OrderbookBf>("getOrderbook")));
+      .pipe(catchError(this.utils.handleError<Orderbook>("getOrderbook")));
   }
 }
@@ -19,7 +19,7 @@ import { Observable } from "rxjs";
 import { catchError } from "rxjs/operators";
 import { QuoteBs } from "../common/quote-bs";
 import { Utils } from "./utils";
-import { OrderbookBs } from "../common/orderbook-bs";
+import { Orderbook } from "../common/orderbook";
 
 export class BitstampCurrPairs {
   // eslint-disable-next-line @typescript-eslint/naming-convention
@@ -113,13 +113,13 @@ export class BitstampService {
       .pipe(catchError(this.utils.handleError<QuoteBs[]>("get1YearQuotes")));
   }
 
-  getOrderbook(currencypair: string): Observable<OrderbookBs> {
+  getOrderbook(currencypair: string, depth = 100): Observable<Orderbook> {
     const reqOptions = { headers: this.utils.createTokenHeader() };
     return this.http
-      .get<OrderbookBs>(
-        this.bitstamp + "/" + currencypair + "/orderbook",
+      .get<Orderbook>(
+        this.bitstamp + "/" + currencypair + "/orderbook?depth=" + depth,
         reqOptions,
       )
-      .pipe(catchError(this.utils.handleError<OrderbookBs>("getOrderbook")));
+      .pipe(catchError(this.utils.handleError<Orderbook>("getOrderbook")));
   }
 }
@@ -19,7 +19,7 @@ import { Observable } from "rxjs";
 import { catchError } from "rxjs/operators";
 import { QuoteIb } from "../common/quote-ib";
 import { Utils } from "./utils";
-import { OrderbookIb } from "../common/orderbook-ib";
+import { Orderbook } from "../common/orderbook";
 
 export class ItbitCurrPairs {
   // eslint-disable-next-line @typescript-eslint/naming-convention
@@ -101,13 +101,13 @@ export class ItbitService {
       .pipe(catchError(this.utils.handleError<QuoteIb[]>("get1YearQuotes")));
   }
 
-  getOrderbook(currencypair: string): Observable<OrderbookIb> {
+  getOrderbook(currencypair: string, depth = 100): Observable<Orderbook> {
     const reqOptions = { headers: this.utils.createTokenHeader() };
     return this.http
-      .get<OrderbookIb>(
-        this.itbit + "/" + currencypair + "/orderbook",
+      .get<Orderbook>(
+        this.itbit + "/" + currencypair + "/orderbook?depth=" + depth,
         reqOptions,
       )
-      .pipe(catchError(this.utils.handleError<OrderbookIb>("getOrderbook")));
+      .pipe(catchError(this.utils.handleError<Orderbook>("getOrderbook")));
   }
 }
@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2016 Sven Loesekann
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+import { Injectable, NgZone } from "@angular/core";
+import { Observable } from "rxjs";
+
+export class QuoteEvent {
+  constructor(
+    public exchange: string,
+    public quote: any,
+  ) {}
+}
+
+@Injectable({ providedIn: "root" })
+export class QuoteStreamService {
+  private readonly quotes = "/quotes";
+  private readonly exchanges = ["bitstamp", "bitfinex", "itbit", "coinbase"];
+
+  constructor(private zone: NgZone) {}
+
+  streamQuotes(): Observable<QuoteEvent> {
+    return new Observable<QuoteEvent>((subscriber) => {
+      const eventSource = new EventSource(this.quotes + "/stream");
+      const listener = (event: MessageEvent) =>
+        this.zone.run(() =>
+          subscriber.next(new QuoteEvent(event.type, JSON.parse(event.data))),
+        );
+      this.exchanges.forEach((exchange) =>
+        eventSource.addEventListener(exchange, listener),
+      );
+      return () => eventSource.close();
+    });
+  }
+}